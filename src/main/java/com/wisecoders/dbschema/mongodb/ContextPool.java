@@ -0,0 +1,132 @@
+package com.wisecoders.dbschema.mongodb;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.logging.Level;
+
+import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
+
+/**
+ * Bounded pool of GraalJS contexts used by the statements of one connection.
+ * All contexts are created on one driver-wide Engine, so the code compiled by Truffle is shared between connections,
+ * and a connection can execute statements from multiple threads, each thread borrowing its own Context.
+ * Each context is prepared once with the DatabaseResolver, the ShellFunctions and the init.js helpers ( ObjectId, NumberLong, use, ... ). Executing a statement evaluates only the statement script.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+class ContextPool {
+
+    public static final int DEFAULT_MAX_CONTEXTS = 4;
+
+    private static Engine engine;
+    private static Source initSource, resolverSource;
+
+    private final MongoConnection connection;
+    private final int maxContexts;
+    private final Deque<Context> idleContexts = new ArrayDeque<>();
+    private final List<Context> allContexts = new ArrayList<>();
+    private boolean isClosed = false;
+
+    ContextPool( MongoConnection connection, int maxContexts ){
+        this.connection = connection;
+        this.maxContexts = Math.max( 1, maxContexts );
+    }
+
+    static synchronized Engine getEngine(){
+        if ( engine == null ){
+            // Without this it doesn't find the JS or Truffle
+            Thread.currentThread().setContextClassLoader( Context.class.getClassLoader());
+            engine = Engine.newBuilder().option("engine.WarnInterpreterOnly", "false").build();
+        }
+        return engine;
+    }
+
+    private static synchronized Source getInitSource() throws IOException {
+        if ( initSource == null ){
+            final String initScript = Util.readStringFromInputStream(ContextPool.class.getResourceAsStream("init.js"));
+            initSource = Source.newBuilder("js", initScript, "init.js").build();
+        }
+        return initSource;
+    }
+
+    private static synchronized Source getResolverSource(){
+        if ( resolverSource == null ){
+            resolverSource = Source.create("js", DatabaseResolver.INSTALL_SCRIPT );
+        }
+        return resolverSource;
+    }
+
+    /**
+     * Take an idle context, create a new one if the pool is not full, otherwise wait until another thread releases one.
+     */
+    synchronized Context borrow() throws SQLException {
+        while ( !isClosed ){
+            if ( !idleContexts.isEmpty() ){
+                return idleContexts.pop();
+            }
+            if ( allContexts.size() < maxContexts ){
+                final Context context = createContext();
+                allContexts.add( context );
+                return context;
+            }
+            try {
+                wait();
+            } catch ( InterruptedException ex ){
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a free script context.", ex );
+            }
+        }
+        throw new SQLException("Connection was previously closed.");
+    }
+
+    synchronized void release( Context context ){
+        if ( isClosed ){
+            context.close( true );
+        } else {
+            idleContexts.push( context );
+            notify();
+        }
+    }
+
+    synchronized void close(){
+        isClosed = true;
+        for ( Context context : idleContexts ){
+            try {
+                context.close( true );
+            } catch ( Throwable ex ){
+                LOGGER.log(Level.FINE, "Error closing script context", ex );
+            }
+        }
+        idleContexts.clear();
+        allContexts.clear();
+        notifyAll();
+    }
+
+    private Context createContext() throws SQLException {
+        //https://github.com/oracle/graaljs/issues/214
+        Thread.currentThread().setContextClassLoader( Context.class.getClassLoader());
+        final Context context = Context.newBuilder("js").engine( getEngine() ).allowAllAccess(true).build();
+        try {
+            context.eval( getResolverSource() ).execute( new DatabaseResolver( connection.client ));
+            final Value bindings = context.getBindings("js");
+            bindings.putMember("client", connection);
+            ShellFunctions.bind( bindings );
+            context.eval( getInitSource() );
+        } catch ( Throwable ex ){
+            context.close( true );
+            throw new SQLException("Error initializing the script context. " + ex.getLocalizedMessage(), ex );
+        }
+        return context;
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.wisecoders.dbschema.mongodb;
+
+import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoClient;
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyObject;
+
+/**
+ * Resolve the databases referred by name in scripts, like 'local.books.find()'.
+ * The resolver is installed once per script context, as prototype of the global object, so only the names which are not
+ * defined as globals are looked up, and only when a script refers them. Other databases are not listed and not wrapped.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+class DatabaseResolver implements ProxyObject {
+
+    // 'typeof name' CALLS ONLY THE get TRAP, THEREFORE get CHECKS THE DATABASE AS WELL.
+    static final String INSTALL_SCRIPT =
+            "(function( databases ){\n" +
+            "    Object.setPrototypeOf( globalThis, new Proxy( Object.getPrototypeOf( globalThis ), {\n" +
+            "        has: function( target, key ){\n" +
+            "            return Reflect.has( target, key ) || ( typeof key === 'string' && key in databases );\n" +
+            "        },\n" +
+            "        get: function( target, key, receiver ){\n" +
+            "            if ( Reflect.has( target, key ) || typeof key !== 'string' ) return Reflect.get( target, key, receiver );\n" +
+            "            return key in databases ? databases[key] : undefined;\n" +
+            "        }\n" +
+            "    }));\n" +
+            "})";
+
+    private final WrappedMongoClient client;
+
+    DatabaseResolver( WrappedMongoClient client ){
+        this.client = client;
+    }
+
+    @Override
+    public boolean hasMember(String key) {
+        return client.hasDatabase( key );
+    }
+
+    @Override
+    public Object getMember(String key) {
+        return client.getDatabase( key );
+    }
+
+    @Override
+    public Object getMemberKeys() {
+        return new String[0];
+    }
+
+    @Override
+    public void putMember(String key, Value value) {
+        throw new UnsupportedOperationException("Databases cannot be set.");
+    }
+}
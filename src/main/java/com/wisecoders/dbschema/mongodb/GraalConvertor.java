@@ -1,14 +1,16 @@
 package com.wisecoders.dbschema.mongodb;
 
-import com.google.gson.Gson;
-import com.mongodb.BasicDBObject;
+import com.mongodb.MongoClientSettings;
+import org.bson.*;
+import org.bson.codecs.Codec;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecConfigurationException;
+import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
+import org.graalvm.polyglot.Value;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.*;
 
 /**
  * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
@@ -18,26 +20,163 @@ import java.util.regex.Pattern;
 public class GraalConvertor {
 
     public static Bson toBson(Object obj ){
-        if ( obj instanceof Map){
-            return new BasicDBObject(convertMap((Map)obj) );
-        } else {
-            String json = new Gson().toJson(obj);
-            return obj != null ? BasicDBObject.parse(json) : null;
+        return obj != null ? toBsonDocument( obj ) : null;
+    }
+
+    private static final int MAX_BSON_DEPTH = 100;
+    private static final CodecRegistry CODEC_REGISTRY = MongoClientSettings.getDefaultCodecRegistry();
+
+    /**
+     * Convert script objects, maps and lists to BSON in one pass, without intermediate JSON.
+     * Script values are read directly, so JavaScript dates, regular expressions and functions keep their type.
+     * String _id values which are valid ObjectIds are converted to ObjectId. A String argument is parsed as JSON.
+     */
+    public static BsonDocument toBsonDocument(Object obj ){
+        if ( obj instanceof BsonDocument ) return (BsonDocument)obj;
+        if ( obj instanceof String ) return BsonDocument.parse( (String)obj );
+        final BsonValue value = toBsonValue( obj, null, 0 );
+        if ( value instanceof BsonDocument ) return (BsonDocument)value;
+        throw new IllegalArgumentException("Expected a document but got " + obj );
+    }
+
+    /**
+     * The filter of a find or count. Script values which are not documents, like find(/^J/), were always read as empty filter,
+     * matching all documents. Filters of deletes and updates use toBson(), which rejects them.
+     */
+    public static Bson toReadFilter( Object obj ){
+        if ( obj == null ) return null;
+        if ( obj instanceof Map && !( obj instanceof BsonDocument )){
+            final BsonValue value = toBsonValue( obj, null, 0 );
+            return value instanceof BsonDocument ? (BsonDocument)value : new BsonDocument();
         }
+        return toBsonDocument( obj );
+    }
+
+    public static BsonValue toBsonValue( Object obj ){
+        return toBsonValue( obj, null, 0 );
     }
 
-    public static List toList(Object source ){
-        if ( source instanceof Map && mapIsArray((Map)source)){
-            Map sourceMap = (Map)source;
-            ArrayList array = new ArrayList();
+    private static BsonValue toBsonValue( Object obj, String key, int level ){
+        if ( obj == null ) return BsonNull.VALUE;
+        if ( level > MAX_BSON_DEPTH ) throw new IllegalArgumentException("Document exceeds the maximal depth of " + MAX_BSON_DEPTH );
+        if ( obj instanceof BsonValue ) return (BsonValue)obj;
+        if ( obj instanceof Value ) return toBsonValue( (Value)obj, key, level );
+        if ( obj instanceof Map || obj instanceof List || obj instanceof java.util.function.Function ){
+            // SCRIPT OBJECTS, ARRAYS AND FUNCTIONS GIVEN AS Map, List OR Function VIEWS ARE READ AS SCRIPT VALUES, SO DATES AND REGULAR EXPRESSIONS KEEP THEIR TYPE
+            final Value value = Value.asValue( obj );
+            if ( !value.isHostObject() ) return toBsonValue( value, key, level );
+        }
+        if ( obj instanceof String ) return toBsonString( (String)obj, key );
+        if ( obj instanceof Integer || obj instanceof Short || obj instanceof Byte ) return new BsonInt32( ((Number)obj).intValue() );
+        if ( obj instanceof Long ) return new BsonInt64( (Long)obj );
+        if ( obj instanceof Double || obj instanceof Float ) return new BsonDouble( ((Number)obj).doubleValue() );
+        if ( obj instanceof Boolean ) return BsonBoolean.valueOf( (Boolean)obj );
+        if ( obj instanceof Date ) return new BsonDateTime( ((Date)obj).getTime() );
+        if ( obj instanceof ObjectId ) return new BsonObjectId( (ObjectId)obj );
+        if ( obj instanceof Map ){
+            final Map<?,?> map = (Map<?,?>)obj;
+            if ( mapIsArray( map )) {
+                final BsonArray array = new BsonArray();
+                Object element;
+                for ( int i = 0; ( element = map.get("" + i )) != null; i++ ){
+                    array.add( toBsonValue( element, null, level + 1 ));
+                }
+                return array;
+            }
+            final BsonDocument document = new BsonDocument();
+            for ( Map.Entry<?,?> entry : map.entrySet() ){
+                final String entryKey = String.valueOf( entry.getKey() );
+                document.put( entryKey, toBsonValue( entry.getValue(), entryKey, level + 1 ));
+            }
+            return document;
+        }
+        if ( obj instanceof Iterable ){
+            final BsonArray array = new BsonArray();
+            for ( Object element : (Iterable<?>)obj ){
+                array.add( toBsonValue( element, null, level + 1 ));
+            }
+            return array;
+        }
+        if ( obj instanceof Object[] ){
+            final BsonArray array = new BsonArray();
+            for ( Object element : (Object[])obj ){
+                array.add( toBsonValue( element, null, level + 1 ));
+            }
+            return array;
+        }
+        return encode( obj );
+    }
+
+    private static BsonValue toBsonValue( Value value, String key, int level ){
+        if ( value.isNull() ) return BsonNull.VALUE;
+        if ( value.isHostObject() ) return toBsonValue( value.asHostObject(), key, level );
+        if ( value.isProxyObject() ) return toBsonValue( value.asProxyObject(), key, level );
+        if ( value.isString() ) return toBsonString( value.asString(), key );
+        if ( value.isBoolean() ) return BsonBoolean.valueOf( value.asBoolean() );
+        if ( value.isNumber() ){
+            if ( value.fitsInInt() ) return new BsonInt32( value.asInt() );
+            if ( value.fitsInLong() ) return new BsonInt64( value.asLong() );
+            return new BsonDouble( value.asDouble() );
+        }
+        if ( value.isInstant() ) return new BsonDateTime( value.asInstant().toEpochMilli() );
+        if ( value.canExecute() ) return new BsonJavaScript( value.toString() );
+        if ( value.hasArrayElements() ){
+            final BsonArray array = new BsonArray();
+            for ( long i = 0; i < value.getArraySize(); i++ ){
+                array.add( toBsonValue( value.getArrayElement( i ), null, level + 1 ));
+            }
+            return array;
+        }
+        final Set<String> memberKeys = value.getMemberKeys();
+        if ( memberKeys.isEmpty() && value.getMetaObject() != null && "RegExp".equals( value.getMetaObject().getMetaSimpleName() )){
+            return new BsonRegularExpression( value.getMember("source").asString(), value.getMember("flags").asString() );
+        }
+        final BsonDocument document = new BsonDocument();
+        for ( String memberKey : memberKeys ){
+            document.put( memberKey, toBsonValue( value.getMember( memberKey ), memberKey, level + 1 ));
+        }
+        return document;
+    }
+
+    private static BsonValue toBsonString( String str, String key ){
+        if ( "_id".equals( key ) && ObjectId.isValid( str )){
+            return new BsonObjectId( new ObjectId( str ));
+        }
+        return new BsonString( str );
+    }
+
+    /**
+     * Other Java objects, like Decimal128, Binary, UUID or BigDecimal, are written using the driver codecs.
+     */
+    @SuppressWarnings("unchecked")
+    private static BsonValue encode( Object obj ){
+        final Codec<Object> codec;
+        try {
+            codec = (Codec<Object>)CODEC_REGISTRY.get( obj.getClass() );
+        } catch ( CodecConfigurationException ex ){
+            return new BsonString( obj.toString() );
+        }
+        final BsonDocument document = new BsonDocument();
+        final BsonDocumentWriter writer = new BsonDocumentWriter( document );
+        writer.writeStartDocument();
+        writer.writeName("v");
+        codec.encode( writer, obj, EncoderContext.builder().build() );
+        writer.writeEndDocument();
+        return document.get("v");
+    }
+
+    public static List<Bson> toList(Object source ){
+        if ( source instanceof Map && mapIsArray((Map<?,?>)source)){
+            Map<?,?> sourceMap = (Map<?,?>)source;
+            ArrayList<Bson> array = new ArrayList<>();
             for ( int i = 0; i < sourceMap.size(); i++ ){
                 array.add( toBson(sourceMap.get("" + i)));
             }
             return array;
         }
         if ( source instanceof List ){
-            ArrayList<Object> ret = new ArrayList<>();
-            for ( Object obj : (List)source ) {
+            ArrayList<Bson> ret = new ArrayList<>();
+            for ( Object obj : (List<?>)source ) {
                 ret.add( toBson( obj ));
             }
             return ret;
@@ -46,43 +185,47 @@ public class GraalConvertor {
     }
 
 
-    private static final Pattern HEXADECIMAL_PATTERN = Pattern.compile("\\p{XDigit}+");
+    private static final int MAX_COPY_DEPTH = 100;
 
-    public static Map convertMap( Map map ){
-        for (Object key : map.keySet()){
-            Object value = map.get( key );
-            if ( value instanceof Map ) {
-                if (mapIsArray((Map) value)) {
-                    map.put(key, mapToArray((Map) value));
-                } else {
-                    convertMap((Map) value);
-                }
+    /**
+     * Copy a script value into plain Java objects, so the result can be used after the script context was given back to the pool.
+     */
+    public static Object toJava( Value value ){
+        return toJava( value, 0 );
+    }
+
+    private static Object toJava( Value value, int level ){
+        if ( value == null || value.isNull() ) return null;
+        if ( value.isHostObject() ) return value.asHostObject();
+        if ( value.isProxyObject() ) return value.asProxyObject();
+        if ( value.isBoolean() ) return value.asBoolean();
+        if ( value.isString() ) return value.asString();
+        if ( value.isNumber() ){
+            if ( value.fitsInInt() ) return value.asInt();
+            if ( value.fitsInLong() ) return value.asLong();
+            return value.asDouble();
+        }
+        if ( value.isInstant() ) return Date.from( value.asInstant() );
+        if ( value.canExecute() || level > MAX_COPY_DEPTH ) return value.toString();
+        if ( value.hasArrayElements() ){
+            final List<Object> list = new ArrayList<>();
+            for ( long i = 0; i < value.getArraySize(); i++ ){
+                list.add( toJava( value.getArrayElement( i ), level + 1 ));
             }
-            if ( "_id".equals(key) && value instanceof String && HEXADECIMAL_PATTERN.matcher((String)value).matches() ){
-                map.put( "_id", new ObjectId((String)value));
+            return list;
+        }
+        if ( value.hasMembers() ){
+            final Document document = new Document();
+            for ( String key : value.getMemberKeys() ){
+                document.put( key, toJava( value.getMember( key ), level + 1 ));
             }
+            return document;
         }
-        return map;
+        return value.toString();
     }
 
-    private static boolean mapIsArray(Map map ) {
+    private static boolean mapIsArray(Map<?,?> map ) {
         return map.isEmpty() && map.get("0") != null;
     }
 
-    private static List<Object> mapToArray(Map map ) {
-        final ArrayList<Object> array = new ArrayList<>();
-        int i = 0;
-        Object obj;
-        while ( ( obj = map.get("" + i) ) != null ){
-            if ( obj instanceof Map ){
-                convertMap( (Map)obj );
-            }
-            array.add( obj );
-            i++;
-        }
-        return array;
-    }
-
-
-
 }
@@ -1,10 +1,12 @@
 
 package com.wisecoders.dbschema.mongodb;
 
+import com.wisecoders.dbschema.mongodb.structure.SchemaCache;
 import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoClient;
 
 import java.sql.*;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.*;
 
 
@@ -59,6 +61,13 @@ public class JdbcDriver implements Driver
             int idx;
             ScanStrategy scan = ScanStrategy.fast;
             boolean expand = false, sortFields = false;
+            int sourceCacheSize = SourceCache.DEFAULT_SIZE, batchSize = StatementBatch.DEFAULT_BATCH_SIZE, queryTimeout = 0, fetchSize = 0, maxRows = 0, prefetch = 0, flattenDepth = 0, scrollMemoryRows = MongoConnection.DEFAULT_SCROLL_MEMORY_ROWS, maxContexts = ContextPool.DEFAULT_MAX_CONTEXTS;
+            long scanSample = 0, scanTime = 0;
+            int scanThreads = 1;
+            boolean scanBackground = false, schemaCache = false;
+            long schemaCacheAge = SchemaCache.DEFAULT_MAX_AGE_MS, scanBytes = 0;
+            int scanStable = ScanOptions.DEFAULT_STABLE_DOCUMENTS;
+            boolean batchOrdered = true, rawBson = false, scanServer = false;
             String trustStore = null, trustStorePassword = null;
             String newUrl = url, urlWithoutParams = url;
             if ( ( idx = url.indexOf("?")) > 0 ){
@@ -73,8 +82,43 @@ public class JdbcDriver implements Driver
                         case "scan": try { scan = ScanStrategy.valueOf( value);} catch ( IllegalArgumentException ex ){}
                             LOGGER.info("ScanStrategy=" + scan);
                             break;
+                        case "scansample": try { scanSample = Long.parseLong( value ); } catch ( NumberFormatException ex ){}
+                            break;
+                        case "scantime": try { scanTime = Long.parseLong( value ); } catch ( NumberFormatException ex ){}
+                            break;
+                        case "scanserver": scanServer = Boolean.parseBoolean( value ); break;
+                        case "scanthreads": try { scanThreads = Math.max( 1, Integer.parseInt( value )); } catch ( NumberFormatException ex ){}
+                            break;
+                        case "scanbackground": scanBackground = Boolean.parseBoolean( value ); break;
+                        case "schemacache": schemaCache = Boolean.parseBoolean( value ); break;
+                        case "scanstable": try { scanStable = Math.max( 1, Integer.parseInt( value )); } catch ( NumberFormatException ex ){}
+                            break;
+                        case "scanbytes": try { scanBytes = Math.max( 0, Long.parseLong( value )); } catch ( NumberFormatException ex ){}
+                            break;
+                        case "schemacacheage": try { schemaCacheAge = TimeUnit.MINUTES.toMillis( Math.max( 0, Long.parseLong( value ))); } catch ( NumberFormatException ex ){}
+                            break;
                         case "expand": expand = Boolean.parseBoolean( value); break;
                         case "sort": sortFields = Boolean.parseBoolean( value); break;
+                        case "sourcecache": try { sourceCacheSize = Integer.parseInt( value ); } catch ( NumberFormatException ex ){}
+                            break;
+                        case "contexts": try { maxContexts = Math.max( 1, Integer.parseInt( value )); } catch ( NumberFormatException ex ){}
+                            break;
+                        case "batchsize": try { batchSize = Math.max( 1, Integer.parseInt( value )); } catch ( NumberFormatException ex ){}
+                            break;
+                        case "batchordered": batchOrdered = Boolean.parseBoolean( value); break;
+                        case "querytimeout": try { queryTimeout = Math.max( 0, Integer.parseInt( value )); } catch ( NumberFormatException ex ){}
+                            break;
+                        case "fetchsize": try { fetchSize = Math.max( 0, Integer.parseInt( value )); } catch ( NumberFormatException ex ){}
+                            break;
+                        case "maxrows": try { maxRows = Math.max( 0, Integer.parseInt( value )); } catch ( NumberFormatException ex ){}
+                            break;
+                        case "flatten": try { flattenDepth = Math.max( 0, Integer.parseInt( value )); } catch ( NumberFormatException ex ){}
+                            break;
+                        case "scrollmemoryrows": try { scrollMemoryRows = Math.max( 0, Integer.parseInt( value )); } catch ( NumberFormatException ex ){}
+                            break;
+                        case "prefetch": try { prefetch = Math.max( 0, Integer.parseInt( value )); } catch ( NumberFormatException ex ){}
+                            break;
+                        case "rawbson": rawBson = Boolean.parseBoolean( value); break;
                         case "truststore": trustStore = value; break;
                         case "truststorepassword": trustStorePassword = value; break;
                         default:
@@ -100,8 +144,25 @@ public class JdbcDriver implements Driver
             }
 
             LOGGER.info("MongoClient URL: " + url + " rewritten as " + newUrl );
-            final WrappedMongoClient client = new WrappedMongoClient(newUrl, info, databaseName, scan, expand, sortFields );
-            return new MongoConnection(client);
+            final ScanOptions scanOptions = new ScanOptions( scan, scanSample, scanTime, scanServer );
+            scanOptions.threads = scanThreads;
+            scanOptions.background = scanBackground;
+            scanOptions.cache = schemaCache;
+            scanOptions.cacheMaxAgeMs = schemaCacheAge;
+            scanOptions.stableDocuments = scanStable;
+            scanOptions.byteBudget = scanBytes;
+            final WrappedMongoClient client = new WrappedMongoClient(newUrl, info, databaseName, scanOptions, expand, sortFields );
+            final MongoConnection connection = new MongoConnection(client, sourceCacheSize, maxContexts );
+            connection.batchSize = batchSize;
+            connection.batchOrdered = batchOrdered;
+            connection.queryTimeout = queryTimeout;
+            connection.fetchSize = fetchSize;
+            connection.maxRows = maxRows;
+            connection.rawBson = rawBson;
+            connection.prefetch = prefetch;
+            connection.flattenDepth = flattenDepth;
+            connection.scrollMemoryRows = scrollMemoryRows;
+            return connection;
         }
         return null;
     }
@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
@@ -18,12 +19,33 @@ public class MongoConnection implements Connection
 {
     private String catalog;
 	final WrappedMongoClient client;
+	private final SourceCache sourceCache;
+	// URL PARAMETERS batchsize AND batchordered, USED BY executeBatch()
+	int batchSize = StatementBatch.DEFAULT_BATCH_SIZE;
+	boolean batchOrdered = true;
+	// URL PARAMETER querytimeout, IN SECONDS. THE DEFAULT FOR Statement.setQueryTimeout()
+	int queryTimeout = 0;
+	// URL PARAMETERS fetchsize AND maxrows, THE DEFAULTS FOR Statement.setFetchSize() AND Statement.setMaxRows()
+	int fetchSize = 0, maxRows = 0;
+	// URL PARAMETER rawbson, READ THE FIND AND AGGREGATE RESULTS AS RawBsonDocument, DECODED ONLY WHEN READ
+	boolean rawBson = false;
+	// URL PARAMETER prefetch, THE NUMBER OF DOCUMENTS READ AHEAD FROM THE CURSORS IN A BACKGROUND THREAD. 0 FOR NO PREFETCH
+	int prefetch = 0;
+	// URL PARAMETER flatten, WITH expand=true THE NESTED DOCUMENTS ARE EXPANDED TO 'a.b.c' COLUMNS UP TO THIS DEPTH
+	int flattenDepth = 0;
+	// URL PARAMETER scrollmemoryrows, THE ROWS OF A SCROLLABLE RESULT SET KEPT ON HEAP. THE NEXT ROWS ARE WRITTEN TO A TEMPORARY FILE
+	int scrollMemoryRows = DEFAULT_SCROLL_MEMORY_ROWS;
+	static final int DEFAULT_SCROLL_MEMORY_ROWS = 10000;
+	// CURSORS OF THE RESULT SETS NOT YET CLOSED OR READ TO THE END
+	final AtomicInteger openCursors = new AtomicInteger();
 	private boolean isClosed = false;
 	private boolean isReadOnly = false;
 
 
-	MongoConnection(WrappedMongoClient client) throws SQLException {
+	MongoConnection(WrappedMongoClient client, int sourceCacheSize, int maxContexts ) throws SQLException {
 		this.client = client;
+		this.sourceCache = new SourceCache( sourceCacheSize );
+		this.contextPool = new ContextPool( this, maxContexts );
         setCatalog( client.getCurrentDatabaseName() );
 
 		try {
@@ -61,13 +83,14 @@ public class MongoConnection implements Connection
     @Override
     public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException{
         checkClosed();
-        return new MongoPreparedStatement(this);
+        final MongoPreparedStatement statement = new MongoPreparedStatement(this);
+        statement.resultSetType = resultSetType;
+        return statement;
     }
 
     @Override
     public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability ) throws SQLException {
-        checkClosed();
-        return new MongoPreparedStatement(this);
+        return createStatement( resultSetType, resultSetConcurrency );
     }
 
 
@@ -121,6 +144,7 @@ public class MongoConnection implements Connection
 
     @Override
 	public void close() {
+		contextPool.close();
     	client.close();
 		isClosed = true;
 	}
@@ -190,7 +214,10 @@ public class MongoConnection implements Connection
     @Override
 	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
 		throws SQLException	{
-		return null;
+		checkClosed();
+		final MongoPreparedStatement statement = new MongoPreparedStatement(this, sql );
+		statement.resultSetType = resultSetType;
+		return statement;
 	}
 
     @Override
@@ -237,7 +264,7 @@ public class MongoConnection implements Connection
     @Override
 	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
 		int resultSetHoldability) throws SQLException {
-		return null;
+		return prepareStatement( sql, resultSetType, resultSetConcurrency );
 	}
 
     @Override
@@ -402,17 +429,34 @@ public class MongoConnection implements Connection
         return 0;  
     }
 
-	private Context context;
+	// URL PARAMETER contexts. WITH MORE THAN ONE CONTEXT, SCRIPT VARIABLES DECLARED BY ONE STATEMENT MAY NOT BE VISIBLE TO THE NEXT STATEMENTS
+	private final ContextPool contextPool;
 
-	public Context createContext(){
-		System.setProperty("polyglot.engine.WarnInterpreterOnly", "false");
-		// Without this it doesn't find the JS or Truffle
-		Thread.currentThread().setContextClassLoader( Context.class.getClassLoader());
-		//https://github.com/oracle/graaljs/issues/214
-		if ( context == null ) {
-			context = Context.newBuilder("js").allowAllAccess(true).build();
-		}
-		return context;
+	/**
+	 * Borrow a script context from the connection pool. Each thread executing a statement gets its own context.
+	 * The context should be given back using releaseContext().
+	 */
+	Context borrowContext() throws SQLException {
+		checkClosed();
+		return contextPool.borrow();
+	}
+
+	void releaseContext( Context context ){
+		contextPool.release( context );
+	}
+
+	/**
+	 * Parsed statement scripts. Use getHitCount() and getMissCount() to tune the size set by the URL parameter sourcecache.
+	 */
+	public SourceCache getSourceCache(){
+		return sourceCache;
+	}
+
+	/**
+	 * The number of server cursors held by result sets of this connection which are not closed or read to the end.
+	 */
+	public int getOpenCursorCount(){
+		return openCursors.get();
 	}
 
 }
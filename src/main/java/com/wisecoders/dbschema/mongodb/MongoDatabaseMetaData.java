@@ -56,7 +56,7 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
         ArrayResultSet resultSet = new ArrayResultSet();
         resultSet.setColumnNames(new String[]{"TABLE_CAT", "TABLE_SCHEMA", "TABLE_NAME",
                 "TABLE_TYPE", "REMARKS", "TYPE_CAT", "TYPE_SCHEMA", "TYPE_NAME", "SELF_REFERENCING_COL_NAME",
-                "REF_GENERATION", "IS_VIRTUAL"});
+                "REF_GENERATION", "IS_VIRTUAL", "SCAN_CONVERGED"});
         if ( catalogName == null ){
             for ( String cat : con.client.getDatabaseNames() ) {
                 getTablesByCatalogName(cat, resultSet);
@@ -69,7 +69,11 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
     }
 
     private void getTablesByCatalogName(String catalogName, ArrayResultSet resultSet) throws SQLException {
-        for (String tableName : con.client.getCollectionNames(catalogName)) {
+        final List<String> collectionNames = con.client.getCollectionNames(catalogName);
+        if ( con.client.getScanOptions().isBackground() ){
+            con.client.getDatabase(catalogName).discoverInBackground( collectionNames );
+        }
+        for (String tableName : collectionNames) {
             resultSet.addRow(createTableRow(catalogName, tableName, "TABLE"));
         }
         for (String tableName : con.client.getViewNames(catalogName)) {
@@ -79,7 +83,7 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
 
     private String[] createTableRow( String catalogName, String tableName, String type ){
         MetaCollection collection = con.client.getDatabase(catalogName).getMetaCollectionIfAlreadyLoaded(tableName);
-        String[] data = new String[11];
+        String[] data = new String[12];
         data[0] = catalogName; // TABLE_CAT
         data[1] = ""; // TABLE_SCHEMA
         data[2] = tableName; // TABLE_NAME
@@ -91,6 +95,8 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
         data[8] = ""; // SELF_REFERENCING_COL_NAME
         data[9] = ""; // REF_GENERATION
         data[10] = collection == null || collection.isVirtual ? "true" : "false";
+        // ONLY FOR THE ADAPTIVE SCAN: FALSE IF THE SCAN BUDGET WAS USED BEFORE THE SCHEMA CONVERGED
+        data[11] = collection != null && collection.getScanConverged() != null ? String.valueOf( collection.getScanConverged() ) : null;
         return data;
     }
 
@@ -99,20 +105,36 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
      *      java.lang.String)
      */
     @Override
-    public ResultSet getColumns(String catalogName, String schemaName, String tableNamePattern, String columnNamePattern) {
+    public ResultSet getColumns(String catalogName, String schemaName, String tableNamePattern, String columnNamePattern) throws SQLException {
         // As far as this driver implementation goes, every "table" in MongoDB is actually a collection, and
         // every collection "table" has two columns - "_id" column which is the primary key, and a "document"
         // column which is the JSON document corresponding to the "_id". An "_id" value can be specified on
         // insert, or it can be omitted, in which case MongoDB generates a unique value.
-        MetaCollection collection = con.client.getDatabase(catalogName).getMetaCollection(tableNamePattern);
-
         ArrayResultSet result = new ArrayResultSet();
         result.setColumnNames(new String[] { "TABLE_CAT", "TABLE_SCHEMA", "TABLE_NAME", "COLUMN_NAME",
                 "DATA_TYPE", "TYPE_NAME", "COLUMN_SIZE", "BUFFER_LENGTH", "DECIMAL_DIGITS", "NUM_PREC_RADIX",
                 "NULLABLE", "REMARKS", "COLUMN_DEF", "SQL_DATA_TYPE", "SQL_DATETIME_SUB", "CHAR_OCTET_LENGTH",
                 "ORDINAL_POSITION", "IS_NULLABLE", "SCOPE_CATALOG", "SCOPE_SCHEMA", "SCOPE_TABLE",
                 "SOURCE_DATA_TYPE", "IS_AUTOINCREMENT" });
+        result.setColumnTypes(new int[] { Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.INTEGER, Types.VARCHAR, Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.INTEGER,
+                Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.INTEGER, Types.INTEGER,
+                Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.SMALLINT, Types.VARCHAR });
+
+        if ( tableNamePattern == null ){
+            // ALL COLLECTIONS, SCANNED IN PARALLEL
+            final WrappedMongoDatabase db = con.client.getDatabase(catalogName);
+            for ( MetaCollection collection : db.getMetaCollections( con.client.getCollectionNames(catalogName) ).values() ){
+                exportColumns( collection, columnNamePattern, result );
+            }
+        } else {
+            exportColumns( con.client.getDatabase(catalogName).getMetaCollection(tableNamePattern), columnNamePattern, result );
+        }
+        return result;
+    }
 
+    private void exportColumns(MetaCollection collection, String columnNamePattern, ArrayResultSet result) {
         if ( collection != null ){
             for ( MetaField field : collection.fields){
                 if ( columnNamePattern == null || columnNamePattern.equals( field.name )){
@@ -120,27 +142,26 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
                 }
             }
         }
-        return result;
     }
 
     private void exportColumnsRecursive(MetaCollection collection, ArrayResultSet result, MetaField field) {
-        result.addRow(new String[] { collection.metaDatabase.name, // "TABLE_CAT",
+        result.addRow(new Object[] { collection.metaDatabase.name, // "TABLE_CAT",
                 null, // "TABLE_SCHEMA",
                 collection.name, // "TABLE_NAME", (i.e. MongoDB Collection Name)
                 field.getNameWithPath(), // "COLUMN_NAME",
-                "" + field.getJavaType(), // "DATA_TYPE",
+                field.getJavaType(), // "DATA_TYPE",
                 field.getTypeName(), // "TYPE_NAME",
-                "800", // "COLUMN_SIZE",
-                "0", // "BUFFER_LENGTH", (not used)
-                "0", // "DECIMAL_DIGITS",
-                "10", // "NUM_PREC_RADIX",
-                "" + ( field.isMandatory() ? columnNoNulls : columnNullable ), // "NULLABLE",
+                800, // "COLUMN_SIZE",
+                0, // "BUFFER_LENGTH", (not used)
+                0, // "DECIMAL_DIGITS",
+                10, // "NUM_PREC_RADIX",
+                field.isMandatory() ? columnNoNulls : columnNullable, // "NULLABLE",
                 field.getDescription(), // "REMARKS",
                 field.getOptions(), // "COLUMN_DEF",
-                "0", // "SQL_DATA_TYPE", (not used)
-                "0", // "SQL_DATETIME_SUB", (not used)
-                "800", // "CHAR_OCTET_LENGTH",
-                "1", // "ORDINAL_POSITION",
+                0, // "SQL_DATA_TYPE", (not used)
+                0, // "SQL_DATETIME_SUB", (not used)
+                800, // "CHAR_OCTET_LENGTH",
+                1, // "ORDINAL_POSITION",
                 "NO", // "IS_NULLABLE",
                 null, // "SCOPE_CATLOG", (not a REF type)
                 null, // "SCOPE_SCHEMA", (not a REF type)
@@ -176,18 +197,20 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
         ArrayResultSet result = new ArrayResultSet();
         result.setColumnNames(new String[] { "TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "COLUMN_NAME",
                 "KEY_SEQ", "PK_NAME" });
+        result.setColumnTypes(new int[] { Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.SMALLINT, Types.VARCHAR });
 
         final MetaCollection collection = con.client.getDatabase(catalogName).getMetaCollection(tableNamePattern);
         if ( collection != null ){
             for ( MetaIndex index : collection.metaIndexes){
                 if ( index.pk ) {
                     for ( MetaField field : index.metaFields){
-                        result.addRow( new String[] {
+                        result.addRow( new Object[] {
                                 collection.name, // "TABLE_CAT",
                                 null, // "TABLE_SCHEMA",
                                 collection.name, // "TABLE_NAME", (i.e. MongoDB Collection Name)
                                 field.getNameWithPath(), // "COLUMN_NAME",
-                                "" + index.metaFields.indexOf( field ) , // "ORDINAL_POSITION"
+                                index.metaFields.indexOf( field ), // "ORDINAL_POSITION"
                                 index.name // "INDEX_NAME",
                         });
                     }
@@ -244,6 +267,9 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
         result.setColumnNames(new String[]{"TABLE_CAT", "TABLE_SCHEMA", "TABLE_NAME", "NON_UNIQUE",
                 "INDEX_QUALIFIER", "INDEX_NAME", "TYPE", "ORDINAL_POSITION", "COLUMN_NAME", "ASC_OR_DESC",
                 "CARDINALITY", "PAGES", "FILTER_CONDITION"});
+        result.setColumnTypes(new int[]{ Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.VARCHAR, Types.VARCHAR, Types.SMALLINT, Types.SMALLINT, Types.VARCHAR, Types.VARCHAR,
+                Types.INTEGER, Types.INTEGER, Types.VARCHAR });
 
         MetaCollection collection = con.client.getDatabase(catalogName).getMetaCollection(tableNamePattern);
 
@@ -251,18 +277,18 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
             for ( MetaIndex index : collection.metaIndexes){
                 if ( !index.pk ){
                     for ( MetaField field : index.metaFields){
-                        result.addRow(new String[] { collection.name, // "TABLE_CAT",
+                        result.addRow(new Object[] { collection.name, // "TABLE_CAT",
                                 null, // "TABLE_SCHEMA",
                                 collection.name, // "TABLE_NAME", (i.e. MongoDB Collection Name)
                                 index.unique ? "false" : "true", // "NON-UNIQUE",
                                 collection.name, // "INDEX QUALIFIER",
                                 index.name, // "INDEX_NAME",
-                                "0", // "TYPE",
-                                "" + index.metaFields.indexOf( field ) , // "ORDINAL_POSITION"
+                                0, // "TYPE",
+                                index.metaFields.indexOf( field ), // "ORDINAL_POSITION"
                                 field.getNameWithPath(), // "COLUMN_NAME",
                                 "A", // "ASC_OR_DESC",
-                                "0", // "CARDINALITY",
-                                "0", // "PAGES",
+                                0, // "CARDINALITY",
+                                0, // "PAGES",
                                 "" // "FILTER_CONDITION",
                         });
                     }
@@ -1234,7 +1260,7 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
                 "FKTABLE_NAME", "FKCOLUMN_NAME", "KEY_SEQ", "UPDATE_RULE", "DELETE_RULE", "FK_NAME", "PK_NAME", "DEFERRABILITY"});
 
         WrappedMongoDatabase db = con.client.getDatabase(catalogName);
-        db.metaDatabase.discoverReferences( db );
+        db.discoverReferences();
         MetaCollection pkCollection = db.getMetaCollection(tableNamePattern);
         if ( pkCollection != null ){
                 for (MetaCollection fromCollection : db.metaDatabase.getMetaCollections() ) {
@@ -1288,7 +1314,7 @@ public class MongoDatabaseMetaData implements DatabaseMetaData
 
         WrappedMongoDatabase db = con.client.getDatabase(catalogName);
         MetaCollection fromCollection = db.getMetaCollection( tableNamePattern);
-        db.metaDatabase.discoverReferences( db );
+        db.discoverReferences();
         if ( fromCollection != null ){
             for ( MetaField fromFiled : fromCollection.fields ){
                 getImportedKeysRecursive(result, fromFiled);
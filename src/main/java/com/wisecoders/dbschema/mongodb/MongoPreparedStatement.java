@@ -1,27 +1,44 @@
 
 package com.wisecoders.dbschema.mongodb;
 
+import com.mongodb.MongoExecutionTimeoutException;
 import com.mongodb.client.AggregateIterable;
-import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.*;
 import com.wisecoders.dbschema.mongodb.resultSet.ArrayResultSet;
 import com.wisecoders.dbschema.mongodb.resultSet.ObjectAsResultSet;
 import com.wisecoders.dbschema.mongodb.resultSet.OkResultSet;
+import com.wisecoders.dbschema.mongodb.resultSet.PrefetchIterator;
 import com.wisecoders.dbschema.mongodb.resultSet.ResultSetIterator;
+import com.wisecoders.dbschema.mongodb.wrappers.OperationContext;
+import com.wisecoders.dbschema.mongodb.wrappers.WrappedAggregateIterable;
+import com.wisecoders.dbschema.mongodb.wrappers.WrappedFindIterable;
 import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoClient;
 import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoCollection;
 import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoDatabase;
+import org.bson.BsonDocument;
 import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.Decimal128;
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
 import org.graalvm.polyglot.Value;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.net.URL;
 import java.sql.*;
+import java.time.Duration;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -36,19 +53,40 @@ import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
 public class MongoPreparedStatement implements PreparedStatement {
 
     private final MongoConnection connection;
-    private ResultSet lastResultSet;
+    // VOLATILE, SO cancel() CAN CLOSE IT FROM OTHER THREADS
+    private volatile ResultSet lastResultSet;
     private boolean isClosed = false;
-    private int maxRows = -1;
+    private int maxRows, fetchSize;
     private final String query;
+    private final QueryTemplate template;
+    // PARAMETER VALUES BY INDEX. A PARAMETER SET TO NULL IS STORED AS null VALUE.
+    private final Map<Integer,Object> parameters = new HashMap<>();
+    private final StatementBatch batch = new StatementBatch();
+    private int queryTimeout;
+    // SET BY THE CONNECTION. TYPE_SCROLL_SENSITIVE IS EXECUTED AS TYPE_SCROLL_INSENSITIVE
+    int resultSetType = ResultSet.TYPE_FORWARD_ONLY;
+    // USED BY cancel() FROM OTHER THREADS. THE LAST OPERATION IS KEPT, ITS CURSOR MAY STILL BE READ.
+    private volatile OperationContext runningOperation;
+    private volatile Context runningContext;
+    private volatile boolean cancelled;
+    private final Object cancelLock = new Object();
 
     MongoPreparedStatement(final MongoConnection connection) {
         this.connection = connection;
         this.query = null;
+        this.template = null;
+        this.queryTimeout = connection.queryTimeout;
+        this.maxRows = connection.maxRows;
+        this.fetchSize = connection.fetchSize;
     }
 
     MongoPreparedStatement(final MongoConnection connection, String query) {
         this.connection = connection;
         this.query = query;
+        this.template = query != null ? QueryTemplate.compile( query ) : null;
+        this.queryTimeout = connection.queryTimeout;
+        this.maxRows = connection.maxRows;
+        this.fetchSize = connection.fetchSize;
     }
 
     @Override
@@ -75,10 +113,21 @@ public class MongoPreparedStatement implements PreparedStatement {
 
     @Override
     public ResultSet executeQuery(String query) throws SQLException	{
+        return executeQuery( query, null, Collections.emptyMap() );
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        return executeQuery( query, template, parameters );
+    }
+
+    private ResultSet executeQuery(String query, QueryTemplate template, Map<Integer,Object> parameters ) throws SQLException	{
         checkClosed();
         LOGGER.log(Level.FINE, "Execute " + query );
         if (lastResultSet != null ) {
+            // CLOSE ALSO THE SERVER CURSOR OF THE PREVIOUS RESULT
             lastResultSet.close();
+            lastResultSet = null;
         }
         if ( query == null ){
             throw new SQLException("Null statement.");
@@ -128,45 +177,185 @@ public class MongoPreparedStatement implements PreparedStatement {
                 throw new SQLException("Invalid command : " + plainQuery);
             }
         }
+        checkParameters( template, parameters );
+        // THE WRAPPERS APPLY THE QUERY TIMEOUT AND THE COMMENT OF THE OPERATION CONTEXT TO THE OPERATIONS ISSUED BY THIS THREAD
+        final OperationContext operation = new OperationContext( queryTimeout * 1000L );
+        cancelled = false;
+        runningOperation = operation;
+        operation.enter();
         try {
-            final Context context = connection.createContext();
-            boolean dbIsSet = false;
-            Value bindings = context.getBindings("js");
-            for ( WrappedMongoDatabase db : connection.getDatabases() ){
-                bindings.putMember(db.getName(), db );
-                if ( connection.getCatalog() != null && connection.getCatalog().equals(db.getName())){
-                    bindings.putMember("db", db);
-                    dbIsSet = true;
+            return lastResultSet = evaluate( query, template, parameters );
+        } finally {
+            OperationContext.exit();
+        }
+    }
+
+    private ResultSet evaluate( String query, QueryTemplate template, Map<Integer,Object> parameters ) throws SQLException {
+        final ShellQuery shellQuery = template != null ? template.getShellQuery( parameters ) : ShellQuery.parse( query );
+        if ( shellQuery != null ){
+            try {
+                final WrappedMongoCollection<?> collection = shellQuery.getCollection( connection );
+                if ( collection != null ){
+                    return toResultSet( shellQuery.execute( collection ));
                 }
+            } catch ( Throwable ex ){
+                LOGGER.log(Level.SEVERE, "Error executing: " + query, ex );
+                throw toSQLException( ex );
             }
-            if ( !dbIsSet ){
-                bindings.putMember("db", connection.getDatabase("admin"));
-            }
-            bindings.putMember("client", connection);
-            final String initScript = Util.readStringFromInputStream(MongoPreparedStatement.class.getResourceAsStream("init.js"));
-            context.eval("js", initScript);
-
-            Value value = context.eval( "js", query );
-            Object obj = value;
-            if ( value.isHostObject() ) {
-                obj = value.asHostObject();
-            }
-            if (obj instanceof AggregateIterable) {
-                lastResultSet = new ResultSetIterator(((AggregateIterable) obj).allowDiskUse(true).iterator(), connection.client.expandResultSet);
-            } else if (obj instanceof Iterable) {
-                lastResultSet = new ResultSetIterator(((Iterable) obj).iterator(), connection.client.expandResultSet);
-            } else if (obj instanceof Iterator) {
-                lastResultSet = new ResultSetIterator((Iterator) obj, connection.client.expandResultSet);
-            } else if (obj instanceof WrappedMongoCollection) {
-                lastResultSet = new ResultSetIterator(((WrappedMongoCollection) obj).find(), connection.client.expandResultSet);
-            } else if (obj != null) {
-                lastResultSet = new ObjectAsResultSet(obj);
+        }
+        Context context = null;
+        final int parameterCount = template != null ? template.parameterCount : 0;
+        try {
+            context = connection.borrowContext();
+            runningContext = context;
+            // THE CONTEXT IS ALREADY PREPARED WITH init.js. OTHER DATABASES ARE RESOLVED BY NAME WHEN THE SCRIPT REFERS THEM.
+            final Value bindings = context.getBindings("js");
+            bindings.putMember("db", connection.getDatabase( connection.getCatalog() != null ? connection.getCatalog() : "admin" ));
+            for ( int i = 1; i <= parameterCount; i++ ){
+                bindings.putMember( QueryTemplate.PARAMETER_PREFIX + i, parameters.get( i ));
             }
-            return lastResultSet;
+
+            // THE VALUE BELONGS TO THE CONTEXT, WHICH GOES BACK IN THE POOL. CONVERT IT TO PLAIN JAVA OBJECTS.
+            final String script = template != null ? template.script : query;
+            final Object obj = GraalConvertor.toJava( context.eval( connection.getSourceCache().getSource( script ) ) );
+            return toResultSet( obj );
         } catch ( Throwable ex ){
             LOGGER.log(Level.SEVERE, "Error executing: " + query, ex );
-            throw new SQLException( ex.getMessage(), ex );
+            throw toSQLException( ex );
+        } finally {
+            synchronized ( cancelLock ){
+                runningContext = null;
+            }
+            if ( context != null ){
+                final Value bindings = context.getBindings("js");
+                for ( int i = 1; i <= parameterCount; i++ ){
+                    bindings.removeMember( QueryTemplate.PARAMETER_PREFIX + i );
+                }
+                connection.releaseContext( context );
+            }
+        }
+    }
+
+    private static void checkParameters( QueryTemplate template, Map<Integer,Object> parameters ) throws SQLException {
+        if ( template != null ){
+            for ( int i = 1; i <= template.parameterCount; i++ ){
+                if ( !parameters.containsKey( i )){
+                    throw new SQLException("Parameter " + i + " is not set.");
+                }
+            }
+        }
+    }
+
+    private ResultSetIterator newResultSet( Iterator<?> iterator ){
+        return newResultSet( iterator, null );
+    }
+
+    /**
+     * @param columns the columns known from the projection or from the discovered collection, so the expanded ResultSet does not read ahead.
+     */
+    private ResultSetIterator newResultSet( Iterator<?> iterator, Map<String,Integer> columns ){
+        if ( connection.prefetch > 0 && iterator instanceof AutoCloseable ){
+            iterator = new PrefetchIterator( iterator, connection.prefetch );
+        }
+        final ResultSetIterator resultSet = new ResultSetIterator( iterator, connection.client.expandResultSet, connection.flattenDepth, columns ).countCursor( connection.openCursors );
+        return resultSetType != ResultSet.TYPE_FORWARD_ONLY ? resultSet.scrollable( connection.scrollMemoryRows ) : resultSet;
+    }
+
+    private Iterator<?> limitRows( Iterator<?> iterator ){
+        if ( maxRows <= 0 ) return iterator;
+        return iterator instanceof Closeable ? new CursorLimitIterator( iterator, maxRows ) : new LimitIterator( iterator, maxRows );
+    }
+
+    /**
+     * Stops after the given number of rows.
+     */
+    private static class LimitIterator implements Iterator<Object> {
+        final Iterator<?> iterator;
+        private final int maxRows;
+        private int rows = 0;
+
+        LimitIterator( Iterator<?> iterator, int maxRows ){
+            this.iterator = iterator;
+            this.maxRows = maxRows;
         }
+
+        @Override
+        public boolean hasNext() {
+            return rows < maxRows && iterator.hasNext();
+        }
+
+        @Override
+        public Object next() {
+            if ( rows >= maxRows ) throw new NoSuchElementException();
+            rows++;
+            return iterator.next();
+        }
+    }
+
+    /**
+     * Closing it closes the cursor below, so the ResultSet can close it.
+     */
+    private static class CursorLimitIterator extends LimitIterator implements Closeable {
+
+        CursorLimitIterator( Iterator<?> iterator, int maxRows ){
+            super( iterator, maxRows );
+        }
+
+        @Override
+        public void close() throws IOException {
+            ((Closeable)iterator).close();
+        }
+    }
+
+    private SQLException toSQLException( Throwable ex ){
+        Throwable cause = ex;
+        if ( ex instanceof PolyglotException && ((PolyglotException)ex).isHostException() ){
+            cause = ((PolyglotException)ex).asHostException();
+        }
+        if ( cause instanceof SQLException ){
+            return (SQLException)cause;
+        }
+        if ( cause instanceof MongoExecutionTimeoutException ){
+            return new SQLTimeoutException("The query exceeded the timeout of " + queryTimeout + " seconds.", cause );
+        }
+        if ( cancelled ){
+            return new SQLException("The statement was cancelled.", "HY008", cause );
+        }
+        return new SQLException( ex.getMessage(), ex );
+    }
+
+    /**
+     * The maxRows are sent to the server as limit for find and as $limit stage for aggregate, the fetch size as cursor batch size.
+     * Other results are limited while reading.
+     * With rawBson the find and aggregate results are read as RawBsonDocument.
+     * With prefetch the cursors are read ahead in a background thread.
+     */
+    private ResultSet toResultSet( Object obj ){
+        if (obj instanceof WrappedMongoCollection) {
+            obj = ((WrappedMongoCollection) obj).find();
+        }
+        if (obj instanceof MongoIterable && fetchSize > 0 ) {
+            ((MongoIterable) obj).batchSize( fetchSize );
+        }
+        if (obj instanceof WrappedFindIterable) {
+            final WrappedFindIterable<?> findIterable = ((WrappedFindIterable<?>) obj).maxRows( maxRows );
+            final Iterator<?> rawIterator = connection.rawBson ? findIterable.rawIterator() : null;
+            final Map<String,Integer> columns = connection.client.expandResultSet ? findIterable.getResultColumns( connection.flattenDepth ) : null;
+            return newResultSet( rawIterator != null ? rawIterator : findIterable.iterator(), columns );
+        } else if (obj instanceof WrappedAggregateIterable) {
+            final WrappedAggregateIterable<?> aggregateIterable = ((WrappedAggregateIterable<?>) obj).limit( maxRows ).allowDiskUse(true);
+            final Iterator<?> rawIterator = connection.rawBson ? aggregateIterable.rawIterator() : null;
+            return newResultSet( rawIterator != null ? rawIterator : aggregateIterable.iterator());
+        } else if (obj instanceof AggregateIterable) {
+            return newResultSet(limitRows(((AggregateIterable) obj).allowDiskUse(true).iterator()));
+        } else if (obj instanceof Iterable) {
+            return newResultSet(limitRows(((Iterable) obj).iterator()));
+        } else if (obj instanceof Iterator) {
+            return newResultSet(limitRows((Iterator) obj));
+        } else if (obj != null) {
+            return new ObjectAsResultSet(obj);
+        }
+        return lastResultSet;
     }
 
     public StringBuilder debug( Document doc, String prefix, StringBuilder out ){
@@ -201,35 +390,60 @@ public class MongoPreparedStatement implements PreparedStatement {
 
     private Document documentParam;
 
+    /**
+     * A Map or Document is also kept as document for executeUpdate() with 'UPDATE db.collection' or 'DELETE FROM db.collection'.
+     */
     @Override
     public void setObject(int parameterIndex, Object x) throws SQLException {
         if ( x instanceof Document ){
             documentParam = (Document)x;
         } else if ( x instanceof Map ){
             documentParam = new Document( (Map)x);
-        } else if (x == null) {
-            throw new SQLException("Map object expected. You currently did setObject( NULL ) ");
-        } else {
-            throw new SQLException("Map object expected. You currently did setObject( " + x.getClass().getName() + " ) ");
         }
+        setParameter( parameterIndex, toParameterValue( x ));
+    }
+
+    private void setParameter( int parameterIndex, Object value ) throws SQLException {
+        checkClosed();
+        if ( parameterIndex < 1 ){
+            throw new SQLException("Invalid parameter index " + parameterIndex + ". The first parameter is 1.");
+        }
+        parameters.put( parameterIndex, value );
+    }
+
+    /**
+     * Convert JDBC values to the types used in documents.
+     */
+    private static Object toParameterValue( Object x ){
+        if ( x instanceof java.util.Date ) return new java.util.Date( ((java.util.Date)x).getTime() );
+        if ( x instanceof BigDecimal ) return new Decimal128( (BigDecimal)x );
+        if ( x instanceof byte[] ) return new Binary( (byte[])x );
+        if ( x instanceof Byte || x instanceof Short ) return ((Number)x).intValue();
+        if ( x instanceof Float ) return ((Float)x).doubleValue();
+        if ( x instanceof Character || x instanceof URL ) return x.toString();
+        return x;
     }
 
     @Override
     public int executeUpdate() throws SQLException {
+        if ( documentParam == null || ( template != null && template.parameterCount > 0 )){
+            // A QUERY WITH '?' PARAMETERS, LIKE db.books.insertOne({ name: ? })
+            executeQuery();
+            return 1;
+        }
         return executeUpdate(query);
     }
 
     private WrappedMongoDatabase getDatabase(String name){
-        for ( WrappedMongoDatabase scan : connection.getDatabases() ){
-            if ( scan.getName().equalsIgnoreCase( name )){
-                return scan;
-            }
+        if ( connection.client.hasDatabase( name )){
+            return connection.getDatabase( name );
         }
-        if ( "db".equals( name ) && connection.getCatalog() != null ){
-            for ( WrappedMongoDatabase scan : connection.getDatabases() ){
-                if ( scan.getName().equalsIgnoreCase( connection.getCatalog() )){
-                    return scan;
-                }
+        if ( "db".equals( name ) && connection.getCatalog() != null && connection.client.hasDatabase( connection.getCatalog() )){
+            return connection.getDatabase( connection.getCatalog() );
+        }
+        for ( String dbName : connection.getDatabaseNames() ){
+            if ( dbName.equalsIgnoreCase( name ) || ( "db".equals( name ) && dbName.equalsIgnoreCase( connection.getCatalog() ))){
+                return connection.getDatabase( dbName );
             }
         }
         return null;
@@ -300,11 +514,64 @@ public class MongoPreparedStatement implements PreparedStatement {
         return collection;
     }
 
+    /**
+     * Add to the batch an 'UPDATE db.collection' or 'DELETE FROM db.collection' with the document set by setObject().
+     * The document is converted now, so it can be changed and added again.
+     */
+    private void addDocumentBatch( String sql ) throws SQLException {
+        sql = sql.trim();
+        final BsonDocument document = GraalConvertor.toBsonDocument( documentParam );
+        Matcher matcher = PATTERN_UPDATE.matcher( sql );
+        if ( matcher.matches() ){
+            final WrappedMongoCollection<?> collection = getCollectionMandatory(matcher.group(1), true);
+            if ( document.containsKey("_id")) {
+                batch.addWrite( collection, new ReplaceOneModel<>( new BsonDocument("_id", document.get("_id")), document, new ReplaceOptions().upsert(true)));
+            } else {
+                batch.addWrite( collection, new InsertOneModel<>( document ));
+            }
+            return;
+        }
+        matcher = PATTERN_DELETE.matcher( sql );
+        if ( matcher.matches() ){
+            final WrappedMongoCollection<?> collection = getCollectionMandatory(matcher.group(1), false);
+            batch.addWrite( collection, new DeleteOneModel<>( GraalConvertor.toBsonDocument( new Document("_id", documentParam.get("_id")))));
+            return;
+        }
+        throw new SQLException( ERROR_MESSAGE );
+    }
+
+    /**
+     * Writes recognized by ShellQuery are sent with bulkWrite, other statements are executed in their place in the batch.
+     */
+    private void addQueryBatch( String sql, QueryTemplate template, Map<Integer,Object> values ) throws SQLException {
+        if ( sql == null ){
+            throw new SQLException("Null statement.");
+        }
+        checkParameters( template, values );
+        try {
+            final ShellQuery shellQuery = template != null ? template.getShellQuery( values ) : ShellQuery.parse( sql );
+            if ( shellQuery != null ){
+                final WriteModel<BsonDocument> model = shellQuery.toWriteModel();
+                final WrappedMongoCollection<?> collection = model != null ? shellQuery.getCollection( connection ) : null;
+                if ( collection != null ){
+                    batch.addWrite( collection, model );
+                    return;
+                }
+            }
+        } catch ( Throwable ex ){
+            LOGGER.log(Level.SEVERE, "Error adding to batch: " + sql, ex );
+            throw new SQLException( ex.getMessage(), ex );
+        }
+        batch.addExecution( () -> executeQuery( sql, template, values ));
+    }
+
     @Override
     public void close() throws SQLException	{
         if (lastResultSet != null) {
             lastResultSet.close();
+            lastResultSet = null;
         }
+        batch.clear();
         this.isClosed = true;
     }
 
@@ -324,8 +591,12 @@ public class MongoPreparedStatement implements PreparedStatement {
     }
 
     @Override
-    public void setMaxRows(final int max)
+    public void setMaxRows(final int max) throws SQLException
     {
+        checkClosed();
+        if ( max < 0 ){
+            throw new SQLException("The max rows should be positive or 0.");
+        }
         this.maxRows = max;
     }
 
@@ -335,19 +606,57 @@ public class MongoPreparedStatement implements PreparedStatement {
     @Override
     public int getQueryTimeout() throws SQLException {
         checkClosed();
-        throw new SQLFeatureNotSupportedException("MongoDB provides no support for query timeouts.");
+        return queryTimeout;
     }
 
+    /**
+     * The timeout is applied as maxTimeMS to the finds, aggregations, counts and commands issued by the statement.
+     * The default is set by the URL parameter 'querytimeout'.
+     */
     @Override
     public void setQueryTimeout(final int seconds) throws SQLException {
         checkClosed();
-        throw new SQLFeatureNotSupportedException("MongoDB provides no support for query timeouts.");
+        if ( seconds < 0 ){
+            throw new SQLException("The query timeout should be positive or 0.");
+        }
+        this.queryTimeout = seconds;
     }
 
+    /**
+     * Called from another thread: interrupt the running script, kill the running server operations of the last execution
+     * and close its result set. Closing the result set closes the server cursor, which stays idle between the getMore commands.
+     */
     @Override
     public void cancel() throws SQLException {
         checkClosed();
-        throw new SQLFeatureNotSupportedException("MongoDB provides no support for interrupting an operation.");
+        final OperationContext operation = runningOperation;
+        if ( operation == null ){
+            return;
+        }
+        cancelled = true;
+        synchronized ( cancelLock ){
+            final Context context = runningContext;
+            if ( context != null ){
+                try {
+                    context.interrupt( Duration.ofSeconds( 5 ));
+                } catch ( TimeoutException ex ){
+                    LOGGER.log(Level.WARNING, "Timeout interrupting the script.", ex );
+                }
+            }
+        }
+        try {
+            connection.client.killOperations( operation.comment );
+        } catch ( Throwable ex ){
+            LOGGER.log(Level.WARNING, "Error killing the server operations of the cancelled statement.", ex );
+        }
+        final ResultSet resultSet = lastResultSet;
+        if ( resultSet != null ){
+            try {
+                resultSet.close();
+            } catch ( Throwable ex ){
+                LOGGER.log(Level.WARNING, "Error closing the result set of the cancelled statement.", ex );
+            }
+        }
     }
 
     @Override
@@ -393,11 +702,17 @@ public class MongoPreparedStatement implements PreparedStatement {
     }
 
     @Override
-    public void setFetchSize(final int rows) throws SQLException{}
+    public void setFetchSize(final int rows) throws SQLException{
+        checkClosed();
+        if ( rows < 0 ){
+            throw new SQLException("The fetch size should be positive or 0.");
+        }
+        this.fetchSize = rows;
+    }
 
     @Override
     public int getFetchSize() throws SQLException {
-        return 0;
+        return fetchSize;
     }
 
     @Override
@@ -407,21 +722,33 @@ public class MongoPreparedStatement implements PreparedStatement {
 
     @Override
     public int getResultSetType() throws SQLException {
-        return 0;
+        return resultSetType != ResultSet.TYPE_FORWARD_ONLY ? ResultSet.TYPE_SCROLL_INSENSITIVE : ResultSet.TYPE_FORWARD_ONLY;
     }
 
     @Override
     public void addBatch(final String sql) throws SQLException{
-        executeUpdate(sql);
+        checkClosed();
+        if ( documentParam != null && sql != null ){
+            addDocumentBatch( sql );
+        } else {
+            addQueryBatch( sql, null, Collections.emptyMap() );
+        }
     }
 
     @Override
-    public void clearBatch() throws SQLException{}
+    public void clearBatch() throws SQLException{
+        checkClosed();
+        batch.clear();
+    }
 
+    /**
+     * Execute the statements added with addBatch(). Consecutive writes into the same collection are sent with bulkWrite,
+     * in chunks of maximum 'batchsize' operations, ordered or unordered as set by the URL parameter 'batchordered'.
+     */
     @Override
     public int[] executeBatch() throws SQLException	{
         checkClosed();
-        return null;
+        return batch.execute( connection.batchSize, connection.batchOrdered );
     }
 
     @Override
@@ -518,79 +845,74 @@ public class MongoPreparedStatement implements PreparedStatement {
         return false;
     }
 
-    @Override
-    public ResultSet executeQuery() throws SQLException {
-        execute(query);
-        return lastResultSet;
-    }
-
     @Override
     public void setNull(int parameterIndex, int sqlType) throws SQLException {
-
+        setParameter( parameterIndex, null );
     }
 
     @Override
     public void setBoolean(int parameterIndex, boolean x) throws SQLException {
-
+        setParameter( parameterIndex, x );
     }
 
     @Override
     public void setByte(int parameterIndex, byte x) throws SQLException {
-
+        setParameter( parameterIndex, (int)x );
     }
 
     @Override
     public void setShort(int parameterIndex, short x) throws SQLException {
-
+        setParameter( parameterIndex, (int)x );
     }
 
     @Override
     public void setInt(int parameterIndex, int x) throws SQLException {
-
+        setParameter( parameterIndex, x );
     }
 
     @Override
     public void setLong(int parameterIndex, long x) throws SQLException {
-
+        setParameter( parameterIndex, x );
     }
 
     @Override
     public void setFloat(int parameterIndex, float x) throws SQLException {
-
+        setParameter( parameterIndex, (double)x );
     }
 
     @Override
     public void setDouble(int parameterIndex, double x) throws SQLException {
-
+        setParameter( parameterIndex, x );
     }
 
     @Override
     public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
     public void setString(int parameterIndex, String x) throws SQLException {
-
+        setParameter( parameterIndex, x );
     }
 
     @Override
     public void setBytes(int parameterIndex, byte[] x) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
     public void setDate(int parameterIndex, Date x) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
     public void setTime(int parameterIndex, Time x) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
     public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
@@ -607,21 +929,31 @@ public class MongoPreparedStatement implements PreparedStatement {
 
     @Override
     public void clearParameters() throws SQLException {
+        parameters.clear();
+        documentParam = null;
     }
 
     @Override
     public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        setObject( parameterIndex, x );
     }
 
 
     @Override
     public boolean execute() throws SQLException {
-        return false;
+        executeQuery();
+        return lastResultSet != null;
     }
 
     @Override
     public void addBatch() throws SQLException {
-        executeUpdate();
+        checkClosed();
+        if ( documentParam != null && query != null && template.parameterCount == 0 ){
+            addDocumentBatch( query );
+        } else {
+            // THE PARAMETER VALUES ARE COPIED, THE NEXT ROW MAY SET OTHER VALUES
+            addQueryBatch( query, template, new HashMap<>( parameters ));
+        }
     }
 
     @Override
@@ -656,27 +988,27 @@ public class MongoPreparedStatement implements PreparedStatement {
 
     @Override
     public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
     public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
     public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
     public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
-
+        setParameter( parameterIndex, null );
     }
 
     @Override
     public void setURL(int parameterIndex, URL x) throws SQLException {
-
+        setParameter( parameterIndex, toParameterValue( x ));
     }
 
     @Override
@@ -691,7 +1023,7 @@ public class MongoPreparedStatement implements PreparedStatement {
 
     @Override
     public void setNString(int parameterIndex, String value) throws SQLException {
-
+        setParameter( parameterIndex, value );
     }
 
     @Override
@@ -726,7 +1058,7 @@ public class MongoPreparedStatement implements PreparedStatement {
 
     @Override
     public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
-
+        setObject( parameterIndex, x );
     }
 
     @Override
@@ -0,0 +1,99 @@
+package com.wisecoders.dbschema.mongodb;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Query with '?' parameter placeholders, compiled once when the statement is prepared:
+ * <pre>
+ * db.orders.find({ customerId: ?, ts: { $gt: ? } })
+ * </pre>
+ * A '?' is a placeholder when it stands in the place of a value: after one of ':,([=' and before one of ',}]);' or the end.
+ * Question marks in strings, comments, regular expressions or conditional expressions are left as they are.
+ * For scripts the placeholders are replaced with the global variables __jdbcParam1, __jdbcParam2, ... bound at each execution,
+ * so the script text stays the same and its parsed Source is reused. Recognized ShellQuery forms are parsed once
+ * and the parameter values are put into the parsed arguments.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+class QueryTemplate {
+
+    static final String PARAMETER_PREFIX = "__jdbcParam";
+    // STRING USED IN PLACE OF THE PARAMETERS WHEN PARSING THE SHELL QUERY. THE CONTROL CHARACTER AVOIDS CONFUSION WITH REAL VALUES.
+    private static final String MARKER_PREFIX = "\u0001jdbcParam";
+
+    final String query;
+    final String script;
+    final int parameterCount;
+    private final ShellQuery shellQuery;
+
+    private QueryTemplate( String query, String script, int parameterCount, ShellQuery shellQuery ){
+        this.query = query;
+        this.script = script;
+        this.parameterCount = parameterCount;
+        this.shellQuery = shellQuery;
+    }
+
+    static QueryTemplate compile( String query ){
+        final StringBuilder script = new StringBuilder();
+        final StringBuilder shellText = new StringBuilder();
+        int parameterCount = 0;
+        int pos = 0, copied = 0;
+        while ( pos < query.length() ){
+            final char chr = query.charAt( pos );
+            if ( chr == '"' || chr == '\'' || chr == '`' ){
+                pos = skipString( query, pos );
+            } else if ( chr == '/' && pos + 1 < query.length() && query.charAt( pos + 1 ) == '/' ){
+                pos = query.indexOf('\n', pos );
+                if ( pos < 0 ) pos = query.length();
+            } else if ( chr == '/' && pos + 1 < query.length() && query.charAt( pos + 1 ) == '*' ){
+                pos = query.indexOf("*/", pos + 2 );
+                pos = pos < 0 ? query.length() : pos + 2;
+            } else if ( chr == '?' && isPlaceholder( query, pos )){
+                parameterCount++;
+                script.append( query, copied, pos ).append( PARAMETER_PREFIX ).append( parameterCount );
+                shellText.append( query, copied, pos ).append("'").append("\\u0001jdbcParam").append( parameterCount ).append("'");
+                copied = ++pos;
+            } else {
+                pos++;
+            }
+        }
+        script.append( query, copied, query.length() );
+        shellText.append( query, copied, query.length() );
+        return new QueryTemplate( query, script.toString(), parameterCount, ShellQuery.parse( shellText.toString() ));
+    }
+
+    private static int skipString( String text, int pos ){
+        final char quote = text.charAt( pos++ );
+        while ( pos < text.length() ){
+            final char chr = text.charAt( pos++ );
+            if ( chr == '\\' ) pos++;
+            else if ( chr == quote ) return pos;
+        }
+        return text.length();
+    }
+
+    private static boolean isPlaceholder( String text, int pos ){
+        int before = pos - 1;
+        while ( before >= 0 && Character.isWhitespace( text.charAt( before ))) before--;
+        if ( before < 0 || ":,([=".indexOf( text.charAt( before )) < 0 ) return false;
+        int after = pos + 1;
+        while ( after < text.length() && Character.isWhitespace( text.charAt( after ))) after++;
+        return after == text.length() || ",}]);".indexOf( text.charAt( after )) >= 0;
+    }
+
+    /**
+     * Returns the recognized shell query with the parameter values, or null if the query should be evaluated as script.
+     */
+    ShellQuery getShellQuery( Map<Integer,Object> parameters ){
+        if ( shellQuery == null || parameterCount == 0 ){
+            return shellQuery;
+        }
+        final Map<String,Object> values = new HashMap<>();
+        for ( int i = 1; i <= parameterCount; i++ ){
+            values.put( MARKER_PREFIX + i, parameters.get( i ));
+        }
+        return shellQuery.bind( values );
+    }
+}
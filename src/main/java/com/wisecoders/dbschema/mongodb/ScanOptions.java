@@ -0,0 +1,97 @@
+package com.wisecoders.dbschema.mongodb;
+
+import com.wisecoders.dbschema.mongodb.structure.SchemaCache;
+
+/**
+ * The settings used to deduce the collection structure: the scan strategy, the number of documents to read,
+ * the time budget per collection, if the documents are scanned on the server, the number of collections scanned in parallel,
+ * the schema cache and the limits of the adaptive scan. Set from the URL parameters scan, scansample, scantime, scanserver,
+ * scanthreads, scanbackground, schemacache, schemacacheage, scanstable and scanbytes.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class ScanOptions {
+
+    public final ScanStrategy strategy;
+    private final long sampleSize;
+    private final long timeBudgetMs;
+    private final boolean serverSide;
+    // THE NUMBER OF COLLECTIONS SCANNED IN PARALLEL BY getColumns() FOR ALL COLLECTIONS AND BY THE BACKGROUND DISCOVERY
+    int threads = 1;
+    // START DISCOVERING ALL COLLECTIONS OF A DATABASE WHEN getTables() LISTS THEM
+    boolean background = false;
+    // KEEP THE DISCOVERED COLLECTIONS IN A SchemaCache, REUSED BY THE NEXT CONNECTIONS
+    boolean cache = false;
+    long cacheMaxAgeMs = SchemaCache.DEFAULT_MAX_AGE_MS;
+    // THE ADAPTIVE SCAN STOPS AFTER THIS NUMBER OF DOCUMENTS WITHOUT NEW FIELDS OR TYPES
+    int stableDocuments = DEFAULT_STABLE_DOCUMENTS;
+    static final int DEFAULT_STABLE_DOCUMENTS = 500;
+    // THE ADAPTIVE SCAN STOPS AFTER READING THIS NUMBER OF BYTES FROM ONE COLLECTION. 0 FOR NO LIMIT
+    long byteBudget = 0;
+
+    public ScanOptions( ScanStrategy strategy ){
+        this( strategy, 0, 0, false );
+    }
+
+    /**
+     * @param sampleSize the number of documents to read, 0 for the strategy default
+     * @param timeBudgetMs the maximal time to scan one collection, 0 for no limit
+     * @param serverSide deduce the fields using an aggregation pipeline, without reading the documents in the driver
+     */
+    public ScanOptions( ScanStrategy strategy, long sampleSize, long timeBudgetMs, boolean serverSide ){
+        this.strategy = strategy;
+        this.sampleSize = Math.max( 0, sampleSize );
+        this.timeBudgetMs = Math.max( 0, timeBudgetMs );
+        this.serverSide = serverSide;
+    }
+
+    public long getSampleSize(){
+        return sampleSize > 0 && strategy != ScanStrategy.full ? sampleSize : strategy.SCAN_COUNT;
+    }
+
+    public long getTimeBudgetMs(){
+        return timeBudgetMs;
+    }
+
+    public boolean isServerSide(){
+        return serverSide;
+    }
+
+    public int getThreads(){
+        return threads;
+    }
+
+    public boolean isBackground(){
+        return background;
+    }
+
+    public boolean isCache(){
+        return cache;
+    }
+
+    public long getCacheMaxAgeMs(){
+        return cacheMaxAgeMs;
+    }
+
+    public int getStableDocuments(){
+        return stableDocuments;
+    }
+
+    public long getByteBudget(){
+        return byteBudget;
+    }
+
+    /**
+     * The time when the scan started at startTime should stop.
+     */
+    public long getDeadline( long startTime ){
+        return timeBudgetMs > 0 ? startTime + timeBudgetMs : Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return strategy + " sample=" + getSampleSize() + ( timeBudgetMs > 0 ? " time=" + timeBudgetMs + "ms" : "" ) + ( serverSide ? " server" : "" ) +
+                ( strategy == ScanStrategy.adaptive ? " stable=" + stableDocuments + ( byteBudget > 0 ? " bytes=" + byteBudget : "" ) : "" );
+    }
+}
@@ -3,6 +3,10 @@ package com.wisecoders.dbschema.mongodb;
 
 /**
  * How deep the driver should look into collections in order to deduce the collection structure ( fields, data types ).
+ * fast, medium and full read the first and the last documents by _id. sample reads random documents using $sample,
+ * or probes random _id ranges where $sample would sort the full collection.
+ * adaptive reads documents until no new field or type was found in the last ScanOptions.getStableDocuments() documents,
+ * or the time or byte budget is used. The SCAN_COUNT is the maximal number of documents.
  *
  * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
  * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
@@ -10,7 +14,7 @@ package com.wisecoders.dbschema.mongodb;
 public enum ScanStrategy {
 
 
-    fast(100), medium(300 ), full( Long.MAX_VALUE );
+    fast(100), medium(300 ), full( Long.MAX_VALUE ), sample( 1000 ), adaptive( 100000 );
 
     public final long SCAN_COUNT;
 
@@ -0,0 +1,161 @@
+package com.wisecoders.dbschema.mongodb;
+
+import org.bson.types.Decimal128;
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyExecutable;
+import org.graalvm.polyglot.proxy.ProxyInstantiable;
+
+import java.math.BigDecimal;
+import java.text.ParsePosition;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Mongo Shell constructors implemented in Java: ISODate(), Date() and NumberDecimal().
+ * They can be called with or without 'new'. The formatters are immutable, so they are shared by all script contexts.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+class ShellFunctions {
+
+    /**
+     * Accepts 2020-01-31, 2020-01-31T10:15, 2020-01-31 10:15:30, 2020-01-31T10:15:30.123Z, 2020-01-31T10:15:30+02:00, ...
+     * As in Mongo Shell, dates without offset are in UTC.
+     */
+    private static final DateTimeFormatter ISO_DATE_FORMATTER = new DateTimeFormatterBuilder()
+            .append( DateTimeFormatter.ISO_LOCAL_DATE )
+            .optionalStart()
+                .optionalStart().appendLiteral('T').optionalEnd()
+                .optionalStart().appendLiteral(' ').optionalEnd()
+                .appendValue( ChronoField.HOUR_OF_DAY, 2 ).appendLiteral(':').appendValue( ChronoField.MINUTE_OF_HOUR, 2 )
+                .optionalStart()
+                    .optionalStart().appendLiteral(':').optionalEnd()
+                    .optionalStart().appendLiteral('.').optionalEnd()
+                    .appendValue( ChronoField.SECOND_OF_MINUTE, 2 )
+                    .optionalStart().appendFraction( ChronoField.NANO_OF_SECOND, 0, 9, true ).optionalEnd()
+                .optionalEnd()
+                .optionalStart().appendOffset("+HH:MM", "Z").optionalEnd()
+            .optionalEnd()
+            .parseDefaulting( ChronoField.HOUR_OF_DAY, 0 )
+            .parseDefaulting( ChronoField.MINUTE_OF_HOUR, 0 )
+            .parseDefaulting( ChronoField.SECOND_OF_MINUTE, 0 )
+            .parseDefaulting( ChronoField.NANO_OF_SECOND, 0 )
+            .toFormatter();
+
+    /**
+     * Formats accepted by Date(), in the local time zone. They are tried in this order.
+     */
+    private static final List<DateTimeFormatter> DAY_FORMATTERS = Arrays.asList(
+            DateTimeFormatter.ofPattern("uuuu-M-d"),
+            DateTimeFormatter.ofPattern("d-M-uuuu"),
+            DateTimeFormatter.ofPattern("d.M.uuuu"),
+            DateTimeFormatter.ofPattern("d/M/uuuu"),
+            DateTimeFormatter.ofPattern("uuuu.M.d"),
+            DateTimeFormatter.ofPattern("M/d/uuuu"));
+
+    static void bind( Value bindings ){
+        bindings.putMember("ISODate", new IsoDateFunction());
+        bindings.putMember("Date", new DateFunction());
+        bindings.putMember("NumberDecimal", new NumberDecimalFunction());
+    }
+
+    static Date parseIsoDate( String text ){
+        final String str = text.trim();
+        try {
+            final TemporalAccessor parsed = ISO_DATE_FORMATTER.parse( str );
+            final LocalDateTime dateTime = LocalDateTime.from( parsed );
+            final ZoneOffset offset = parsed.isSupported( ChronoField.OFFSET_SECONDS ) ? ZoneOffset.from( parsed ) : ZoneOffset.UTC;
+            return Date.from( dateTime.toInstant( offset ));
+        } catch ( DateTimeParseException ex ){
+            throw new IllegalArgumentException("Un-parsable ISO date: " + text, ex );
+        }
+    }
+
+    static Date parseDate( String text ){
+        final String str = text.trim();
+        for ( DateTimeFormatter formatter : DAY_FORMATTERS ){
+            final ParsePosition position = new ParsePosition(0);
+            final TemporalAccessor parsed = formatter.parseUnresolved( str, position );
+            if ( parsed != null && position.getErrorIndex() < 0 && position.getIndex() == str.length() ){
+                final int year = (int)parsed.getLong( ChronoField.YEAR );
+                final int month = (int)parsed.getLong( ChronoField.MONTH_OF_YEAR );
+                final int day = (int)parsed.getLong( ChronoField.DAY_OF_MONTH );
+                if ( month >= 1 && month <= 12 && day >= 1 && day <= YearMonth.of( year, month ).lengthOfMonth() ){
+                    return Date.from( LocalDate.of( year, month, day ).atStartOfDay( ZoneId.systemDefault() ).toInstant() );
+                }
+            }
+        }
+        try {
+            return parseIsoDate( str );
+        } catch ( IllegalArgumentException ex ){
+            throw new IllegalArgumentException("Un-parsable date: " + text + ". Accepted formats are yyyy-MM-dd, dd-MM-yyyy, dd.MM.yyyy, dd/MM/yyyy, yyyy.MM.dd, M/d/yyyy and ISO dates.");
+        }
+    }
+
+    static Decimal128 parseDecimal( Value value ){
+        if ( value.isNumber() ){
+            return new Decimal128( value.fitsInLong() ? BigDecimal.valueOf( value.asLong() ) : BigDecimal.valueOf( value.asDouble() ));
+        }
+        return Decimal128.parse( value.isString() ? value.asString().trim() : value.toString() );
+    }
+
+    private static class IsoDateFunction implements ProxyExecutable, ProxyInstantiable {
+        @Override
+        public Object execute(Value... args) {
+            if ( args.length == 0 || args[0].isNull() ) return new Date();
+            if ( args[0].isNumber() ) return new Date( args[0].asLong() );
+            return parseIsoDate( args[0].asString() );
+        }
+
+        @Override
+        public Object newInstance(Value... args) {
+            return execute( args );
+        }
+    }
+
+    private static class DateFunction implements ProxyExecutable, ProxyInstantiable {
+        @Override
+        public Object execute(Value... args) {
+            if ( args.length == 0 || args[0].isNull() ) return new Date();
+            if ( args.length > 1 ){
+                // SAME AS JAVASCRIPT: new Date( year, monthIndex, day, hours, minutes, seconds, milliseconds ) IN THE LOCAL TIME ZONE
+                final Calendar calendar = Calendar.getInstance();
+                calendar.clear();
+                calendar.set( args[0].asInt(), args[1].asInt(), args.length > 2 ? args[2].asInt() : 1,
+                        args.length > 3 ? args[3].asInt() : 0, args.length > 4 ? args[4].asInt() : 0, args.length > 5 ? args[5].asInt() : 0 );
+                calendar.set( Calendar.MILLISECOND, args.length > 6 ? args[6].asInt() : 0 );
+                return calendar.getTime();
+            }
+            if ( args[0].isNumber() ) return new Date( args[0].asLong() );
+            if ( args[0].isHostObject() && args[0].asHostObject() instanceof Date ) return new Date( ((Date)args[0].asHostObject()).getTime() );
+            return parseDate( args[0].asString() );
+        }
+
+        @Override
+        public Object newInstance(Value... args) {
+            return execute( args );
+        }
+    }
+
+    private static class NumberDecimalFunction implements ProxyExecutable, ProxyInstantiable {
+        @Override
+        public Object execute(Value... args) {
+            if ( args.length == 0 || args[0].isNull() ) return Decimal128.POSITIVE_ZERO;
+            return parseDecimal( args[0] );
+        }
+
+        @Override
+        public Object newInstance(Value... args) {
+            return execute( args );
+        }
+    }
+}
@@ -0,0 +1,519 @@
+package com.wisecoders.dbschema.mongodb;
+
+import com.wisecoders.dbschema.mongodb.wrappers.WrappedFindIterable;
+import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoCollection;
+import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoDatabase;
+import com.mongodb.client.model.*;
+import org.bson.BsonDocument;
+import org.bson.Document;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Recognizer for the most frequent shell queries, which are executed directly with the Java driver, without entering a script context:
+ * <pre>
+ * db.coll.find( filter?, projection? ) followed by sort(), projection(), filter(), limit(), skip(), batchSize(), pretty(), count()
+ * db.coll.findOne( filter?, projection? )
+ * db.coll.count( filter? ), db.coll.countDocuments( filter? ), db.coll.estimatedDocumentCount()
+ * db.coll.aggregate( [ stages ] ) or db.coll.aggregate( stage, stage, ... )
+ * db.coll.insertOne( doc ), insert( doc ), updateOne( filter, update ), updateMany( filter, update ), update( filter, update ),
+ * replaceOne( filter, doc ), deleteOne( filter ), deleteMany( filter ), remove( filter )
+ * </pre>
+ * Instead of 'db' the query may use a database name, and the collection may be given as getCollection('coll').
+ * The arguments are parsed as relaxed JSON: unquoted keys, single quotes, ObjectId(), NumberLong(), NumberInt() and NumberDecimal().
+ * Any other query, for example using regular expressions, dates, functions or variables, is not recognized and is evaluated as JavaScript.
+ * The recognized queries call the same WrappedMongoCollection methods as the scripts, so the result is the same.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+class ShellQuery {
+
+    static class Call {
+        final String name;
+        final List<Object> arguments;
+
+        Call( String name, List<Object> arguments ){
+            this.name = name;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public String toString() {
+            return name + arguments;
+        }
+    }
+
+    private static final Set<String> CURSOR_METHODS = new HashSet<>(Arrays.asList("sort", "projection", "filter", "limit", "skip", "batchSize", "pretty", "count"));
+    private static final Set<String> JSON_FUNCTIONS = new HashSet<>(Arrays.asList("ObjectId", "NumberLong", "NumberInt", "NumberDecimal"));
+    private static final Set<String> JSON_WORDS = new HashSet<>(Arrays.asList("true", "false", "null"));
+    // THESE NAMES ARE DEFINED BY init.js OR BOUND TO THE CONNECTION, SO THEY DO NOT REFER A DATABASE
+    private static final Set<String> RESERVED_NAMES = new HashSet<>(Arrays.asList("client", "use", "ObjectId", "DBRef", "UUID", "NumberLong", "NumberInt", "NumberDecimal", "ISODate", "Date"));
+    // WrappedMongoDatabase MEMBERS WHICH ARE NOT COLLECTIONS
+    private static final Set<String> DATABASE_MEMBERS = new HashSet<>(Arrays.asList("createView", "getCollection", "createCollection", "runCommand", "drop", "listCollectionNames", "listCollections", "getViewSource", "getName"));
+    // KEYS WHICH THE JSON READER WOULD INTERPRET AS EXTENDED JSON, WHILE THE SCRIPT SENDS THEM AS THEY ARE
+    private static final Set<String> EXTENDED_JSON_KEYS = new HashSet<>(Arrays.asList("$oid", "$date", "$numberInt", "$numberLong", "$numberDouble", "$numberDecimal",
+            "$binary", "$type", "$regex", "$options", "$regularExpression", "$timestamp", "$symbol", "$code", "$scope", "$minKey", "$maxKey", "$undefined", "$dbPointer", "$uuid"));
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("[-+]?(\\d+\\.?\\d*|\\.\\d+)([eE][-+]?\\d+)?");
+    private static final Pattern INTEGER_PATTERN = Pattern.compile("-?\\d{1,9}");
+
+    final String databaseName;
+    final String collectionName;
+    final List<Call> calls = new ArrayList<>();
+
+    private ShellQuery( String databaseName, String collectionName ){
+        this.databaseName = databaseName;
+        this.collectionName = collectionName;
+    }
+
+    /**
+     * Returns null if the query is not one of the recognized forms.
+     */
+    static ShellQuery parse( String query ){
+        if ( query == null ) return null;
+        try {
+            return new Parser( query ).parseQuery();
+        } catch ( RuntimeException ex ){
+            // THE ARGUMENTS ARE NOT VALID JSON. LET THE SCRIPT ENGINE REPORT THE ERROR.
+            return null;
+        }
+    }
+
+    /**
+     * Returns the collection or null if the database is not known. Then the query should be evaluated as JavaScript.
+     */
+    WrappedMongoCollection<?> getCollection( MongoConnection connection ){
+        final WrappedMongoDatabase database;
+        if ( databaseName == null ){
+            database = connection.getDatabase( connection.getCatalog() != null ? connection.getCatalog() : "admin" );
+        } else if ( connection.client.hasDatabase( databaseName )){
+            database = connection.getDatabase( databaseName );
+        } else {
+            return null;
+        }
+        return database.getCollection( collectionName );
+    }
+
+    Object execute( WrappedMongoCollection<?> collection ){
+        final Call first = calls.get(0);
+        final List<Object> args = first.arguments;
+        switch ( first.name ){
+            case "find":
+                WrappedFindIterable<?> findIterable =
+                        args.isEmpty() ? collection.find() :
+                        args.size() == 1 ? collection.find( (Map)args.get(0)) :
+                        collection.find( (Map)args.get(0), (Map)args.get(1));
+                for ( int i = 1; i < calls.size(); i++ ){
+                    final Call call = calls.get(i);
+                    final Object arg = call.arguments.isEmpty() ? null : call.arguments.get(0);
+                    switch ( call.name ){
+                        case "sort": findIterable = findIterable.sort( (Map)arg ); break;
+                        case "projection": findIterable = findIterable.projection( (Map)arg ); break;
+                        case "filter": findIterable = findIterable.filter( (Map)arg ); break;
+                        case "limit": findIterable = findIterable.limit( (Integer)arg ); break;
+                        case "skip": findIterable = findIterable.skip( (Integer)arg ); break;
+                        case "batchSize": findIterable = findIterable.batchSize( (Integer)arg ); break;
+                        case "pretty": findIterable = findIterable.pretty(); break;
+                        case "count": return toJavaNumber( findIterable.count() );
+                    }
+                }
+                return findIterable;
+            case "findOne":
+                return args.isEmpty() ? collection.findOne() :
+                        args.size() == 1 ? collection.findOne( (Map)args.get(0)) :
+                        collection.findOne( (Map)args.get(0), (Map)args.get(1));
+            case "count":
+                return toJavaNumber( args.isEmpty() ? collection.count() : collection.count( (Map)args.get(0)));
+            case "countDocuments":
+                return toJavaNumber( args.isEmpty() ? collection.countDocuments() : collection.countDocuments( (Map)args.get(0)));
+            case "estimatedDocumentCount":
+                return toJavaNumber( collection.estimatedDocumentCount() );
+            case "aggregate":
+                return collection.aggregate( args.size() == 1 && args.get(0) instanceof List ? (List<?>)args.get(0) : args );
+            case "insertOne":
+                collection.insertOne( (Map)args.get(0));
+                return null;
+            case "insert":
+                collection.insert( (Map)args.get(0));
+                return null;
+            case "updateOne":
+                return collection.updateOne( (Map)args.get(0), (Map)args.get(1));
+            case "updateMany":
+                return collection.updateMany( (Map)args.get(0), (Map)args.get(1));
+            case "update":
+                return collection.update( (Map)args.get(0), (Map)args.get(1));
+            case "replaceOne":
+                return collection.replaceOne( (Map)args.get(0), (Map)args.get(1));
+            case "deleteOne":
+                return collection.deleteOne( (Map)args.get(0));
+            case "deleteMany":
+                return collection.deleteMany( (Map)args.get(0));
+            case "remove":
+                return collection.remove( (Map)args.get(0));
+            default:
+                throw new IllegalStateException("Method not recognized: " + first.name );
+        }
+    }
+
+    /**
+     * For insert, update, replace and delete queries return the same operation as WriteModel, to be sent with bulkWrite. Otherwise return null.
+     */
+    WriteModel<BsonDocument> toWriteModel(){
+        final Call first = calls.get(0);
+        final List<Object> args = first.arguments;
+        switch ( first.name ){
+            case "insertOne":
+            case "insert":
+                return new InsertOneModel<>( GraalConvertor.toBsonDocument( args.get(0) ));
+            case "updateOne":
+                return new UpdateOneModel<>( GraalConvertor.toBson( args.get(0) ), GraalConvertor.toBson( args.get(1) ));
+            case "updateMany":
+            case "update":
+                return new UpdateManyModel<>( GraalConvertor.toBson( args.get(0) ), GraalConvertor.toBson( args.get(1) ));
+            case "replaceOne":
+                return new ReplaceOneModel<>( GraalConvertor.toBson( args.get(0) ), GraalConvertor.toBsonDocument( args.get(1) ));
+            case "deleteOne":
+                return new DeleteOneModel<>( GraalConvertor.toBson( args.get(0) ));
+            case "deleteMany":
+            case "remove":
+                return new DeleteManyModel<>( GraalConvertor.toBson( args.get(0) ));
+            default:
+                return null;
+        }
+    }
+
+    private static Object toJavaNumber( long value ){
+        // SAME AS GraalConvertor.toJava() FOR THE NUMBERS RETURNED BY SCRIPTS
+        if ( value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ) return (int)value;
+        return value;
+    }
+
+    /**
+     * Validate the argument count and types for each call. A script would call here a different method or fail.
+     */
+    private boolean isValid(){
+        if ( calls.isEmpty() ) return false;
+        final Call first = calls.get(0);
+        final List<Object> args = first.arguments;
+        switch ( first.name ){
+            case "find":
+                if ( args.size() > 2 || !allAreMaps( args )) return false;
+                for ( int i = 1; i < calls.size(); i++ ){
+                    final Call call = calls.get(i);
+                    final List<Object> callArgs = call.arguments;
+                    if ( !CURSOR_METHODS.contains( call.name )) return false;
+                    switch ( call.name ){
+                        case "sort":
+                        case "projection":
+                        case "filter":
+                            if ( callArgs.size() != 1 || !allAreMaps( callArgs )) return false;
+                            break;
+                        case "limit":
+                        case "skip":
+                        case "batchSize":
+                            if ( callArgs.size() != 1 || !( callArgs.get(0) instanceof Integer )) return false;
+                            break;
+                        case "pretty":
+                            if ( !callArgs.isEmpty() ) return false;
+                            break;
+                        case "count":
+                            if ( !callArgs.isEmpty() || i != calls.size() -1 ) return false;
+                            break;
+                    }
+                }
+                return true;
+            case "findOne":
+                return calls.size() == 1 && args.size() <= 2 && allAreMaps( args );
+            case "count":
+            case "countDocuments":
+                return calls.size() == 1 && args.size() <= 1 && allAreMaps( args );
+            case "estimatedDocumentCount":
+                return calls.size() == 1 && args.isEmpty();
+            case "aggregate":
+                if ( calls.size() != 1 || args.isEmpty() ) return false;
+                if ( args.size() == 1 && args.get(0) instanceof List ){
+                    return allAreMaps( (List)args.get(0) );
+                }
+                return args.size() <= 4 && allAreMaps( args );
+            case "insertOne":
+            case "insert":
+            case "deleteOne":
+            case "deleteMany":
+            case "remove":
+                return calls.size() == 1 && args.size() == 1 && allAreMaps( args );
+            case "updateOne":
+            case "updateMany":
+            case "update":
+            case "replaceOne":
+                return calls.size() == 1 && args.size() == 2 && allAreMaps( args );
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Copy of this query with the parameter markers replaced by the parameter values. The parsed arguments are not modified.
+     */
+    ShellQuery bind( Map<String,Object> values ){
+        final ShellQuery bound = new ShellQuery( databaseName, collectionName );
+        for ( Call call : calls ){
+            final List<Object> arguments = new ArrayList<>();
+            for ( Object argument : call.arguments ){
+                arguments.add( replace( argument, values ));
+            }
+            bound.calls.add( new Call( call.name, arguments ));
+        }
+        return bound;
+    }
+
+    private static Object replace( Object value, Map<String,Object> values ){
+        if ( value instanceof String && values.containsKey( value )){
+            return values.get( value );
+        } else if ( value instanceof Map ){
+            final Document document = new Document();
+            for ( Map.Entry<?,?> entry : ((Map<?,?>)value).entrySet() ){
+                document.put( String.valueOf( entry.getKey() ), replace( entry.getValue(), values ));
+            }
+            return document;
+        } else if ( value instanceof List ){
+            final List<Object> list = new ArrayList<>();
+            for ( Object element : (List<?>)value ){
+                list.add( replace( element, values ));
+            }
+            return list;
+        }
+        return value;
+    }
+
+    private static boolean allAreMaps( List<?> list ){
+        for ( Object obj : list ){
+            if ( !( obj instanceof Map )) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return ( databaseName != null ? databaseName : "db" ) + "." + collectionName + calls;
+    }
+
+
+    private static class Parser {
+
+        private final String text;
+        private int pos = 0;
+
+        Parser( String text ){
+            this.text = text;
+        }
+
+        ShellQuery parseQuery(){
+            skipSpaces();
+            final String dbName = readIdentifier();
+            if ( dbName == null || RESERVED_NAMES.contains( dbName ) || !skip('.') ) return null;
+            String collectionName = readIdentifier();
+            if ( collectionName == null ) return null;
+            if ( "getCollection".equals( collectionName )){
+                final List<String> args = readArguments();
+                if ( args == null || args.size() != 1 ) return null;
+                collectionName = readStringLiteral( args.get(0) );
+                if ( collectionName == null ) return null;
+            } else if ( DATABASE_MEMBERS.contains( collectionName )){
+                return null;
+            }
+            final ShellQuery query = new ShellQuery( "db".equals( dbName ) ? null : dbName, collectionName );
+            while ( skip('.') ){
+                final String method = readIdentifier();
+                if ( method == null ) return null;
+                final List<String> args = readArguments();
+                if ( args == null ) return null;
+                final List<Object> values = new ArrayList<>();
+                for ( String arg : args ){
+                    final Object value = parseArgument( arg );
+                    if ( value == null ) return null;
+                    values.add( value );
+                }
+                query.calls.add( new Call( method, values ));
+            }
+            while ( skip(';') ){}
+            if ( pos < text.length() ) return null;
+            return query.isValid() ? query : null;
+        }
+
+        private void skipSpaces(){
+            while ( pos < text.length() && Character.isWhitespace( text.charAt( pos ))) pos++;
+        }
+
+        private boolean skip( char chr ){
+            skipSpaces();
+            if ( pos < text.length() && text.charAt( pos ) == chr ){
+                pos++;
+                skipSpaces();
+                return true;
+            }
+            return false;
+        }
+
+        private String readIdentifier(){
+            skipSpaces();
+            final int start = pos;
+            while ( pos < text.length() && ( Character.isLetterOrDigit( text.charAt( pos )) || text.charAt( pos ) == '_' || text.charAt( pos ) == '$' )) pos++;
+            if ( pos == start || Character.isDigit( text.charAt( start ))) return null;
+            return text.substring( start, pos );
+        }
+
+        /**
+         * Read '( arg, arg, ... )' and split the arguments at the top level commas.
+         */
+        private List<String> readArguments(){
+            if ( !skip('(') ) return null;
+            final List<String> args = new ArrayList<>();
+            int depth = 0, argStart = pos;
+            while ( pos < text.length() ){
+                final char chr = text.charAt( pos );
+                switch ( chr ){
+                    case '"':
+                    case '\'':
+                        pos = skipString( text, pos );
+                        if ( pos < 0 ) return null;
+                        continue;
+                    case '(': case '{': case '[': depth++; break;
+                    case '}': case ']': depth--; break;
+                    case ')':
+                        if ( depth == 0 ){
+                            final String last = text.substring( argStart, pos ).trim();
+                            if ( !last.isEmpty() ){
+                                args.add( last );
+                            } else if ( !args.isEmpty() ){
+                                return null;
+                            }
+                            pos++;
+                            skipSpaces();
+                            return args;
+                        }
+                        depth--;
+                        break;
+                    case ',':
+                        if ( depth == 0 ){
+                            final String arg = text.substring( argStart, pos ).trim();
+                            if ( arg.isEmpty() ) return null;
+                            args.add( arg );
+                            argStart = pos + 1;
+                        }
+                        break;
+                }
+                if ( depth < 0 ) return null;
+                pos++;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Returns the position after the string literal starting at pos, or -1 if the literal is not closed.
+     */
+    private static int skipString( String text, int pos ){
+        final char quote = text.charAt( pos++ );
+        while ( pos < text.length() ){
+            final char chr = text.charAt( pos++ );
+            if ( chr == '\\' ) pos++;
+            else if ( chr == quote ) return pos;
+            else if ( chr == '\n' ) return -1;
+        }
+        return -1;
+    }
+
+    private static String readStringLiteral( String arg ){
+        if ( arg.length() < 2 || ( arg.charAt(0) != '"' && arg.charAt(0) != '\'' ) || skipString( arg, 0 ) != arg.length() ) return null;
+        final Object value = Document.parse("{v:" + arg + "}").get("v");
+        return value instanceof String ? (String)value : null;
+    }
+
+    /**
+     * Parse one argument into a Document, a List or an Integer. Returns null if the argument may mean something else in JavaScript.
+     */
+    static Object parseArgument( String arg ){
+        if ( INTEGER_PATTERN.matcher( arg ).matches() ){
+            return Integer.parseInt( arg );
+        }
+        final char first = arg.charAt(0);
+        if ( ( first != '{' && first != '[' ) || !isPlainJson( arg )) {
+            return null;
+        }
+        final Object value = Document.parse("{v:" + arg + "}").get("v");
+        return normalizeNumbers( value );
+    }
+
+    /**
+     * Check the argument contains only JSON: strings, numbers, true, false, null, keys and the functions ObjectId(), NumberLong(), NumberInt().
+     */
+    static boolean isPlainJson( String text ){
+        int pos = 0;
+        while ( pos < text.length() ){
+            final char chr = text.charAt( pos );
+            if ( Character.isWhitespace( chr ) || chr == '{' || chr == '}' || chr == '[' || chr == ']' || chr == ':' || chr == ',' || chr == ')' ){
+                pos++;
+            } else if ( chr == '"' || chr == '\'' ){
+                final int end = skipString( text, pos );
+                if ( end < 0 ) return false;
+                if ( nextIsColon( text, end ) && EXTENDED_JSON_KEYS.contains( text.substring( pos + 1, end - 1 ))) return false;
+                pos = end;
+            } else if ( Character.isLetter( chr ) || chr == '_' || chr == '$' ){
+                final int start = pos;
+                while ( pos < text.length() && ( Character.isLetterOrDigit( text.charAt( pos )) || text.charAt( pos ) == '_' || text.charAt( pos ) == '$' )) pos++;
+                final String word = text.substring( start, pos );
+                if ( nextIsColon( text, pos )){
+                    if ( EXTENDED_JSON_KEYS.contains( word )) return false;
+                } else if ( nextIs( text, pos, '(' )){
+                    if ( !JSON_FUNCTIONS.contains( word )) return false;
+                    pos = text.indexOf('(', pos ) + 1;
+                } else if ( !JSON_WORDS.contains( word )){
+                    return false;
+                }
+            } else if ( Character.isDigit( chr ) || chr == '.' || chr == '-' || chr == '+' ){
+                final int start = pos++;
+                while ( pos < text.length() && ( Character.isLetterOrDigit( text.charAt( pos )) || text.charAt( pos ) == '.' ||
+                        (( text.charAt( pos ) == '-' || text.charAt( pos ) == '+' ) && ( text.charAt( pos-1 ) == 'e' || text.charAt( pos-1 ) == 'E' )))) pos++;
+                if ( !NUMBER_PATTERN.matcher( text.substring( start, pos )).matches() ) return false;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean nextIsColon( String text, int pos ){
+        return nextIs( text, pos, ':' );
+    }
+
+    private static boolean nextIs( String text, int pos, char chr ){
+        while ( pos < text.length() && Character.isWhitespace( text.charAt( pos ))) pos++;
+        return pos < text.length() && text.charAt( pos ) == chr;
+    }
+
+    /**
+     * JavaScript has only one number type, and the script engine gives integral values as Integer or Long.
+     * Do the same here, so 1.0 is stored the same way as by the script.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object normalizeNumbers( Object value ){
+        if ( value instanceof Double ){
+            final double dbl = (Double)value;
+            if ( dbl == Math.rint( dbl ) && !( dbl == 0 && 1 / dbl < 0 )){
+                if ( dbl >= Integer.MIN_VALUE && dbl <= Integer.MAX_VALUE ) return (int)dbl;
+                if ( Math.abs( dbl ) < 9007199254740992d ) return (long)dbl;
+            }
+        } else if ( value instanceof Map ){
+            for ( Map.Entry<String,Object> entry : ((Map<String,Object>)value).entrySet() ){
+                entry.setValue( normalizeNumbers( entry.getValue() ));
+            }
+        } else if ( value instanceof List ){
+            final ListIterator<Object> it = ((List<Object>)value).listIterator();
+            while ( it.hasNext() ){
+                it.set( normalizeNumbers( it.next() ));
+            }
+        }
+        return value;
+    }
+}
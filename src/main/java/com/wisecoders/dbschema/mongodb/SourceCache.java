@@ -0,0 +1,84 @@
+package com.wisecoders.dbschema.mongodb;
+
+import org.graalvm.polyglot.Source;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU of parsed JavaScript sources, keyed by the query text.
+ * Evaluating the same Source object again lets the Engine skip parsing and reuse the code already compiled by Truffle.
+ * The size is set using the URL parameter sourcecache=<n>. With 0 the cache is disabled.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class SourceCache {
+
+    public static final int DEFAULT_SIZE = 256;
+
+    private final int maxSize;
+    private final Map<String,Source> sources;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public SourceCache( int maxSize ){
+        this.maxSize = Math.max( 0, maxSize );
+        this.sources = new LinkedHashMap<String,Source>( 16, 0.75f, true ){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Source> eldest) {
+                return size() > SourceCache.this.maxSize;
+            }
+        };
+    }
+
+    public Source getSource( String query ){
+        if ( maxSize > 0 ){
+            synchronized ( sources ){
+                final Source source = sources.get( query );
+                if ( source != null ){
+                    hitCount.incrementAndGet();
+                    return source;
+                }
+            }
+        }
+        missCount.incrementAndGet();
+        final Source source = Source.create("js", query );
+        if ( maxSize > 0 ){
+            synchronized ( sources ){
+                sources.put( query, source );
+            }
+        }
+        return source;
+    }
+
+    public int getMaxSize(){
+        return maxSize;
+    }
+
+    public int size(){
+        synchronized ( sources ){
+            return sources.size();
+        }
+    }
+
+    public long getHitCount(){
+        return hitCount.get();
+    }
+
+    public long getMissCount(){
+        return missCount.get();
+    }
+
+    public void clear(){
+        synchronized ( sources ){
+            sources.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SourceCache size=" + size() + "/" + maxSize + " hits=" + hitCount + " misses=" + missCount;
+    }
+}
@@ -0,0 +1,162 @@
+package com.wisecoders.dbschema.mongodb;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.*;
+import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoCollection;
+import org.bson.BsonDocument;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+
+import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
+
+/**
+ * Operations buffered by addBatch(). On executeBatch() consecutive writes into the same collection are sent
+ * with bulkWrite, in chunks of at most 'batchsize' operations. Other statements are executed in their place, one by one.
+ * With 'batchordered=false' the operations of a chunk are sent unordered and the batch continues after failures.
+ *
+ * The update counts are exact for inserts. For updates and deletes bulkWrite returns only totals per chunk,
+ * so the count of each statement is given only when the totals allow it, otherwise it is Statement.SUCCESS_NO_INFO.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+class StatementBatch {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    interface Execution {
+        void execute() throws SQLException;
+    }
+
+    private static class Entry {
+        final WrappedMongoCollection<?> collection;
+        final WriteModel<BsonDocument> model;
+        final Execution execution;
+
+        Entry( WrappedMongoCollection<?> collection, WriteModel<BsonDocument> model, Execution execution ){
+            this.collection = collection;
+            this.model = model;
+            this.execution = execution;
+        }
+
+        boolean isWrite(){
+            return model != null;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    void addWrite( WrappedMongoCollection<?> collection, WriteModel<BsonDocument> model ){
+        entries.add( new Entry( collection, model, null ));
+    }
+
+    void addExecution( Execution execution ){
+        entries.add( new Entry( null, null, execution ));
+    }
+
+    void clear(){
+        entries.clear();
+    }
+
+    int[] execute( int batchSize, boolean ordered ) throws SQLException {
+        final int[] counts = new int[ entries.size() ];
+        Throwable firstError = null;
+        try {
+            int i = 0;
+            while ( i < entries.size() ){
+                final Entry entry = entries.get( i );
+                if ( !entry.isWrite() ){
+                    try {
+                        entry.execution.execute();
+                        counts[i] = Statement.SUCCESS_NO_INFO;
+                    } catch ( SQLException ex ){
+                        if ( ordered ){
+                            throw new BatchUpdateException( ex.getMessage(), Arrays.copyOf( counts, i ), ex );
+                        }
+                        counts[i] = Statement.EXECUTE_FAILED;
+                        if ( firstError == null ) firstError = ex;
+                    }
+                    i++;
+                    continue;
+                }
+                // CONSECUTIVE WRITES INTO THE SAME COLLECTION
+                final String namespace = entry.collection.toString();
+                int end = i;
+                while ( end < entries.size() && end - i < batchSize && entries.get( end ).isWrite() && namespace.equals( entries.get( end ).collection.toString() )){
+                    end++;
+                }
+                final List<WriteModel<BsonDocument>> models = new ArrayList<>( end - i );
+                for ( int j = i; j < end; j++ ){
+                    models.add( entries.get( j ).model );
+                }
+                try {
+                    final BulkWriteResult result = entry.collection.bsonBulkWrite( models, new BulkWriteOptions().ordered( ordered ));
+                    setCounts( models, result, counts, i );
+                } catch ( MongoBulkWriteException ex ){
+                    int firstFailed = models.size();
+                    for ( int j = 0; j < models.size(); j++ ){
+                        counts[ i + j ] = models.get( j ) instanceof InsertOneModel ? 1 : Statement.SUCCESS_NO_INFO;
+                    }
+                    for ( BulkWriteError error : ex.getWriteErrors() ){
+                        counts[ i + error.getIndex() ] = Statement.EXECUTE_FAILED;
+                        firstFailed = Math.min( firstFailed, error.getIndex() );
+                    }
+                    if ( ordered ){
+                        throw new BatchUpdateException( ex.getMessage(), Arrays.copyOf( counts, i + firstFailed ), ex );
+                    }
+                    if ( firstError == null ) firstError = ex;
+                }
+                i = end;
+            }
+        } catch ( BatchUpdateException ex ){
+            LOGGER.log(Level.SEVERE, "Error executing batch", ex );
+            throw ex;
+        } catch ( Throwable ex ){
+            LOGGER.log(Level.SEVERE, "Error executing batch", ex );
+            throw new SQLException( ex.getMessage(), ex );
+        } finally {
+            entries.clear();
+        }
+        if ( firstError != null ){
+            LOGGER.log(Level.SEVERE, "Error executing batch", firstError );
+            throw new BatchUpdateException( firstError.getMessage(), counts, firstError );
+        }
+        return counts;
+    }
+
+    private static void setCounts( List<WriteModel<BsonDocument>> models, BulkWriteResult result, int[] counts, int offset ){
+        int deletes = 0, deleteMany = 0, updates = 0, updateMany = 0;
+        for ( WriteModel<BsonDocument> model : models ){
+            if ( model instanceof DeleteOneModel ) deletes++;
+            else if ( model instanceof DeleteManyModel ){ deletes++; deleteMany++; }
+            else if ( model instanceof UpdateManyModel ){ updates++; updateMany++; }
+            else if ( !( model instanceof InsertOneModel )) updates++;
+        }
+        final int deleteCount = getCount( deletes, deleteMany, result.getDeletedCount() );
+        final int updateCount = getCount( updates, updateMany, result.getMatchedCount() + result.getUpserts().size() );
+        for ( int j = 0; j < models.size(); j++ ){
+            final WriteModel<BsonDocument> model = models.get( j );
+            if ( model instanceof InsertOneModel ) counts[ offset + j ] = 1;
+            else if ( model instanceof DeleteOneModel || model instanceof DeleteManyModel ) counts[ offset + j ] = deleteCount;
+            else counts[ offset + j ] = updateCount;
+        }
+    }
+
+    /**
+     * The count of each statement, when it can be deduced from the total: a single statement, none affected or each affected one document.
+     */
+    private static int getCount( int statements, int manyStatements, int total ){
+        if ( statements == 1 ) return total;
+        if ( total == 0 ) return 0;
+        if ( manyStatements == 0 && total == statements ) return 1;
+        return Statement.SUCCESS_NO_INFO;
+    }
+}
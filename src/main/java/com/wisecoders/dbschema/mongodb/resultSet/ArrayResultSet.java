@@ -9,20 +9,90 @@ import java.math.BigDecimal;
 import java.net.URL;
 import java.sql.*;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
+ * ResultSet over rows added with addRow(), used mostly by DatabaseMetaData.
+ *
+ * The values are stored by column, in arrays growing by doubling, so adding rows does not copy the previous rows.
+ * Integer values are kept in int arrays and read by getInt() without parsing. A column is moved to an Object array
+ * when a value of other type is added.
+ *
  * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
  * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
  */
 public class ArrayResultSet implements ResultSet {
 
-    private Object[][] data = null;
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The values of one column.
+     */
+    private static final class Column {
+        // INTEGER VALUES ARE KEPT IN ints. IF A VALUE OF OTHER TYPE IS ADDED, ALL VALUES ARE MOVED TO objects AND ints IS SET TO null.
+        private int[] ints;
+        private final BitSet nulls = new BitSet();
+        private Object[] objects;
+
+        Column( int capacity ){
+            ints = new int[ capacity ];
+        }
+
+        void grow( int capacity ){
+            if ( ints != null ) ints = Arrays.copyOf( ints, capacity );
+            else objects = Arrays.copyOf( objects, capacity );
+        }
+
+        void set( int row, Object value ){
+            if ( ints != null ){
+                if ( value == null ){
+                    nulls.set( row );
+                    return;
+                }
+                if ( value instanceof Integer ){
+                    ints[ row ] = (Integer)value;
+                    return;
+                }
+                objects = new Object[ ints.length ];
+                for ( int i = 0; i < row; i++ ){
+                    objects[ i ] = nulls.get( i ) ? null : Integer.valueOf( ints[ i ] );
+                }
+                ints = null;
+            }
+            objects[ row ] = value;
+        }
+
+        boolean isInt(){
+            return ints != null;
+        }
+
+        boolean isNull( int row ){
+            return ints != null ? nulls.get( row ) : objects[ row ] == null;
+        }
+
+        int getInt( int row ){
+            return ints[ row ];
+        }
+
+        Object get( int row ){
+            if ( ints != null ){
+                return nulls.get( row ) ? null : Integer.valueOf( ints[ row ] );
+            }
+            return objects[ row ];
+        }
+    }
+
+    private Column[] columns = new Column[0];
+    private int rowCount = 0, capacity = 0;
     private String[] columnNames = null;
+    private int[] columnTypes = null;
+    private final Map<String,Integer> columnIndex = new HashMap<>();
     private int currentRow = -1;
     private String tableName = null;
-    private boolean isClosed = false;
+    private boolean isClosed = false, wasNull = false;
     private MongoPreparedStatement statement = null;
 
 
@@ -30,20 +100,31 @@ public class ArrayResultSet implements ResultSet {
     }
 
     public ArrayResultSet(String[][] data, String[] columnNames) {
-        if (data != null && data.length > 0 && data[0] != null) {
-            int numRows = data.length;
-            int numColumns = data[0].length;
-            this.data = new String[numRows][numColumns];
-            for (int i = 0; i < numRows; i++) {
-                this.data[i] = Arrays.copyOf(data[i], data[i].length);
+        if (data != null) {
+            for (String[] row : data) {
+                if (row != null) {
+                    addRow(row);
+                }
             }
-
         }
-        this.columnNames = columnNames;
+        if (columnNames != null) {
+            setColumnNames(columnNames);
+        }
     }
 
     public void setColumnNames(String[] columnNames) {
         this.columnNames = Arrays.copyOf(columnNames, columnNames.length);
+        columnIndex.clear();
+        for (int i = columnNames.length - 1; i >= 0; i--) {
+            columnIndex.put(columnNames[i], i);
+        }
+    }
+
+    /**
+     * The java.sql.Types reported by getMetaData(). Columns without declared type are reported as VARCHAR, whatever values they hold.
+     */
+    public void setColumnTypes(int[] columnTypes) {
+        this.columnTypes = Arrays.copyOf(columnTypes, columnTypes.length);
     }
 
     public void setTableName(String tableName) {
@@ -55,50 +136,66 @@ public class ArrayResultSet implements ResultSet {
     }
 
     public void addResultSet(ArrayResultSet toCopy) {
-        if (toCopy.data == null || toCopy.data.length < 0) {
+        if (toCopy.rowCount == 0) {
             return;
         }
-        if (data == null) {
-            data = new String[toCopy.data.length][toCopy.data[0].length];
-            for (int i = 0; i < toCopy.data.length; i++) {
-                data[i] = Arrays.copyOf(toCopy.data[i], toCopy.data[i].length);
-            }
-        } else {
-            if (toCopy.data[0].length != data[0].length) {
-                throw new IllegalArgumentException("Array toCopy column length (" + toCopy.data[0].length
-                        + ") is not " + " the same as this result sets column length (" + toCopy.data[0].length + ")");
-            }
-            Object[][] newdata = new String[data.length + toCopy.data.length][data[0].length];
-            for (int i = 0; i < data.length; i++) {
-                newdata[i] = Arrays.copyOf(data[i], data[i].length);
-            }
-            for (int i = 0; i < toCopy.data.length; i++) {
-                newdata[data.length + i] = Arrays.copyOf(toCopy.data[i], toCopy.data[i].length);
+        if (rowCount > 0 && toCopy.columns.length != columns.length) {
+            throw new IllegalArgumentException("Array toCopy column length (" + toCopy.columns.length
+                    + ") is not " + " the same as this result sets column length (" + columns.length + ")");
+        }
+        ensureCapacity(rowCount + toCopy.rowCount, toCopy.columns.length);
+        for (int i = 0; i < toCopy.rowCount; i++) {
+            for (int col = 0; col < toCopy.columns.length; col++) {
+                // NULL CELLS ARE SET TOO, SO AN INT COLUMN MARKS THEM AS NULL
+                columns[col].set(rowCount, toCopy.columns[col].get(i));
             }
-            data = newdata;
+            rowCount++;
         }
     }
 
     public void addRow(Object[] columnValues) {
-        if (data == null) {
-            data = new String[1][columnValues.length];
-            data[0] = Arrays.copyOf(columnValues, columnValues.length);
-        } else {
-            int numRows = data.length;
-            Object[][] newdata = new String[numRows + 1][data[0].length];
-            for (int i = 0; i < numRows; i++) {
-                newdata[i] = Arrays.copyOf(data[i], data[i].length);
+        ensureCapacity(rowCount + 1, columnValues.length);
+        for (int col = 0; col < columnValues.length; col++) {
+            columns[col].set(rowCount, columnValues[col]);
+        }
+        rowCount++;
+    }
+
+    /**
+     * Grow the columns by doubling, and add the missing columns.
+     */
+    private void ensureCapacity(int rows, int columnCount) {
+        if (rows > capacity) {
+            capacity = Math.max(rows, Math.max(INITIAL_CAPACITY, capacity * 2));
+            for (Column column : columns) {
+                column.grow(capacity);
+            }
+        }
+        if (columnCount > columns.length) {
+            final int oldLength = columns.length;
+            columns = Arrays.copyOf(columns, columnCount);
+            for (int col = oldLength; col < columnCount; col++) {
+                columns[col] = new Column(capacity);
+                // THE PREVIOUS ROWS HAVE NO VALUE IN THIS COLUMN
+                for (int i = 0; i < rowCount; i++) {
+                    columns[col].set(i, null);
+                }
             }
-            newdata[numRows] = Arrays.copyOf(columnValues, columnValues.length);
-            data = newdata;
         }
     }
 
     public int getRowCount() {
-        if (data == null) {
-            return 0;
+        return rowCount;
+    }
+
+    private Column getColumn(int columnIndex) throws SQLException {
+        if (currentRow < 0 || currentRow >= rowCount) {
+            throw new SQLException("ResultSet exhausted, request currentRow = " + currentRow);
         }
-        return data.length;
+        if (columnIndex < 1 || columnIndex > columns.length) {
+            throw new SQLException("Column index does not exist: " + columnIndex);
+        }
+        return columns[columnIndex - 1];
     }
 
     @Override
@@ -117,13 +214,11 @@ public class ArrayResultSet implements ResultSet {
      */
     @Override
     public boolean next() throws SQLException {
-        if (data == null) {
-            return false;
-        }
-        if (currentRow < data.length - 1) {
+        if (currentRow < rowCount - 1) {
             currentRow++;
             return true;
         }
+        currentRow = rowCount;
         return false;
     }
 
@@ -140,19 +235,12 @@ public class ArrayResultSet implements ResultSet {
      */
     @Override
     public boolean wasNull() throws SQLException {
-        return false;
+        return wasNull;
     }
 
     @Override
     public String getString(int columnIndex) throws SQLException {
-        if (currentRow >= data.length) {
-            throw new SQLException("ResultSet exhausted, request currentRow = " + currentRow);
-        }
-        int adjustedColumnIndex = columnIndex - 1;
-        if (adjustedColumnIndex >= data[currentRow].length) {
-            throw new SQLException("Column index does not exist: " + columnIndex);
-        }
-        final Object val = data[currentRow][adjustedColumnIndex];
+        final Object val = getObject(columnIndex);
         return val != null ? val.toString() : null;
     }
 
@@ -173,7 +261,15 @@ public class ArrayResultSet implements ResultSet {
     @Override
     public short getShort(int columnIndex) throws SQLException {
         checkClosed();
-        return Short.parseShort(getString(columnIndex));
+        final Column column = getColumn(columnIndex);
+        wasNull = column.isNull(currentRow);
+        if (wasNull) {
+            return 0;
+        }
+        if (column.isInt()) {
+            return (short)column.getInt(currentRow);
+        }
+        return Short.parseShort(column.get(currentRow).toString());
     }
 
     /**
@@ -182,7 +278,15 @@ public class ArrayResultSet implements ResultSet {
     @Override
     public int getInt(int columnIndex) throws SQLException {
         checkClosed();
-        return Integer.parseInt(getString(columnIndex));
+        final Column column = getColumn(columnIndex);
+        wasNull = column.isNull(currentRow);
+        if (wasNull) {
+            return 0;
+        }
+        if (column.isInt()) {
+            return column.getInt(currentRow);
+        }
+        return Integer.parseInt(column.get(currentRow).toString());
     }
 
     /**
@@ -191,7 +295,15 @@ public class ArrayResultSet implements ResultSet {
     @Override
     public long getLong(int columnIndex) throws SQLException {
         checkClosed();
-        return Long.parseLong(getString(columnIndex));
+        final Column column = getColumn(columnIndex);
+        wasNull = column.isNull(currentRow);
+        if (wasNull) {
+            return 0;
+        }
+        if (column.isInt()) {
+            return column.getInt(currentRow);
+        }
+        return Long.parseLong(column.get(currentRow).toString());
     }
 
     /**
@@ -200,7 +312,15 @@ public class ArrayResultSet implements ResultSet {
     @Override
     public float getFloat(int columnIndex) throws SQLException {
         checkClosed();
-        return Float.parseFloat(getString(columnIndex));
+        final Column column = getColumn(columnIndex);
+        wasNull = column.isNull(currentRow);
+        if (wasNull) {
+            return 0;
+        }
+        if (column.isInt()) {
+            return column.getInt(currentRow);
+        }
+        return Float.parseFloat(column.get(currentRow).toString());
     }
 
     /**
@@ -209,7 +329,15 @@ public class ArrayResultSet implements ResultSet {
     @Override
     public double getDouble(int columnIndex) throws SQLException {
         checkClosed();
-        return Double.parseDouble(getString(columnIndex));
+        final Column column = getColumn(columnIndex);
+        wasNull = column.isNull(currentRow);
+        if (wasNull) {
+            return 0;
+        }
+        if (column.isInt()) {
+            return column.getInt(currentRow);
+        }
+        return Double.parseDouble(column.get(currentRow).toString());
     }
 
     @Override
@@ -263,27 +391,13 @@ public class ArrayResultSet implements ResultSet {
     @Override
     public String getString(String columnLabel) throws SQLException {
         checkClosed();
-        int index = -1;
-        if (columnNames == null) {
-            throw new SQLException("Use of columnLabel requires setColumnNames to be called first.");
-        }
-        for (int i = 0; i < columnNames.length; i++) {
-            if (columnLabel.equals(columnNames[i])) {
-                index = i;
-                break;
-            }
-        }
-        if (index == -1) {
-            throw new SQLException("Column " + columnLabel + " doesn't exist in this ResultSet");
-        }
-        return getString(index + 1);
+        return getString(findColumn(columnLabel));
     }
 
     @Override
     public boolean getBoolean(String columnLabel) throws SQLException {
         checkClosed();
-
-        return false;
+        return getBoolean(findColumn(columnLabel));
     }
 
     @Override
@@ -294,31 +408,32 @@ public class ArrayResultSet implements ResultSet {
 
     @Override
     public short getShort(String columnLabel) throws SQLException {
-
-        return 0;
+        checkClosed();
+        return getShort(findColumn(columnLabel));
     }
 
     @Override
     public int getInt(String columnLabel) throws SQLException {
-
-        return 0;
+        checkClosed();
+        return getInt(findColumn(columnLabel));
     }
 
     @Override
     public long getLong(String columnLabel) throws SQLException {
-
-        return 0;
+        checkClosed();
+        return getLong(findColumn(columnLabel));
     }
 
     @Override
     public float getFloat(String columnLabel) throws SQLException {
-
-        return 0;
+        checkClosed();
+        return getFloat(findColumn(columnLabel));
     }
 
     @Override
     public double getDouble(String columnLabel) throws SQLException {
-        return Double.parseDouble(getString(columnLabel));
+        checkClosed();
+        return getDouble(findColumn(columnLabel));
     }
 
     @Override
@@ -394,16 +509,15 @@ public class ArrayResultSet implements ResultSet {
         int[] columnJavaTypes = new int[columnNames.length];
         for (int i = 0; i < columnDisplaySizes.length; i++) {
             columnDisplaySizes[i] = columnNames[i].length();
-            columnJavaTypes[i] = Types.VARCHAR;
+            columnJavaTypes[i] = columnTypes != null && i < columnTypes.length ? columnTypes[i] : Types.VARCHAR;
         }
-        if (data != null) {
-            for (Object[] row : data) {
-                for (int columnIdx = 0; columnIdx < row.length; columnIdx++) {
-                    if (row[columnIdx] != null) {
-                        int datalength = row[columnIdx].toString().length();
-                        if (datalength > columnDisplaySizes[columnIdx]) {
-                            columnDisplaySizes[columnIdx] = datalength;
-                        }
+        for (int columnIdx = 0; columnIdx < columns.length && columnIdx < columnNames.length; columnIdx++) {
+            final Column column = columns[columnIdx];
+            for (int i = 0; i < rowCount; i++) {
+                if (!column.isNull(i)) {
+                    int datalength = column.isInt() ? Integer.toString(column.getInt(i)).length() : column.get(i).toString().length();
+                    if (datalength > columnDisplaySizes[columnIdx]) {
+                        columnDisplaySizes[columnIdx] = datalength;
                     }
                 }
             }
@@ -414,26 +528,26 @@ public class ArrayResultSet implements ResultSet {
 
     @Override
     public Object getObject(int columnIndex) throws SQLException {
-        if (currentRow >= data.length) {
-            throw new SQLException("ResultSet exhausted, request currentRow = " + currentRow);
-        }
-        int adjustedColumnIndex = columnIndex - 1;
-        if (adjustedColumnIndex >= data[currentRow].length) {
-            throw new SQLException("Column index does not exist: " + columnIndex);
-        }
-        return data[currentRow][adjustedColumnIndex];
+        final Column column = getColumn(columnIndex);
+        wasNull = column.isNull(currentRow);
+        return column.get(currentRow);
     }
 
     @Override
-    public Object getObject(String columnLabel) {
-
-        return null;
+    public Object getObject(String columnLabel) throws SQLException {
+        return getObject(findColumn(columnLabel));
     }
 
     @Override
-    public int findColumn(String columnLabel) {
-
-        return 0;
+    public int findColumn(String columnLabel) throws SQLException {
+        if (columnNames == null) {
+            throw new SQLException("Use of columnLabel requires setColumnNames to be called first.");
+        }
+        final Integer index = columnIndex.get(columnLabel);
+        if (index == null) {
+            throw new SQLException("Column " + columnLabel + " doesn't exist in this ResultSet");
+        }
+        return index + 1;
     }
 
     @Override
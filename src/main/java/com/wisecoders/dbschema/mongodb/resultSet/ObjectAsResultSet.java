@@ -3,6 +3,7 @@ package com.wisecoders.dbschema.mongodb.resultSet;
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.net.URL;
 import java.sql.*;
 import java.util.Calendar;
@@ -41,76 +42,68 @@ public class ObjectAsResultSet implements ResultSet {
 
     @Override
     public String getString(int columnIndex) throws SQLException {
-        return value != null ? String.valueOf( value ) : null;
+        return ValueConverter.toString( value );
     }
 
     @Override
     public boolean getBoolean(int columnIndex) throws SQLException {
-        return value instanceof Boolean ? (Boolean)value : false;
+        return ValueConverter.toBoolean( value );
     }
 
     @Override
     public byte getByte(int columnIndex) throws SQLException {
-        return 0;
+        return ValueConverter.toByte( value );
     }
 
     @Override
     public short getShort(int columnIndex) throws SQLException {
-        if ( value instanceof Number ) return ((Number)value).shortValue();
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        return ValueConverter.toShort( value );
     }
 
     @Override
     public int getInt(int columnIndex) throws SQLException {
-        if ( value instanceof Number ) return ((Number)value).intValue();
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        return ValueConverter.toInt( value );
     }
 
     @Override
     public long getLong(int columnIndex) throws SQLException {
-        if ( value instanceof Number ) return ((Number)value).longValue();
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        return ValueConverter.toLong( value );
     }
 
     @Override
     public float getFloat(int columnIndex) throws SQLException {
-        if ( value instanceof Number ) return ((Number)value).floatValue();
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        return ValueConverter.toFloat( value );
     }
 
     @Override
     public double getDouble(int columnIndex) throws SQLException {
-        if ( value instanceof Number ) return ((Number)value).doubleValue();
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        return ValueConverter.toDouble( value );
     }
 
     @Override
     public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
-        if ( value instanceof BigDecimal ) return (BigDecimal)value;
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        final BigDecimal decimal = ValueConverter.toBigDecimal( value );
+        return decimal != null ? decimal.setScale( scale, RoundingMode.HALF_UP ) : null;
     }
 
     @Override
     public byte[] getBytes(int columnIndex) throws SQLException {
-        return new byte[0];
+        return ValueConverter.toBytes( value );
     }
 
     @Override
     public Date getDate(int columnIndex) throws SQLException {
-        if ( value instanceof Date ) return (Date)value;
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        return ValueConverter.toDate( value );
     }
 
     @Override
     public Time getTime(int columnIndex) throws SQLException {
-        if ( value instanceof Time ) return (Time)value;
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        return ValueConverter.toTime( value );
     }
 
     @Override
     public Timestamp getTimestamp(int columnIndex) throws SQLException {
-        if ( value instanceof Timestamp ) return (Timestamp)value;
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        return ValueConverter.toTimestamp( value );
     }
 
     @Override
@@ -130,73 +123,68 @@ public class ObjectAsResultSet implements ResultSet {
 
     @Override
     public String getString(String columnLabel) throws SQLException {
-        return String.valueOf( value);
+        return ValueConverter.toString( value );
     }
 
     @Override
     public boolean getBoolean(String columnLabel) throws SQLException {
-        if ( value instanceof Boolean ) return (Boolean)value;
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        return ValueConverter.toBoolean( value );
     }
 
     @Override
     public byte getByte(String columnLabel) throws SQLException {
-        return 0;
+        return ValueConverter.toByte( value );
     }
 
     @Override
     public short getShort(String columnLabel) throws SQLException {
-        if ( value instanceof Number ) return ((Number)value).shortValue();
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        return ValueConverter.toShort( value );
     }
 
     @Override
     public int getInt(String columnLabel) throws SQLException {
-        if ( value instanceof Number ) return ((Number)value).intValue();
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        return ValueConverter.toInt( value );
     }
 
     @Override
     public long getLong(String columnLabel) throws SQLException {
-        if ( value instanceof Number ) return ((Number)value).longValue();
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        return ValueConverter.toLong( value );
     }
 
     @Override
     public float getFloat(String columnLabel) throws SQLException {
-        if ( value instanceof Number ) return ((Number)value).floatValue();
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        return ValueConverter.toFloat( value );
     }
 
     @Override
     public double getDouble(String columnLabel) throws SQLException {
-        if ( value instanceof Number ) return ((Number)value).doubleValue();
-        throw new SQLException("Invalid type. Value is " + value.getClass());
+        return ValueConverter.toDouble( value );
     }
 
     @Override
     public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
-        return null;
+        final BigDecimal decimal = ValueConverter.toBigDecimal( value );
+        return decimal != null ? decimal.setScale( scale, RoundingMode.HALF_UP ) : null;
     }
 
     @Override
     public byte[] getBytes(String columnLabel) throws SQLException {
-        return new byte[0];
+        return ValueConverter.toBytes( value );
     }
 
     @Override
     public Date getDate(String columnLabel) throws SQLException {
-        return null;
+        return ValueConverter.toDate( value );
     }
 
     @Override
     public Time getTime(String columnLabel) throws SQLException {
-        return null;
+        return ValueConverter.toTime( value );
     }
 
     @Override
     public Timestamp getTimestamp(String columnLabel) throws SQLException {
-        return null;
+        return ValueConverter.toTimestamp( value );
     }
 
     @Override
@@ -384,12 +372,12 @@ public class ObjectAsResultSet implements ResultSet {
 
     @Override
     public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
-        return null;
+        return ValueConverter.toBigDecimal( value );
     }
 
     @Override
     public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
-        return null;
+        return ValueConverter.toBigDecimal( value );
     }
 
     @Override
@@ -779,32 +767,32 @@ public class ObjectAsResultSet implements ResultSet {
 
     @Override
     public Date getDate(int columnIndex, Calendar cal) throws SQLException {
-        return null;
+        return ValueConverter.toDate( value );
     }
 
     @Override
     public Date getDate(String columnLabel, Calendar cal) throws SQLException {
-        return null;
+        return ValueConverter.toDate( value );
     }
 
     @Override
     public Time getTime(int columnIndex, Calendar cal) throws SQLException {
-        return null;
+        return ValueConverter.toTime( value );
     }
 
     @Override
     public Time getTime(String columnLabel, Calendar cal) throws SQLException {
-        return null;
+        return ValueConverter.toTime( value );
     }
 
     @Override
     public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
-        return null;
+        return ValueConverter.toTimestamp( value );
     }
 
     @Override
     public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
-        return null;
+        return ValueConverter.toTimestamp( value );
     }
 
     @Override
@@ -1099,12 +1087,12 @@ public class ObjectAsResultSet implements ResultSet {
 
     @Override
     public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
-        return null;
+        return ValueConverter.toObject( value, type );
     }
 
     @Override
     public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
-        return null;
+        return ValueConverter.toObject( value, type );
     }
 
     @Override
@@ -0,0 +1,117 @@
+package com.wisecoders.dbschema.mongodb.resultSet;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the cursor in a background daemon thread into a bounded queue, so the next batch is fetched from the server
+ * while the application processes the current rows. The thread waits when the queue is full.
+ *
+ * The cursor is used only by the background thread, which also closes it at the end, on error or after close().
+ * Errors of the cursor are thrown by hasNext() in the reading thread, after the rows read before the error.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class PrefetchIterator implements Iterator<Object>, AutoCloseable {
+
+    private static final AtomicInteger THREAD_SEQUENCE = new AtomicInteger();
+    private static final Object END = new Object();
+    private static final Object NULL_ROW = new Object();
+
+    private static class Failure {
+        final RuntimeException exception;
+        Failure( RuntimeException exception ){
+            this.exception = exception;
+        }
+    }
+
+    private final Iterator<?> source;
+    private final BlockingQueue<Object> queue;
+    private final Thread thread;
+    private volatile boolean closed = false;
+    private Object next;
+
+    public PrefetchIterator( Iterator<?> source, int capacity ){
+        this.source = source;
+        this.queue = new ArrayBlockingQueue<>( Math.max( 1, capacity ));
+        this.thread = new Thread( this::fetch, "mongodb-jdbc-prefetch-" + THREAD_SEQUENCE.incrementAndGet() );
+        this.thread.setDaemon( true );
+        this.thread.start();
+    }
+
+    private void fetch(){
+        Object last = END;
+        try {
+            while ( !closed && source.hasNext() ){
+                final Object row = source.next();
+                queue.put( row != null ? row : NULL_ROW );
+            }
+        } catch ( InterruptedException ex ){
+            // CLOSED
+        } catch ( RuntimeException ex ){
+            last = new Failure( ex );
+        } finally {
+            closeSource();
+            if ( !closed ){
+                try {
+                    queue.put( last );
+                } catch ( InterruptedException ex ){
+                    // CLOSED
+                }
+            }
+        }
+    }
+
+    private void closeSource(){
+        if ( source instanceof AutoCloseable ){
+            try {
+                ((AutoCloseable)source).close();
+            } catch ( Exception ex ){
+                // THE CURSOR IS NOT USED ANYMORE
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if ( next == null ){
+            if ( closed ) return false;
+            try {
+                next = queue.take();
+            } catch ( InterruptedException ex ){
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the cursor.", ex );
+            }
+        }
+        if ( next instanceof Failure ){
+            final RuntimeException ex = ((Failure)next).exception;
+            next = END;
+            throw ex;
+        }
+        return next != END;
+    }
+
+    @Override
+    public Object next() {
+        if ( !hasNext() ) throw new NoSuchElementException();
+        final Object row = next;
+        next = null;
+        return row != NULL_ROW ? row : null;
+    }
+
+    /**
+     * Stop the background thread. The queue is cleared so the thread is not waiting for space, and the thread closes the cursor.
+     */
+    @Override
+    public void close() {
+        if ( closed ) return;
+        closed = true;
+        next = END;
+        thread.interrupt();
+        queue.clear();
+    }
+}
@@ -1,80 +1,290 @@
 package com.wisecoders.dbschema.mongodb.resultSet;
 
 import com.wisecoders.dbschema.mongodb.MongoResultSetMetaData;
+import org.bson.*;
+import org.bson.io.ByteBufferBsonInput;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.net.URL;
 import java.sql.Date;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The Iterator can be instantiated with expand=true. In this case we read ahead MAX_READ_AHEAD documents and we fill the metaColumnNames and metaColumnTypes.
  * We need to do this as the result document can be first time for example {firstname='Luise'} and second record {firstname='John',lastname='Carry'}.
  * I mean with this that some keys may miss in some records, so expanding should look ahead for all possible keys.
  *
+ * If the columns are known before reading, from the projection or from the discovered collection, they are given to the constructor
+ * and the read-ahead is skipped. Fields not in the known columns are added as columns while reading.
+ *
+ * The column positions are kept in a hash index. On next() the values of the current document are put in the column slots,
+ * in one pass over the document keys, so the getters by column index read directly from the slots.
+ *
+ * With flattenDepth > 0 the nested documents are expanded into 'a.b.c' columns, up to the given depth.
+ * The paths are kept in a tree of PathNode, built when a path is seen the first time, so the documents are
+ * walked together with the tree and the paths are not split or concatenated for each row.
+ *
+ * With the URL parameter rawbson=true the documents are read as RawBsonDocument. The getters decode only the requested field
+ * and getObject() decodes the full document only when it is called.
+ *
+ * A scrollable result set, see scrollable(), keeps the rows already read in a SpillingRowStore, so it can move back
+ * without executing the query again. The rows are still read from the cursor only when needed.
+ *
+ * The result set owns the iterator. If it is a MongoCursor, close() closes it, so the server cursor is released
+ * even if the result is not read to the end.
+ *
  * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
  * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
  */
 public class ResultSetIterator implements ResultSet {
 
-    private final Iterator iterator;
+    private final Iterator<?> iterator;
     private Object current;
     private static final int MAX_READ_AHEAD = 300;
-    private List<Object> readAhead = new ArrayList<>();
+    // THE DEQUE DOES NOT ACCEPT null, SO null DOCUMENTS ARE KEPT AS NULL_ROW
+    private final ArrayDeque<Object> readAhead = new ArrayDeque<>();
+    private static final Object NULL_ROW = new Object();
     private boolean expandResultSet = false;
     private final List<String> metaColumnsNames = new ArrayList<>();
+    private final Map<String,Integer> metaColumnsIndex = new HashMap<>();
+    // VALUES OF THE CURRENT DOCUMENT, BY COLUMN POSITION
+    private Object[] slots = new Object[0];
     private final List<Integer> metaJavaTypes = new ArrayList<>();
     private final List<Integer> metaDisplaySize = new ArrayList<>();
+    // BUILT ON getMetaData() AND KEPT UNTIL A NEW COLUMN IS ADDED
+    private ResultSetMetaData metaData;
+    private boolean isClosed = false, isExhausted = false;
+    private AtomicInteger openCursors;
+    // NESTED DOCUMENTS ARE EXPANDED TO COLUMNS UP TO THIS DEPTH. 0 FOR ONLY THE TOP-LEVEL KEYS
+    private final int flattenDepth;
+    private final PathNode pathRoot = new PathNode( null );
+    // THE CURRENT RawBsonDocument DECODED AS Document, WHEN REQUIRED
+    private Document decodedCurrent;
+    private boolean wasNull = false;
+    // THE CURRENT ROW NUMBER, FROM 1. 0 BEFORE THE FIRST ROW
+    private int rowNumber = 0;
+    private boolean onRow = false;
+    // ONLY FOR SCROLLABLE RESULT SETS
+    private SpillingRowStore rowStore;
+    private static final Object NO_MORE_ROWS = new Object();
+
+    /**
+     * A key path of the documents. The column is created when a value which is not expanded is found on this path.
+     */
+    private static class PathNode {
+        final String path;
+        int column = -1;
+        Map<String,PathNode> children;
+
+        PathNode( String path ){
+            this.path = path;
+        }
+
+        PathNode child( String key ){
+            if ( children == null ){
+                children = new HashMap<>();
+            }
+            PathNode child = children.get( key );
+            if ( child == null ){
+                child = new PathNode( path == null ? key : path + "." + key );
+                children.put( key, child );
+            }
+            return child;
+        }
+    }
 
     ResultSetIterator(){
         this.iterator = null;
+        this.flattenDepth = 0;
         initMetaData();
     }
 
-    public ResultSetIterator(Iterable iterable, boolean expandResultSet){
-        iterator = (iterable != null ? iterable.iterator() : null);
-        this.expandResultSet = expandResultSet && iterator != null;
-        initMetaData();
+    public ResultSetIterator(Iterable<?> iterable, boolean expandResultSet){
+        this( iterable != null ? iterable.iterator() : null, expandResultSet );
+    }
+
+    public ResultSetIterator(Iterator<?> iterator, boolean expandResultSet ){
+        this( iterator, expandResultSet, 0 );
+    }
+
+    public ResultSetIterator(Iterator<?> iterator, boolean expandResultSet, int flattenDepth ){
+        this( iterator, expandResultSet, flattenDepth, null );
     }
 
-    public ResultSetIterator(Iterator iterator, boolean expandResultSet ){
+    /**
+     * @param columns the known columns with their java.sql.Types, in expand mode. If null, the columns are found by reading ahead.
+     */
+    public ResultSetIterator(Iterator<?> iterator, boolean expandResultSet, int flattenDepth, Map<String,Integer> columns ){
         this.iterator = iterator;
         this.expandResultSet = expandResultSet && iterator != null;
-        initMetaData();
+        this.flattenDepth = this.expandResultSet ? Math.max( 0, flattenDepth ) : 0;
+        if ( this.expandResultSet && columns != null && !columns.isEmpty() ){
+            for ( Map.Entry<String,Integer> column : columns.entrySet() ){
+                addMetaColumn( column.getKey(), column.getValue(), 300 );
+            }
+        } else {
+            initMetaData();
+        }
     }
 
     private void initMetaData(){
         if ( expandResultSet ){
-            while ( iterator.hasNext() && readAhead.size() < MAX_READ_AHEAD ){
+            while ( readAhead.size() < MAX_READ_AHEAD ){
+                if ( !iterator.hasNext() ){
+                    isExhausted = true;
+                    break;
+                }
                 Object obj = iterator.next();
                 fillMetaData( obj );
-                readAhead.add( obj );
+                readAhead.add( obj != null ? obj : NULL_ROW );
             }
         } else {
             addMetaColumn( "document", Types.JAVA_OBJECT, 300 );
         }
     }
 
-    private void addMetaColumn( String columnName, int javaType, int displaySize ){
+    private int addMetaColumn( String columnName, int javaType, int displaySize ){
+        final int index = metaColumnsNames.size();
+        metaData = null;
+        metaColumnsIndex.put( columnName, index );
         metaColumnsNames.add( columnName );
         metaJavaTypes.add( javaType );
         metaDisplaySize.add( displaySize );
+        return index;
     }
 
     private void fillMetaData(Object obj ){
-        if ( obj instanceof Map ){
-            Map<String,Object> skipOneMap = (Map<String,Object>)obj;
-            for ( String key : skipOneMap.keySet() ){
-                if ( !metaColumnsNames.contains( key )) {
-                    addMetaColumn( key, getJavaTypeForObject(skipOneMap.get(key)), 300 );
+        if ( obj instanceof RawBsonDocument && flattenDepth == 0 ){
+            fillRawMetaData( (RawBsonDocument)obj );
+        } else if ( obj instanceof Map ){
+            visit( toMap( obj ), pathRoot, 0, false );
+        }
+    }
+
+    private Map<?,?> toMap( Object obj ){
+        return obj instanceof RawBsonDocument ? ((RawBsonDocument)obj).decode( ValueConverter.DOCUMENT_CODEC ) : (Map<?,?>)obj;
+    }
+
+    /**
+     * Walk the document together with the path tree, adding the new columns. With fill=true the values are put in the column slots.
+     */
+    private void visit( Map<?,?> document, PathNode node, int depth, boolean fill ){
+        for ( Map.Entry<?,?> entry : document.entrySet() ){
+            final PathNode child = node.child( String.valueOf( entry.getKey() ));
+            final Object value = entry.getValue();
+            if ( depth < flattenDepth && value instanceof Map ){
+                visit( (Map<?,?>)value, child, depth + 1, fill );
+            } else {
+                if ( child.column < 0 ){
+                    final Integer index = metaColumnsIndex.get( child.path );
+                    child.column = index != null ? index : addMetaColumn( child.path, getJavaTypeForObject( value ), 300 );
+                }
+                if ( fill ){
+                    if ( child.column >= slots.length ){
+                        slots = Arrays.copyOf( slots, Math.max( metaColumnsNames.size(), slots.length * 2 + 1 ));
+                    }
+                    slots[ child.column ] = value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the new columns of the current document and put its values in the column slots.
+     */
+    private void fillSlots(){
+        if ( slots.length < metaColumnsNames.size() ){
+            slots = new Object[ Math.max( metaColumnsNames.size(), slots.length * 2 ) ];
+        } else {
+            Arrays.fill( slots, null );
+        }
+        if ( current instanceof RawBsonDocument && flattenDepth == 0 ){
+            // THE VALUES ARE DECODED WHEN READ
+            fillRawMetaData( (RawBsonDocument)current );
+        } else if ( current instanceof Map ){
+            // FLATTENED RAW DOCUMENTS ARE DECODED, AS THE NESTED VALUES ARE NEEDED
+            visit( current instanceof RawBsonDocument ? (Map<?,?>)getCurrentDocument() : (Map<?,?>)current, pathRoot, 0, true );
+        }
+    }
+
+    /**
+     * The value of the column in the current row. For raw documents this is the BsonValue, converted by the getters without decoding it.
+     * Without expand, or if the row is not a document, the value is the row itself.
+     */
+    private Object getValue( int columnIndex ){
+        final Object value;
+        if ( expandResultSet && current instanceof Map ){
+            if ( current instanceof RawBsonDocument && flattenDepth == 0 ){
+                value = columnIndex >= 1 && columnIndex <= metaColumnsNames.size() ? ((RawBsonDocument)current).get( metaColumnsNames.get( columnIndex - 1 )) : null;
+            } else {
+                value = columnIndex >= 1 && columnIndex <= slots.length ? slots[ columnIndex - 1 ] : null;
+            }
+        } else {
+            value = getCurrentDocument();
+        }
+        wasNull = ValueConverter.isNull( value );
+        return value;
+    }
+
+    /**
+     * The value by column label, using the column index. Keys which are not columns are read from the current document.
+     */
+    private Object getValue( String columnLabel ){
+        final Integer index = metaColumnsIndex.get( columnLabel );
+        if ( index == null && expandResultSet && current instanceof Map ){
+            final Object value = ((Map)current).get( columnLabel );
+            wasNull = ValueConverter.isNull( value );
+            return value;
+        }
+        return getValue( index != null ? index + 1 : 1 );
+    }
+
+    /**
+     * The current document. A RawBsonDocument is decoded once per row.
+     */
+    private Object getCurrentDocument(){
+        if ( current instanceof RawBsonDocument ){
+            if ( decodedCurrent == null ){
+                decodedCurrent = ((RawBsonDocument)current).decode( ValueConverter.DOCUMENT_CODEC );
+            }
+            return decodedCurrent;
+        }
+        return current;
+    }
+
+    /**
+     * Read the names and types of the fields, skipping the values without decoding them.
+     */
+    private void fillRawMetaData( RawBsonDocument document ){
+        try ( BsonBinaryReader reader = new BsonBinaryReader( new ByteBufferBsonInput( document.getByteBuffer() ))){
+            reader.readStartDocument();
+            while ( reader.readBsonType() != BsonType.END_OF_DOCUMENT ){
+                final String name = reader.readName();
+                if ( !metaColumnsIndex.containsKey( name )){
+                    addMetaColumn( name, getJavaTypeForBsonType( reader.getCurrentBsonType() ), 300 );
                 }
+                reader.skipValue();
             }
         }
     }
 
+    private int getJavaTypeForBsonType( BsonType type ){
+        switch ( type ){
+            case STRING: return Types.VARCHAR;
+            case INT32: return Types.INTEGER;
+            case INT64: return Types.BIGINT;
+            case DOUBLE: return Types.DOUBLE;
+            case BOOLEAN: return Types.BOOLEAN;
+            default: return Types.OTHER;
+        }
+    }
+
     private int getJavaTypeForObject( Object obj ){
         if ( obj instanceof String ) return Types.VARCHAR;
         if ( obj instanceof Integer ) return Types.INTEGER;
@@ -91,36 +301,174 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public Object getObject(int columnIndex) throws SQLException {
-        if ( expandResultSet && current instanceof Map ){
-            return ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-        }
-        return current;
+        return ValueConverter.decode( getValue( columnIndex ));
     }
 
     @Override
     public boolean next() throws SQLException {
-        current = null;
-        if ( readAhead.size() > 0 ){
-            current = readAhead.get(0);
-            readAhead.remove(0);
-            return true;
+        checkClosed();
+        if ( rowStore != null ){
+            return moveTo( rowNumber + 1 );
         }
-        if ( iterator != null ) {
-            if ( iterator.hasNext() ) {
-                current = iterator.next();
-                fillMetaData( current );
-                return true;
+        final Object row = fetchRow();
+        if ( row == NO_MORE_ROWS ){
+            // AFTER THE LAST ROW
+            if ( onRow ) rowNumber++;
+            onRow = false;
+            setCurrent( null );
+            return false;
+        }
+        rowNumber++;
+        onRow = true;
+        setCurrent( row );
+        return true;
+    }
+
+    /**
+     * Read the next row from the read-ahead buffer or from the iterator.
+     * Returns NO_MORE_ROWS at the end, and releases the cursor.
+     */
+    private Object fetchRow(){
+        if ( !readAhead.isEmpty() ){
+            final Object row = readAhead.poll();
+            return row != NULL_ROW ? row : null;
+        } else if ( !isExhausted && iterator != null && iterator.hasNext() ) {
+            final Object row = iterator.next();
+            if ( !expandResultSet ){
+                fillMetaData( row );
             }
+            return row;
+        }
+        isExhausted = true;
+        releaseCursor();
+        return NO_MORE_ROWS;
+    }
+
+    private void setCurrent( Object row ){
+        current = row;
+        decodedCurrent = null;
+        if ( expandResultSet && row != null ){
+            fillSlots();
+        }
+    }
+
+    /**
+     * Make the result set scrollable, keeping the rows already read. Up to memoryRows rows are kept on heap, the next are written to a temporary file.
+     * Should be called before reading the rows.
+     */
+    public ResultSetIterator scrollable( int memoryRows ){
+        if ( rowStore == null ){
+            rowStore = new SpillingRowStore( memoryRows );
+        }
+        return this;
+    }
+
+    private void checkScrollable() throws SQLException {
+        checkClosed();
+        if ( rowStore == null ){
+            throw new SQLException("The ResultSet is TYPE_FORWARD_ONLY. Create the statement with TYPE_SCROLL_INSENSITIVE.");
+        }
+    }
+
+    /**
+     * Read the rows from the cursor into the row store, until it has the given number of rows or the cursor ends.
+     */
+    private void fetchUntil( int rows ) throws SQLException {
+        try {
+            while ( rowStore.size() < rows && !( isExhausted && readAhead.isEmpty() )){
+                final Object row = fetchRow();
+                if ( row == NO_MORE_ROWS ) break;
+                rowStore.add( row );
+            }
+        } catch ( IOException ex ){
+            throw new SQLException( ex.getMessage(), ex );
+        }
+    }
+
+    private void fetchAll() throws SQLException {
+        fetchUntil( Integer.MAX_VALUE );
+    }
+
+    /**
+     * Move to the given row, from 1. Row 0 is before the first row, rows after the last are after the last row.
+     */
+    private boolean moveTo( int target ) throws SQLException {
+        fetchUntil( target );
+        onRow = false;
+        if ( target < 1 ){
+            rowNumber = 0;
+            setCurrent( null );
+            return false;
+        }
+        if ( target > rowStore.size() ){
+            rowNumber = rowStore.size() + 1;
+            setCurrent( null );
+            return false;
+        }
+        rowNumber = target;
+        onRow = true;
+        try {
+            setCurrent( rowStore.get( target - 1 ));
+        } catch ( IOException ex ){
+            throw new SQLException( ex.getMessage(), ex );
+        }
+        return true;
+    }
+
+    /**
+     * Count the cursor in the given counter until the result set is closed or read to the end.
+     */
+    public ResultSetIterator countCursor( AtomicInteger openCursors ){
+        if ( iterator instanceof AutoCloseable && !isExhausted && !isClosed && this.openCursors == null ){
+            this.openCursors = openCursors;
+            openCursors.incrementAndGet();
+        }
+        return this;
+    }
+
+    private void releaseCursor(){
+        if ( openCursors != null ){
+            openCursors.decrementAndGet();
+            openCursors = null;
         }
-        return false;
     }
 
     @Override
     public void close() throws SQLException {
+        if ( isClosed ){
+            return;
+        }
+        isClosed = true;
+        current = null;
+        readAhead.clear();
+        if ( rowStore != null ){
+            try {
+                rowStore.close();
+            } catch ( IOException ex ){
+                // THE TEMPORARY FILE IS DELETED ON EXIT
+            }
+        }
+        releaseCursor();
+        if ( iterator instanceof AutoCloseable ){
+            try {
+                ((AutoCloseable)iterator).close();
+            } catch ( Exception ex ){
+                throw new SQLException( ex.getMessage(), ex );
+            }
+        }
+    }
+
+    private void checkClosed() throws SQLException {
+        if ( isClosed ){
+            throw new SQLException("ResultSet was previously closed.");
+        }
     }
 
     @Override
     public ResultSetMetaData getMetaData() throws SQLException {
+        if ( metaData != null ){
+            return metaData;
+        }
         final String[] columnNames = new String[metaColumnsNames.size()];
         final int[] columnTypes = new int[metaColumnsNames.size()];
         final int[] displaySize = new int[metaColumnsNames.size()];
@@ -131,123 +479,78 @@ public class ResultSetIterator implements ResultSet {
             displaySize[i] = metaDisplaySize.get(i);
             i++;
         }
-        return new MongoResultSetMetaData("Result", columnNames, columnTypes, displaySize );
+        return metaData = new MongoResultSetMetaData("Result", columnNames, columnTypes, displaySize );
     }
 
     @Override
-    public boolean wasNull()  {
-        return false;
+    public boolean wasNull() {
+        return wasNull;
     }
 
     @Override
-    public String getString(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            return String.valueOf( ((Map)current).get( metaColumnsNames.get(columnIndex-1)));
-        }
-        return null;
+    public String getString(int columnIndex) throws SQLException {
+        return ValueConverter.toString( getValue( columnIndex ));
     }
 
     @Override
-    public boolean getBoolean(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-            if ( obj instanceof Boolean ) return (Boolean) obj;
-            return obj != null ? Boolean.valueOf( String.valueOf(obj) ) : false;
-
-        }
-        return false;
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        return ValueConverter.toBoolean( getValue( columnIndex ));
     }
 
     @Override
     public byte getByte(int columnIndex) throws SQLException {
-        return 0;
+        return ValueConverter.toByte( getValue( columnIndex ));
     }
 
     @Override
-    public short getShort(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-            if ( obj instanceof Number ) return ((Number) obj).shortValue();
-            return obj != null ? Short.valueOf( String.valueOf(obj) ) : -1;
-
-        }
-        return 0;
+    public short getShort(int columnIndex) throws SQLException {
+        return ValueConverter.toShort( getValue( columnIndex ));
     }
 
     @Override
-    public int getInt(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-            if ( obj instanceof Number ) return ((Number) obj).intValue();
-            return obj != null ? Integer.valueOf( String.valueOf(obj) ) : -1;
-        }
-        return 0;
+    public int getInt(int columnIndex) throws SQLException {
+        return ValueConverter.toInt( getValue( columnIndex ));
     }
 
     @Override
-    public long getLong(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-            if ( obj instanceof Number ) return ((Number) obj).longValue();
-            return obj != null ? Long.valueOf( String.valueOf(obj) ) : -1;
-        }
-        return 0;
+    public long getLong(int columnIndex) throws SQLException {
+        return ValueConverter.toLong( getValue( columnIndex ));
     }
 
     @Override
-    public float getFloat(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-            if ( obj instanceof Number ) return ((Number) obj).floatValue();
-            return obj != null ? Float.valueOf( String.valueOf(obj) ) : -1f;
-        }
-        return 0;
+    public float getFloat(int columnIndex) throws SQLException {
+        return ValueConverter.toFloat( getValue( columnIndex ));
     }
 
     @Override
-    public double getDouble(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-            if ( obj instanceof Double ) return (Double) obj;
-            return obj != null ? Double.valueOf( obj.toString() ) : -1d;
-        }
-        return 0;
+    public double getDouble(int columnIndex) throws SQLException {
+        return ValueConverter.toDouble( getValue( columnIndex ));
     }
 
     @Override
-    public BigDecimal getBigDecimal(int columnIndex, int scale) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex-1));
-            if ( obj instanceof BigDecimal ) return (BigDecimal) obj;
-            return  null;
-        }
-        return null;
+    public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+        final BigDecimal value = ValueConverter.toBigDecimal( getValue( columnIndex ));
+        return value != null ? value.setScale( scale, RoundingMode.HALF_UP ) : null;
     }
 
     @Override
-    public byte[] getBytes(int columnIndex)  {
-        return new byte[0];
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        return ValueConverter.toBytes( getValue( columnIndex ));
     }
 
     @Override
-    public Date getDate(int columnIndex) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( metaColumnsNames.get(columnIndex));
-            if ( obj instanceof Date ) return (Date)obj;
-            if ( obj instanceof java.util.Date ) return new Date( ((java.util.Date)obj).getTime() );
-            return obj != null ? Date.valueOf( String.valueOf( obj ) ) : null;
-        }
-        return null;
+    public Date getDate(int columnIndex) throws SQLException {
+        return ValueConverter.toDate( getValue( columnIndex ));
     }
 
     @Override
     public Time getTime(int columnIndex) throws SQLException {
-        return null;
+        return ValueConverter.toTime( getValue( columnIndex ));
     }
 
     @Override
     public Timestamp getTimestamp(int columnIndex) throws SQLException {
-        return null;
+        return ValueConverter.toTimestamp( getValue( columnIndex ));
     }
 
     @Override
@@ -267,113 +570,68 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public String getString(String columnLabel) throws SQLException {
-        if ( expandResultSet && current instanceof Map ){
-            return String.valueOf( ((Map)current).get( columnLabel));
-        }
-        return null;
+        return ValueConverter.toString( getValue( columnLabel ));
     }
 
     @Override
-    public boolean getBoolean(String columnLabel) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( columnLabel);
-            if ( obj == null ) return false;
-            if ( obj instanceof Boolean ) return (Boolean)obj;
-            return Boolean.valueOf( obj.toString() );
-        }
-        return false;
+    public boolean getBoolean(String columnLabel) throws SQLException {
+        return ValueConverter.toBoolean( getValue( columnLabel ));
     }
 
     @Override
-    public byte getByte(String columnLabel) {
-        return 0;
+    public byte getByte(String columnLabel) throws SQLException {
+        return ValueConverter.toByte( getValue( columnLabel ));
     }
 
     @Override
-    public short getShort(String columnLabel) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( columnLabel);
-            if ( obj == null ) return -1;
-            if ( obj instanceof Number ) return ((Number)obj).shortValue();
-            return Short.valueOf( obj.toString() );
-        }
-        return -1;
+    public short getShort(String columnLabel) throws SQLException {
+        return ValueConverter.toShort( getValue( columnLabel ));
     }
 
     @Override
-    public int getInt(String columnLabel) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( columnLabel);
-            if ( obj == null ) return -1;
-            if ( obj instanceof Number ) return ((Number)obj).intValue();
-            return Integer.valueOf( obj.toString() );
-        }
-        return -1;
+    public int getInt(String columnLabel) throws SQLException {
+        return ValueConverter.toInt( getValue( columnLabel ));
     }
 
     @Override
-    public long getLong(String columnLabel) {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( columnLabel);
-            if ( obj == null ) return -1;
-            if ( obj instanceof Number ) return ((Number)obj).longValue();
-            return Long.valueOf( obj.toString() );
-        }
-        return -1;
+    public long getLong(String columnLabel) throws SQLException {
+        return ValueConverter.toLong( getValue( columnLabel ));
     }
 
     @Override
-    public float getFloat(String columnLabel)  {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( columnLabel);
-            if ( obj == null ) return -1;
-            if ( obj instanceof Number ) return ((Number)obj).floatValue();
-            return Float.valueOf( obj.toString() );
-        }
-        return -1f;
+    public float getFloat(String columnLabel) throws SQLException {
+        return ValueConverter.toFloat( getValue( columnLabel ));
     }
 
     @Override
-    public double getDouble(String columnLabel) {
-        if ( expandResultSet && expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( columnLabel);
-            if ( obj == null ) return -1;
-            if ( obj instanceof Number ) return ((Number)obj).doubleValue();
-            return Double.valueOf( obj.toString() );
-        }
-        return -1d;
+    public double getDouble(String columnLabel) throws SQLException {
+        return ValueConverter.toDouble( getValue( columnLabel ));
     }
 
     @Override
-    public BigDecimal getBigDecimal(String columnLabel, int scale)  {
-        return null;
+    public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+        final BigDecimal value = ValueConverter.toBigDecimal( getValue( columnLabel ));
+        return value != null ? value.setScale( scale, RoundingMode.HALF_UP ) : null;
     }
 
     @Override
-    public byte[] getBytes(String columnLabel) {
-        return new byte[0];
+    public byte[] getBytes(String columnLabel) throws SQLException {
+        return ValueConverter.toBytes( getValue( columnLabel ));
     }
 
     @Override
-    public Date getDate(String columnLabel)  {
-        if ( expandResultSet && current instanceof Map ){
-            Object obj = ((Map)current).get( columnLabel);
-            if ( obj == null ) return null;
-            if ( obj instanceof Date ) return (Date)obj;
-            if ( obj instanceof java.util.Date ) return new Date( ((java.util.Date)obj).getTime() );
-            return Date.valueOf( obj.toString() );
-        }
-        return null;
+    public Date getDate(String columnLabel) throws SQLException {
+        return ValueConverter.toDate( getValue( columnLabel ));
     }
 
     @Override
     public Time getTime(String columnLabel) throws SQLException {
-        return null;
+        return ValueConverter.toTime( getValue( columnLabel ));
     }
 
     @Override
     public Timestamp getTimestamp(String columnLabel) throws SQLException {
-        return null;
+        return ValueConverter.toTimestamp( getValue( columnLabel ));
     }
 
     @Override
@@ -407,16 +665,17 @@ public class ResultSetIterator implements ResultSet {
     }
 
     @Override
-    public Object getObject(String columnLabel) {
-        if ( expandResultSet && current instanceof Map ){
-            return ((Map)current).get( columnLabel);
-        }
-        return current;
+    public Object getObject(String columnLabel) throws SQLException {
+        return ValueConverter.decode( getValue( columnLabel ));
     }
 
     @Override
     public int findColumn(String columnLabel) throws SQLException {
-        return 0;
+        final Integer index = metaColumnsIndex.get( columnLabel );
+        if ( index == null ){
+            throw new SQLException("Column '" + columnLabel + "' not found.");
+        }
+        return index + 1;
     }
 
     @Override
@@ -431,72 +690,92 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
-        return null;
+        return ValueConverter.toBigDecimal( getValue( columnIndex ));
     }
 
     @Override
     public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
-        return null;
+        return ValueConverter.toBigDecimal( getValue( columnLabel ));
     }
 
     @Override
     public boolean isBeforeFirst() throws SQLException {
-        return false;
+        if ( rowNumber != 0 ) return false;
+        if ( rowStore != null ){
+            fetchUntil( 1 );
+            return rowStore.size() > 0;
+        }
+        return !readAhead.isEmpty() || ( !isExhausted && iterator != null && iterator.hasNext() );
     }
 
     @Override
     public boolean isAfterLast() throws SQLException {
-        return false;
+        return !onRow && rowNumber > 0 && isExhausted && readAhead.isEmpty();
     }
 
     @Override
     public boolean isFirst() throws SQLException {
-        return false;
+        return onRow && rowNumber == 1;
     }
 
     @Override
     public boolean isLast() throws SQLException {
-        return false;
+        checkScrollable();
+        fetchUntil( rowNumber + 1 );
+        return onRow && rowNumber == rowStore.size();
     }
 
     @Override
     public void beforeFirst() throws SQLException {
-
+        checkScrollable();
+        moveTo( 0 );
     }
 
     @Override
     public void afterLast() throws SQLException {
-
+        checkScrollable();
+        fetchAll();
+        moveTo( rowStore.size() + 1 );
     }
 
     @Override
     public boolean first() throws SQLException {
-        return false;
+        checkScrollable();
+        return moveTo( 1 );
     }
 
     @Override
     public boolean last() throws SQLException {
-        return false;
+        checkScrollable();
+        fetchAll();
+        return moveTo( rowStore.size() );
     }
 
     @Override
     public int getRow() throws SQLException {
-        return 0;
+        return onRow ? rowNumber : 0;
     }
 
     @Override
     public boolean absolute(int row) throws SQLException {
-        return false;
+        checkScrollable();
+        if ( row < 0 ){
+            fetchAll();
+            return moveTo( Math.max( 0, rowStore.size() + 1 + row ));
+        }
+        return moveTo( row );
     }
 
     @Override
     public boolean relative(int rows) throws SQLException {
-        return false;
+        checkScrollable();
+        return moveTo( Math.max( 0, rowNumber + rows ));
     }
 
     @Override
     public boolean previous() throws SQLException {
-        return false;
+        checkScrollable();
+        return moveTo( Math.max( 0, rowNumber - 1 ));
     }
 
     @Override
@@ -521,7 +800,7 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public int getType() throws SQLException {
-        return 0;
+        return rowStore != null ? ResultSet.TYPE_SCROLL_INSENSITIVE : ResultSet.TYPE_FORWARD_ONLY;
     }
 
     @Override
@@ -826,32 +1105,38 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public Date getDate(int columnIndex, Calendar cal) throws SQLException {
-        return null;
+        // THE DATES ARE STORED IN UTC, AS MILLISECONDS SINCE EPOCH, SO THE CALENDAR IS NOT NEEDED
+        return ValueConverter.toDate( getValue( columnIndex ));
     }
 
     @Override
     public Date getDate(String columnLabel, Calendar cal) throws SQLException {
-        return null;
+        // THE DATES ARE STORED IN UTC, AS MILLISECONDS SINCE EPOCH, SO THE CALENDAR IS NOT NEEDED
+        return ValueConverter.toDate( getValue( columnLabel ));
     }
 
     @Override
     public Time getTime(int columnIndex, Calendar cal) throws SQLException {
-        return null;
+        // THE DATES ARE STORED IN UTC, AS MILLISECONDS SINCE EPOCH, SO THE CALENDAR IS NOT NEEDED
+        return ValueConverter.toTime( getValue( columnIndex ));
     }
 
     @Override
     public Time getTime(String columnLabel, Calendar cal) throws SQLException {
-        return null;
+        // THE DATES ARE STORED IN UTC, AS MILLISECONDS SINCE EPOCH, SO THE CALENDAR IS NOT NEEDED
+        return ValueConverter.toTime( getValue( columnLabel ));
     }
 
     @Override
     public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
-        return null;
+        // THE DATES ARE STORED IN UTC, AS MILLISECONDS SINCE EPOCH, SO THE CALENDAR IS NOT NEEDED
+        return ValueConverter.toTimestamp( getValue( columnIndex ));
     }
 
     @Override
     public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
-        return null;
+        // THE DATES ARE STORED IN UTC, AS MILLISECONDS SINCE EPOCH, SO THE CALENDAR IS NOT NEEDED
+        return ValueConverter.toTimestamp( getValue( columnLabel ));
     }
 
     @Override
@@ -931,7 +1216,7 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public boolean isClosed() throws SQLException {
-        return false;
+        return isClosed;
     }
 
     @Override
@@ -986,12 +1271,12 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public String getNString(int columnIndex) throws SQLException {
-        return null;
+        return ValueConverter.toString( getValue( columnIndex ));
     }
 
     @Override
     public String getNString(String columnLabel) throws SQLException {
-        return null;
+        return ValueConverter.toString( getValue( columnLabel ));
     }
 
     @Override
@@ -1146,12 +1431,12 @@ public class ResultSetIterator implements ResultSet {
 
     @Override
     public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
-        return null;
+        return ValueConverter.toObject( getValue( columnIndex ), type );
     }
 
     @Override
     public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
-        return null;
+        return ValueConverter.toObject( getValue( columnLabel ), type );
     }
 
     @Override
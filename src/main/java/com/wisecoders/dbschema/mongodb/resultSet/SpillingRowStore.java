@@ -0,0 +1,105 @@
+package com.wisecoders.dbschema.mongodb.resultSet;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The rows already read by a scrollable ResultSet. The first 'memoryRows' rows are kept on heap.
+ * The next rows are written as BSON to a temporary file and read back by their offset, so scrolling over a large result
+ * does not keep it on heap. Each row is stored as the document { v: row }, so also values which are not documents can be stored.
+ * Rows read back from the file are Document, also if they were RawBsonDocument.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+class SpillingRowStore implements AutoCloseable {
+
+    private final int memoryRows;
+    private final List<Object> heapRows = new ArrayList<>();
+    private File file;
+    private FileChannel channel;
+    // START OF EACH SPILLED ROW IN THE FILE. THE END IS THE START OF THE NEXT ROW, OR fileSize
+    private long[] offsets = new long[0];
+    private int spilledRows = 0;
+    private long fileSize = 0;
+
+    SpillingRowStore( int memoryRows ){
+        this.memoryRows = Math.max( 0, memoryRows );
+    }
+
+    int size(){
+        return heapRows.size() + spilledRows;
+    }
+
+    void add( Object row ) throws IOException {
+        if ( heapRows.size() < memoryRows ){
+            heapRows.add( row );
+            return;
+        }
+        if ( channel == null ){
+            file = File.createTempFile("mongodb-jdbc-rows", ".bson");
+            file.deleteOnExit();
+            channel = FileChannel.open( file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE );
+        }
+        final BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try ( BsonBinaryWriter writer = new BsonBinaryWriter( buffer )){
+            ValueConverter.DOCUMENT_CODEC.encode( writer, new Document("v", row ), EncoderContext.builder().build() );
+        }
+        if ( spilledRows == offsets.length ){
+            offsets = Arrays.copyOf( offsets, Math.max( 1024, offsets.length * 2 ));
+        }
+        offsets[ spilledRows++ ] = fileSize;
+        final ByteBuffer bytes = ByteBuffer.wrap( buffer.toByteArray() );
+        while ( bytes.hasRemaining() ){
+            fileSize += channel.write( bytes, fileSize );
+        }
+    }
+
+    /**
+     * @param index the row index, from 0
+     */
+    Object get( int index ) throws IOException {
+        if ( index < heapRows.size() ){
+            return heapRows.get( index );
+        }
+        final int spilled = index - heapRows.size();
+        final long start = offsets[ spilled ];
+        final long end = spilled + 1 < spilledRows ? offsets[ spilled + 1 ] : fileSize;
+        final ByteBuffer bytes = ByteBuffer.allocate( (int)( end - start )).order( ByteOrder.LITTLE_ENDIAN );
+        while ( bytes.hasRemaining() ){
+            if ( channel.read( bytes, start + bytes.position() ) < 0 ) break;
+        }
+        bytes.flip();
+        try ( BsonBinaryReader reader = new BsonBinaryReader( bytes )){
+            return ValueConverter.DOCUMENT_CODEC.decode( reader, DecoderContext.builder().build() ).get("v");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        heapRows.clear();
+        offsets = new long[0];
+        spilledRows = 0;
+        if ( channel != null ){
+            channel.close();
+            channel = null;
+            if ( file != null && file.exists() ){
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.wisecoders.dbschema.mongodb.resultSet;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.*;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.types.Binary;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.*;
+
+/**
+ * Conversion of the document values to the types asked by the ResultSet getters.
+ * The values are the Java types of the decoded documents: Integer for int32, Long for int64, Double, Decimal128,
+ * java.util.Date for date, BsonTimestamp for timestamp, Boolean and String. The raw documents give BsonValue,
+ * which are converted by their BSON type without decoding them first.
+ *
+ * Matching types are returned directly, without boxing or intermediate strings. Strings are parsed only if the value is a string.
+ * Values which cannot be converted throw SQLException with SQLState 22018, numbers out of the range of the asked type with SQLState 22003.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+final class ValueConverter {
+
+    static final Codec<Document> DOCUMENT_CODEC = MongoClientSettings.getDefaultCodecRegistry().get( Document.class );
+
+    private ValueConverter(){
+    }
+
+    static boolean isNull( Object value ){
+        return value == null || ( value instanceof BsonValue && ((BsonValue)value).isNull());
+    }
+
+    /**
+     * Decode a BsonValue to the same Java types as Document. Other values are returned as they are.
+     */
+    static Object decode( Object value ){
+        if ( !( value instanceof BsonValue )) return value;
+        final BsonValue bsonValue = (BsonValue)value;
+        switch ( bsonValue.getBsonType() ){
+            case NULL: return null;
+            case STRING: return bsonValue.asString().getValue();
+            case INT32: return bsonValue.asInt32().getValue();
+            case INT64: return bsonValue.asInt64().getValue();
+            case DOUBLE: return bsonValue.asDouble().getValue();
+            case BOOLEAN: return bsonValue.asBoolean().getValue();
+            case OBJECT_ID: return bsonValue.asObjectId().getValue();
+            case DATE_TIME: return new java.util.Date( bsonValue.asDateTime().getValue() );
+            case DECIMAL128: return bsonValue.asDecimal128().getValue();
+            case TIMESTAMP: return bsonValue.asTimestamp();
+            default:
+                return DOCUMENT_CODEC.decode( new BsonDocumentReader( new BsonDocument("v", bsonValue )), DecoderContext.builder().build() ).get("v");
+        }
+    }
+
+    static String toString( Object value ){
+        if ( value instanceof String ) return (String)value;
+        if ( value instanceof BsonString ) return ((BsonString)value).getValue();
+        value = decode( value );
+        return value != null ? String.valueOf( value ) : null;
+    }
+
+    static boolean toBoolean( Object value ) throws SQLException {
+        if ( value instanceof Boolean ) return (Boolean)value;
+        if ( value instanceof BsonValue ){
+            final BsonValue bsonValue = (BsonValue)value;
+            switch ( bsonValue.getBsonType() ){
+                case NULL: return false;
+                case BOOLEAN: return bsonValue.asBoolean().getValue();
+                case INT32: return bsonValue.asInt32().getValue() != 0;
+                case INT64: return bsonValue.asInt64().getValue() != 0;
+                case DOUBLE: return bsonValue.asDouble().getValue() != 0;
+                default: value = decode( value );
+            }
+        }
+        if ( value == null ) return false;
+        if ( value instanceof Number ) return ((Number)value).doubleValue() != 0;
+        if ( value instanceof String ){
+            final String str = ((String)value).trim();
+            if ( "true".equalsIgnoreCase( str ) || "1".equals( str )) return true;
+            if ( "false".equalsIgnoreCase( str ) || "0".equals( str )) return false;
+        }
+        throw conversionError( value, "boolean" );
+    }
+
+    static byte toByte( Object value ) throws SQLException {
+        final long number = toLong( value );
+        if ( number < Byte.MIN_VALUE || number > Byte.MAX_VALUE ) throw rangeError( number, "byte" );
+        return (byte)number;
+    }
+
+    static short toShort( Object value ) throws SQLException {
+        final long number = toLong( value );
+        if ( number < Short.MIN_VALUE || number > Short.MAX_VALUE ) throw rangeError( number, "short" );
+        return (short)number;
+    }
+
+    static int toInt( Object value ) throws SQLException {
+        if ( value instanceof Integer ) return (Integer)value;
+        if ( value instanceof BsonInt32 ) return ((BsonInt32)value).getValue();
+        final long number = toLong( value );
+        if ( number < Integer.MIN_VALUE || number > Integer.MAX_VALUE ) throw rangeError( number, "int" );
+        return (int)number;
+    }
+
+    static long toLong( Object value ) throws SQLException {
+        if ( value instanceof BsonValue ){
+            final BsonValue bsonValue = (BsonValue)value;
+            switch ( bsonValue.getBsonType() ){
+                case NULL: return 0;
+                case INT32: return bsonValue.asInt32().getValue();
+                case INT64: return bsonValue.asInt64().getValue();
+                case DOUBLE: return (long)bsonValue.asDouble().getValue();
+                case DECIMAL128: return bsonValue.asDecimal128().getValue().longValue();
+                case BOOLEAN: return bsonValue.asBoolean().getValue() ? 1 : 0;
+                case DATE_TIME: return bsonValue.asDateTime().getValue();
+                default: value = decode( value );
+            }
+        }
+        if ( value == null ) return 0;
+        if ( value instanceof Number ) return ((Number)value).longValue();
+        if ( value instanceof Boolean ) return (Boolean)value ? 1 : 0;
+        if ( value instanceof java.util.Date ) return ((java.util.Date)value).getTime();
+        if ( value instanceof String ){
+            try {
+                return Long.parseLong( ((String)value).trim() );
+            } catch ( NumberFormatException ex ){
+                throw conversionError( value, "long" );
+            }
+        }
+        throw conversionError( value, "long" );
+    }
+
+    static float toFloat( Object value ) throws SQLException {
+        return (float)toDouble( value );
+    }
+
+    static double toDouble( Object value ) throws SQLException {
+        if ( value instanceof Double ) return (Double)value;
+        if ( value instanceof BsonValue ){
+            final BsonValue bsonValue = (BsonValue)value;
+            switch ( bsonValue.getBsonType() ){
+                case NULL: return 0;
+                case DOUBLE: return bsonValue.asDouble().getValue();
+                case INT32: return bsonValue.asInt32().getValue();
+                case INT64: return bsonValue.asInt64().getValue();
+                case DECIMAL128: return bsonValue.asDecimal128().getValue().doubleValue();
+                case BOOLEAN: return bsonValue.asBoolean().getValue() ? 1 : 0;
+                default: value = decode( value );
+            }
+        }
+        if ( value == null ) return 0;
+        if ( value instanceof Number ) return ((Number)value).doubleValue();
+        if ( value instanceof Boolean ) return (Boolean)value ? 1 : 0;
+        if ( value instanceof String ){
+            try {
+                return Double.parseDouble( ((String)value).trim() );
+            } catch ( NumberFormatException ex ){
+                throw conversionError( value, "double" );
+            }
+        }
+        throw conversionError( value, "double" );
+    }
+
+    static BigDecimal toBigDecimal( Object value ) throws SQLException {
+        value = decode( value );
+        if ( value == null ) return null;
+        if ( value instanceof BigDecimal ) return (BigDecimal)value;
+        try {
+            if ( value instanceof Decimal128 ) return ((Decimal128)value).bigDecimalValue();
+            if ( value instanceof Double || value instanceof Float ) return BigDecimal.valueOf( ((Number)value).doubleValue() );
+            if ( value instanceof Number ) return BigDecimal.valueOf( ((Number)value).longValue() );
+            if ( value instanceof Boolean ) return (Boolean)value ? BigDecimal.ONE : BigDecimal.ZERO;
+            if ( value instanceof String ) return new BigDecimal( ((String)value).trim() );
+        } catch ( ArithmeticException | NumberFormatException ex ){
+            // NaN OR INFINITY, OR NOT A NUMBER
+        }
+        throw conversionError( value, "BigDecimal" );
+    }
+
+    static byte[] toBytes( Object value ) throws SQLException {
+        if ( value instanceof BsonBinary ) return ((BsonBinary)value).getData();
+        value = decode( value );
+        if ( value == null ) return null;
+        if ( value instanceof byte[] ) return (byte[])value;
+        if ( value instanceof Binary ) return ((Binary)value).getData();
+        throw conversionError( value, "byte[]" );
+    }
+
+    /**
+     * The milliseconds since epoch of a date or timestamp, or null if the value is not a date.
+     */
+    private static Long toMillis( Object value ){
+        if ( value instanceof java.util.Date ) return ((java.util.Date)value).getTime();
+        if ( value instanceof BsonDateTime ) return ((BsonDateTime)value).getValue();
+        if ( value instanceof BsonTimestamp ) return ((BsonTimestamp)value).getTime() * 1000L;
+        if ( value instanceof Long ) return (Long)value;
+        if ( value instanceof BsonInt64 ) return ((BsonInt64)value).getValue();
+        return null;
+    }
+
+    static Timestamp toTimestamp( Object value ) throws SQLException {
+        if ( value instanceof Timestamp ) return (Timestamp)value;
+        final Long millis = toMillis( value );
+        if ( millis != null ) return new Timestamp( millis );
+        value = decode( value );
+        if ( value == null ) return null;
+        if ( value instanceof String ){
+            final String str = ((String)value).trim();
+            try {
+                return Timestamp.from( Instant.parse( str ));
+            } catch ( DateTimeException ex ){
+                try {
+                    return Timestamp.valueOf( str );
+                } catch ( IllegalArgumentException ex2 ){
+                    // NOT A TIMESTAMP
+                }
+            }
+        }
+        throw conversionError( value, "Timestamp" );
+    }
+
+    static Date toDate( Object value ) throws SQLException {
+        if ( value instanceof Date ) return (Date)value;
+        final Long millis = toMillis( value );
+        if ( millis != null ) return new Date( millis );
+        value = decode( value );
+        if ( value instanceof String ){
+            try {
+                return Date.valueOf( ((String)value).trim() );
+            } catch ( IllegalArgumentException ex ){
+                return new Date( toTimestamp( value ).getTime() );
+            }
+        }
+        if ( value == null ) return null;
+        throw conversionError( value, "Date" );
+    }
+
+    static Time toTime( Object value ) throws SQLException {
+        if ( value instanceof Time ) return (Time)value;
+        final Long millis = toMillis( value );
+        if ( millis != null ) return new Time( millis );
+        value = decode( value );
+        if ( value instanceof String ){
+            try {
+                return Time.valueOf( ((String)value).trim() );
+            } catch ( IllegalArgumentException ex ){
+                return new Time( toTimestamp( value ).getTime() );
+            }
+        }
+        if ( value == null ) return null;
+        throw conversionError( value, "Time" );
+    }
+
+    /**
+     * The conversion for ResultSet.getObject( column, Class ).
+     */
+    static <T> T toObject( Object value, Class<T> type ) throws SQLException {
+        if ( type == null ){
+            throw new SQLException("The type is null.");
+        }
+        if ( isNull( value )) return null;
+        if ( type.isInstance( value )) return type.cast( value );
+        if ( type == String.class ) return type.cast( toString( value ));
+        final Class<T> boxedType = boxed( type );
+        if ( type == Integer.class || type == int.class ) return boxedType.cast( toInt( value ));
+        if ( type == Long.class || type == long.class ) return boxedType.cast( toLong( value ));
+        if ( type == Double.class || type == double.class ) return boxedType.cast( toDouble( value ));
+        if ( type == Float.class || type == float.class ) return boxedType.cast( toFloat( value ));
+        if ( type == Short.class || type == short.class ) return boxedType.cast( toShort( value ));
+        if ( type == Byte.class || type == byte.class ) return boxedType.cast( toByte( value ));
+        if ( type == Boolean.class || type == boolean.class ) return boxedType.cast( toBoolean( value ));
+        if ( type == BigDecimal.class ) return type.cast( toBigDecimal( value ));
+        if ( type == byte[].class ) return type.cast( toBytes( value ));
+        if ( type == Timestamp.class ) return type.cast( toTimestamp( value ));
+        if ( type == Date.class ) return type.cast( toDate( value ));
+        if ( type == Time.class ) return type.cast( toTime( value ));
+        if ( type == java.util.Date.class ) return type.cast( new java.util.Date( toTimestamp( value ).getTime() ));
+        if ( type == Instant.class ) return type.cast( toTimestamp( value ).toInstant() );
+        if ( type == LocalDateTime.class ) return type.cast( LocalDateTime.ofInstant( toTimestamp( value ).toInstant(), ZoneOffset.UTC ));
+        if ( type == LocalDate.class ) return type.cast( LocalDateTime.ofInstant( toTimestamp( value ).toInstant(), ZoneOffset.UTC ).toLocalDate() );
+        if ( type == OffsetDateTime.class ) return type.cast( toTimestamp( value ).toInstant().atOffset( ZoneOffset.UTC ));
+        if ( type == ObjectId.class && value instanceof String && ObjectId.isValid( (String)value )) return type.cast( new ObjectId( (String)value ));
+        final Object decoded = decode( value );
+        if ( decoded != value ){
+            return toObject( decoded, type );
+        }
+        throw conversionError( value, type.getName() );
+    }
+
+    /**
+     * The wrapper class for primitive classes, so Class.cast() accepts the boxed value.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Class<T> boxed( Class<T> type ){
+        // int.class IS A Class<Integer>, SO THE WRAPPER HAS THE SAME TYPE PARAMETER
+        if ( type == int.class ) return (Class<T>)Integer.class;
+        if ( type == long.class ) return (Class<T>)Long.class;
+        if ( type == double.class ) return (Class<T>)Double.class;
+        if ( type == float.class ) return (Class<T>)Float.class;
+        if ( type == short.class ) return (Class<T>)Short.class;
+        if ( type == byte.class ) return (Class<T>)Byte.class;
+        if ( type == boolean.class ) return (Class<T>)Boolean.class;
+        return type;
+    }
+
+    private static SQLException conversionError( Object value, String type ){
+        return new SQLException("Cannot convert value of type " + value.getClass().getSimpleName() + " to " + type + ".", "22018" );
+    }
+
+    private static SQLException rangeError( long value, String type ){
+        return new SQLException("Value " + value + " is out of the range of " + type + ".", "22003" );
+    }
+}
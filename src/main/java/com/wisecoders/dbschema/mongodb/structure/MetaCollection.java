@@ -1,15 +1,30 @@
 package com.wisecoders.dbschema.mongodb.structure;
 
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.MongoServerException;
 import com.mongodb.client.ListIndexesIterable;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.wisecoders.dbschema.mongodb.ScanOptions;
 import com.wisecoders.dbschema.mongodb.ScanStrategy;
+import com.wisecoders.dbschema.mongodb.wrappers.WrappedAggregateIterable;
+import com.wisecoders.dbschema.mongodb.wrappers.WrappedFindIterable;
 import com.wisecoders.dbschema.mongodb.wrappers.WrappedMongoCollection;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Decoder;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
@@ -25,6 +40,12 @@ public class MetaCollection extends MetaObject {
 
     public final List<MetaIndex> metaIndexes = new ArrayList<>();
 
+    // NEW FIELDS AND TYPE CHANGES FOUND BY THE SCAN, SEE MetaField.schemaChanged()
+    long schemaChanges;
+    // FOR THE ADAPTIVE SCAN, TRUE IF NO NEW FIELD OR TYPE WAS FOUND IN THE LAST DOCUMENTS OR ALL DOCUMENTS WERE READ.
+    // FALSE IF THE SCAN ON THE SERVER EXCEEDED THE SCAN TIME. NULL FOR OTHER STRATEGIES
+    Boolean scanConverged;
+
     public MetaCollection( final MetaDatabase metaDatabase, final String name, boolean isVirtual) {
         super(null, name );
         this.metaDatabase = metaDatabase;
@@ -45,25 +66,45 @@ public class MetaCollection extends MetaObject {
         return index;
     }
 
-    public MetaCollection scanDocumentsAndIndexes(final WrappedMongoCollection mongoCollection, final ScanStrategy strategy, boolean sortFields ) {
-        scanDocuments( mongoCollection, strategy, sortFields );
+    /**
+     * For the adaptive scan, false if the scan stopped because of the document, time or byte budget before the schema converged.
+     * False also if the scan on the server exceeded the scan time. Null if the collection was scanned with another strategy.
+     */
+    public Boolean getScanConverged(){
+        return scanConverged;
+    }
+
+    public MetaCollection scanDocumentsAndIndexes(final WrappedMongoCollection<?> mongoCollection, final ScanOptions options, boolean sortFields ) {
+        scanDocuments( mongoCollection, options, sortFields );
         scanIndexes( mongoCollection );
         return this;
     }
 
-    private void scanDocuments(final WrappedMongoCollection mongoCollection, ScanStrategy strategy, boolean sortFields ) {
+    private void scanDocuments(final WrappedMongoCollection<?> mongoCollection, final ScanOptions options, boolean sortFields ) {
         long scanStartTime = System.currentTimeMillis();
-        long cnt = scan(mongoCollection, strategy, true, sortFields);
-        if ( getFieldCount() < 400 && cnt == strategy.SCAN_COUNT && strategy != ScanStrategy.full ){
-            cnt +=scan(mongoCollection, strategy, false, sortFields);;
+        final long deadline = options.getDeadline( scanStartTime );
+        final long sampleSize = options.getSampleSize();
+        long cnt;
+        if ( options.isServerSide() && scanOnServer( mongoCollection, options, deadline, sortFields )){
+            LOGGER.log( Level.INFO, "Scanned " + mongoCollection + " on the server, " + getFieldCount() + " fields in " + ( System.currentTimeMillis() - scanStartTime ) + "ms" );
+            return;
+        } else if ( options.strategy == ScanStrategy.sample ){
+            cnt = scanSample( mongoCollection, sampleSize, deadline, sortFields );
+        } else if ( options.strategy == ScanStrategy.adaptive ){
+            cnt = scanAdaptive( mongoCollection, options, deadline, sortFields );
+        } else {
+            cnt = scan(mongoCollection, sampleSize, deadline, true, sortFields);
+            if ( getFieldCount() < 400 && cnt == sampleSize && options.strategy != ScanStrategy.full && System.currentTimeMillis() < deadline ){
+                cnt +=scan(mongoCollection, sampleSize, deadline, false, sortFields);
+            }
         }
         LOGGER.log( Level.INFO, "Scanned " + mongoCollection + " " + cnt + " documents, " + getFieldCount() + " fields in " + ( System.currentTimeMillis() - scanStartTime ) + "ms" );
     }
 
-    private long scan(WrappedMongoCollection mongoCollection, ScanStrategy strategy, boolean directionUp, boolean sortFields ) {
+    private long scan(WrappedMongoCollection<?> mongoCollection, long sampleSize, long deadline, boolean directionUp, boolean sortFields ) {
         long cnt = 0;
-        try ( MongoCursor cursor = mongoCollection.find().sort("{_id:" + (directionUp ? "1" : "-1") + "}" ).iterator() ) {
-            while (cursor.hasNext() && cnt < strategy.SCAN_COUNT) {
+        try ( MongoCursor<?> cursor = mongoCollection.find().sort("{_id:" + (directionUp ? "1" : "-1") + "}" ).iterator() ) {
+            while (cursor.hasNext() && cnt < sampleSize && System.currentTimeMillis() < deadline ) {
                 scanDocument(cursor.next(), sortFields, 0);
                 cnt++;
             }
@@ -71,11 +112,223 @@ public class MetaCollection extends MetaObject {
         return cnt;
     }
 
+    /**
+     * Deduce the fields using SchemaAggregation. The strategy selects the scanned documents: the first ones by _id, a $sample or all.
+     * Returns false if the server rejected the pipeline, for example servers older than 3.6.
+     * If the pipeline exceeds the scan time, the first TIMEOUT_FALLBACK_DOCUMENTS documents are read instead and the scan is marked as not converged.
+     */
+    private boolean scanOnServer(WrappedMongoCollection<?> mongoCollection, ScanOptions options, long deadline, boolean sortFields ) {
+        final List<Document> pipeline = new ArrayList<>();
+        if ( options.strategy == ScanStrategy.sample ){
+            pipeline.add( new Document("$sample", new Document("size", options.getSampleSize())));
+        } else if ( options.strategy != ScanStrategy.full ){
+            pipeline.add( new Document("$sort", new Document("_id", 1 )));
+            pipeline.add( new Document("$limit", options.getSampleSize()));
+        }
+        pipeline.addAll( SchemaAggregation.buildPipeline( SchemaAggregation.DEFAULT_DEPTH ));
+        final WrappedAggregateIterable<?> iterable = mongoCollection.aggregate( pipeline ).allowDiskUse( true );
+        if ( deadline != Long.MAX_VALUE ){
+            iterable.maxTime( Math.max( 1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS );
+        }
+        final List<Document> results = new ArrayList<>();
+        try ( MongoCursor<?> cursor = iterable.iterator() ) {
+            while ( cursor.hasNext() ){
+                results.add( (Document)cursor.next() );
+            }
+        } catch ( MongoExecutionTimeoutException ex ){
+            // THE SCAN TIME IS SPENT. READ A FEW DOCUMENTS BY _id, SO THE COLLECTION HAS A PARTIAL SCHEMA
+            scanConverged = false;
+            final long cnt = scan( mongoCollection, Math.min( options.getSampleSize(), TIMEOUT_FALLBACK_DOCUMENTS ), Long.MAX_VALUE, true, sortFields );
+            LOGGER.log( Level.WARNING, "Scan on server of " + mongoCollection + " exceeded the scan time of " + options.getTimeBudgetMs() + "ms. " +
+                    "Read the first " + cnt + " documents instead. Some fields may be missing." );
+            return true;
+        } catch ( MongoServerException ex ){
+            LOGGER.log( Level.INFO, "Scan on server failed for " + mongoCollection + ". Reading the documents.", ex );
+            return false;
+        }
+        SchemaAggregation.merge( this, results, sortFields );
+        return true;
+    }
+
+    // DOCUMENTS READ WHEN THE SCAN ON THE SERVER EXCEEDED THE SCAN TIME
+    private static final long TIMEOUT_FALLBACK_DOCUMENTS = 100;
+    // $sample READS RANDOM DOCUMENTS USING A RANDOM CURSOR ONLY IF THE SAMPLE IS LESS THAN 5% OF THE COLLECTION, OTHERWISE IT SORTS THE FULL COLLECTION
+    private static final double SAMPLE_RANDOM_CURSOR_RATIO = 0.05;
+    // DOCUMENTS READ FROM EACH RANDOM _id POSITION
+    private static final int PROBE_DOCUMENTS = 10;
+    // THE RANDOM _id POSITIONS ARE SORTED BEFORE READING, SO THEIR NUMBER IS LIMITED
+    private static final int MAX_PROBES = 100000;
+
+    private long scanSample(WrappedMongoCollection<?> mongoCollection, long sampleSize, long deadline, boolean sortFields ) {
+        long count = -1;
+        try {
+            count = mongoCollection.estimatedDocumentCount();
+        } catch ( Throwable ex ){
+            LOGGER.log( Level.FINE, "Cannot count " + mongoCollection + ". Using $sample.", ex );
+        }
+        if ( count >= 0 && count <= sampleSize ){
+            // SMALL COLLECTION, READ ALL DOCUMENTS
+            return scan( mongoCollection, sampleSize, deadline, true, sortFields );
+        }
+        if ( count >= 0 && sampleSize >= count * SAMPLE_RANDOM_CURSOR_RATIO ){
+            final long cnt = scanIdProbes( mongoCollection, sampleSize, deadline, sortFields );
+            if ( cnt >= 0 ) return cnt;
+        }
+        long cnt = 0;
+        final WrappedAggregateIterable<?> iterable = mongoCollection.aggregate( Collections.singletonList( new Document("$sample", new Document("size", sampleSize ))));
+        if ( deadline != Long.MAX_VALUE ){
+            iterable.maxTime( Math.max( 1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS );
+        }
+        try ( MongoCursor<?> cursor = iterable.iterator() ) {
+            while (cursor.hasNext() && cnt < sampleSize && System.currentTimeMillis() < deadline ) {
+                scanDocument(cursor.next(), sortFields, 0);
+                cnt++;
+            }
+        } catch ( MongoExecutionTimeoutException ex ){
+            LOGGER.log( Level.INFO, "Sampling " + mongoCollection + " exceeded the scan time after " + cnt + " documents." );
+        }
+        return cnt;
+    }
+
+    /**
+     * Read small ranges of documents starting from random ObjectId values between the first and the last _id.
+     * Uses only the _id index, so it is cheap also for large collections. Returns -1 if _id is not an ObjectId.
+     */
+    private long scanIdProbes(WrappedMongoCollection<?> mongoCollection, long sampleSize, long deadline, boolean sortFields ) {
+        final Object firstId = getBoundaryId( mongoCollection, 1 );
+        final Object lastId = getBoundaryId( mongoCollection, -1 );
+        if ( !( firstId instanceof ObjectId ) || !( lastId instanceof ObjectId )){
+            return -1;
+        }
+        final long fromTime = ((ObjectId)firstId).getTimestamp();
+        final long timeRange = ((ObjectId)lastId).getTimestamp() - fromTime + 1;
+        final Random random = new Random();
+        final ObjectId[] probeIds = new ObjectId[ (int)Math.min( MAX_PROBES, 2 * ( sampleSize / PROBE_DOCUMENTS + 1 )) ];
+        for ( int i = 0; i < probeIds.length; i++ ){
+            probeIds[ i ] = new ObjectId( new Date( ( fromTime + (long)( random.nextDouble() * timeRange )) * 1000 ), random.nextInt( 0xffffff ));
+        }
+        // THE PROBES ARE READ IN _id ORDER. A PROBE STARTING BEFORE THE LAST READ _id CONTINUES AFTER IT, SO CLUSTERED _id ARE NOT READ TWICE
+        Arrays.sort( probeIds );
+        ObjectId lastReadId = null;
+        long cnt = 0;
+        for ( ObjectId probeId : probeIds ){
+            if ( cnt >= sampleSize || System.currentTimeMillis() >= deadline ){
+                break;
+            }
+            final Bson filter = lastReadId != null && probeId.compareTo( lastReadId ) <= 0 ? Filters.gt("_id", lastReadId ) : Filters.gte("_id", probeId );
+            final WrappedFindIterable<?> iterable = mongoCollection.find().filter( filter ).sort("{_id:1}").limit( PROBE_DOCUMENTS );
+            if ( deadline != Long.MAX_VALUE ){
+                iterable.maxTime( Math.max( 1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS );
+            }
+            long probeCnt = 0;
+            try ( MongoCursor<?> cursor = iterable.iterator() ) {
+                while (cursor.hasNext() && cnt < sampleSize ) {
+                    final Object document = cursor.next();
+                    scanDocument( document, sortFields, 0 );
+                    final Object id = document instanceof Map ? ((Map<?,?>)document).get("_id") : null;
+                    if ( id instanceof ObjectId ) lastReadId = (ObjectId)id;
+                    probeCnt++;
+                    cnt++;
+                }
+            } catch ( MongoExecutionTimeoutException ex ){
+                LOGGER.log( Level.INFO, "Reading " + mongoCollection + " from random _id exceeded the scan time after " + cnt + " documents." );
+                break;
+            }
+            if ( probeCnt == 0 ){
+                // AFTER THE LAST _id. THE NEXT PROBES ARE GREATER, SO THEY FIND NO DOCUMENTS EITHER
+                break;
+            }
+        }
+        return cnt;
+    }
+
+    private Object getBoundaryId( WrappedMongoCollection<?> mongoCollection, int direction ){
+        try ( MongoCursor<?> cursor = mongoCollection.find().projection("{_id:1}").sort("{_id:" + direction + "}").limit( 1 ).iterator() ) {
+            if ( cursor.hasNext() ){
+                final Object document = cursor.next();
+                return document instanceof Map ? ((Map)document).get("_id") : null;
+            }
+        }
+        return null;
+    }
+
+    private long scanAdaptive(WrappedMongoCollection<?> mongoCollection, ScanOptions options, long deadline, boolean sortFields ) {
+        final long sampleSize = options.getSampleSize();
+        long count = -1;
+        try {
+            count = mongoCollection.estimatedDocumentCount();
+        } catch ( Throwable ex ){
+            LOGGER.log( Level.FINE, "Cannot count " + mongoCollection + ".", ex );
+        }
+        // $sample RETURNS AT MOST sampleSize DOCUMENTS, SO READING ALL OF THEM DOES NOT MEAN THE WHOLE COLLECTION WAS READ
+        final boolean useSample = count >= 0 && sampleSize < count * SAMPLE_RANDOM_CURSOR_RATIO;
+        long cnt = 0;
+        // OPENING THE $sample CURSOR RUNS THE AGGREGATION AND READS THE FIRST BATCH, SO IT MAY ALSO EXCEED THE SCAN TIME
+        try ( MongoCursor<RawBsonDocument> rawCursor = openRawCursor( mongoCollection, useSample, sampleSize, deadline )){
+            cnt = scanAdaptive( rawCursor, mongoCollection.getCodecRegistry().get( Document.class ), !useSample, options, deadline, sortFields );
+        } catch ( MongoExecutionTimeoutException ex ){
+            scanConverged = false;
+        }
+        if ( !scanConverged ){
+            LOGGER.log( Level.WARNING, "Scan of " + mongoCollection + " stopped before the schema converged, after " + cnt + " documents. Some fields may be missing." );
+        }
+        return cnt;
+    }
+
+    private MongoCursor<RawBsonDocument> openRawCursor( WrappedMongoCollection<?> mongoCollection, boolean useSample, long sampleSize, long deadline ){
+        if ( useSample ){
+            final WrappedAggregateIterable<?> iterable = mongoCollection.aggregate( Collections.singletonList( new Document("$sample", new Document("size", sampleSize ))));
+            if ( deadline != Long.MAX_VALUE ){
+                iterable.maxTime( Math.max( 1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS );
+            }
+            return iterable.rawIterator();
+        }
+        return mongoCollection.find().rawIterator();
+    }
+
+    /**
+     * Scan documents until no new field or type was found in the last ScanOptions.getStableDocuments() documents,
+     * or the sample size, the deadline or the byte budget is reached, or the server stops the cursor at the deadline. Sets getScanConverged().
+     * @param complete true if the documents are the whole collection, so reading all of them means the scan converged
+     */
+    public long scanAdaptive( Iterator<RawBsonDocument> documents, Decoder<Document> decoder, boolean complete, ScanOptions options, long deadline, boolean sortFields ){
+        final long sampleSize = options.getSampleSize();
+        final long byteBudget = options.getByteBudget();
+        long cnt = 0, bytes = 0, stableDocuments = 0;
+        scanConverged = false;
+        while ( true ){
+            if ( stableDocuments >= options.getStableDocuments() ){
+                scanConverged = true;
+                break;
+            }
+            final RawBsonDocument document;
+            try {
+                if ( !documents.hasNext() ){
+                    scanConverged = complete;
+                    break;
+                }
+                if ( cnt >= sampleSize || System.currentTimeMillis() >= deadline || ( byteBudget > 0 && bytes >= byteBudget )){
+                    break;
+                }
+                document = documents.next();
+            } catch ( MongoExecutionTimeoutException ex ){
+                // THE SERVER STOPPED THE $sample AT THE SCAN TIME. KEEP THE DOCUMENTS READ SO FAR
+                break;
+            }
+            bytes += document.getByteBuffer().remaining();
+            final long changes = schemaChanges;
+            scanDocument( document.decode( decoder ), sortFields, 0 );
+            stableDocuments = schemaChanges == changes ? stableDocuments + 1 : 0;
+            cnt++;
+        }
+        return cnt;
+    }
+
     private static final String KEY_NAME = "name";
     private static final String KEY_UNIQUE = "unique";
     private static final String KEY_KEY = "key";
 
-    public void scanIndexes(final WrappedMongoCollection mongoCollection ){
+    public void scanIndexes(final WrappedMongoCollection<?> mongoCollection ){
         try {
             ListIndexesIterable<Document> iterable = mongoCollection.listIndexes();
             for ( Object indexObject : iterable ){
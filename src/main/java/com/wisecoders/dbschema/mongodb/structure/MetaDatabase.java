@@ -6,6 +6,7 @@ import org.bson.Document;
 import org.bson.types.ObjectId;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
@@ -18,8 +19,10 @@ import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
 public class MetaDatabase {
 
     public final String name;
-    private final Map<String, MetaCollection> metaCollections = new HashMap<>();
+    private final Map<String, MetaCollection> metaCollections = new ConcurrentHashMap<>();
     private boolean referencesDiscovered = false;
+    // REFERENCES TO COLLECTIONS NOT YET LOADED, FROM THE SchemaCache. CREATED WHEN THE COLLECTION IS ADDED
+    private final Map<String, List<MetaField>> pendingReferences = new HashMap<>();
 
     public MetaDatabase( String name ){
         this.name =  name;
@@ -27,10 +30,39 @@ public class MetaDatabase {
 
     public MetaCollection createMetaCollection(String name, boolean isVirtual ){
         MetaCollection metaCollection = new MetaCollection(this, name, isVirtual );
-        metaCollections.put( name, metaCollection);
+        addMetaCollection( metaCollection );
         return metaCollection;
     }
 
+    public void addMetaCollection( MetaCollection metaCollection ){
+        metaCollections.put( metaCollection.name, metaCollection );
+        final List<MetaField> fields;
+        synchronized ( pendingReferences ){
+            fields = pendingReferences.remove( metaCollection.name );
+        }
+        if ( fields != null ){
+            for ( MetaField field : fields ){
+                field.createReferenceTo( metaCollection );
+            }
+        }
+    }
+
+    /**
+     * Create a reference from the field to the collection, now or when the collection is added.
+     */
+    void addReference( MetaField field, String collectionName ){
+        final MetaCollection metaCollection;
+        synchronized ( pendingReferences ){
+            metaCollection = metaCollections.get( collectionName );
+            if ( metaCollection == null ){
+                pendingReferences.computeIfAbsent( collectionName, name -> new ArrayList<>()).add( field );
+            }
+        }
+        if ( metaCollection != null ){
+            field.createReferenceTo( metaCollection );
+        }
+    }
+
     public MetaCollection getMetaCollection(String name ){
         return metaCollections.get( name );
     }
@@ -49,8 +81,13 @@ public class MetaDatabase {
         }
     }
 
-    public void discoverReferences(WrappedMongoDatabase mongoDatabase ){
-        if ( !referencesDiscovered){
+    /**
+     * Returns true if the references are discovered now, false if they were discovered before.
+     */
+    public boolean discoverReferences(WrappedMongoDatabase mongoDatabase ){
+        if ( referencesDiscovered ){
+            return false;
+        } else {
             try {
                 LOGGER.info("Discover relationships in database " + name );
                 referencesDiscovered = true;
@@ -89,6 +126,7 @@ public class MetaDatabase {
             } catch ( Throwable ex ){
                 LOGGER.log( Level.SEVERE, "Error discovering relationships.", ex );
             }
+            return true;
         }
     }
 
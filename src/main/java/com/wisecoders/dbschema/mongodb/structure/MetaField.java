@@ -15,9 +15,10 @@ public class MetaField {
 
     public final MetaObject parentObject;
     public final String name;
-    private Class<?> typeClass;
-    private String typeName;
-    private int javaType = Integer.MIN_VALUE;
+    // PACKAGE PRIVATE FOR THE SchemaCache
+    Class<?> typeClass;
+    String typeName;
+    int javaType = Integer.MIN_VALUE;
     public ObjectId objectId;
     public final List<MetaReference> references = new ArrayList<>();
     private boolean mandatory = true;
@@ -53,7 +54,10 @@ public class MetaField {
         return pkColumnName;
     }
 
-    public MetaReference createReferenceTo(MetaCollection pkCollection){
+    public synchronized MetaReference createReferenceTo(MetaCollection pkCollection){
+        for ( MetaReference reference : references ){
+            if ( reference.pkCollection == pkCollection ) return reference;
+        }
         MetaReference ifk = new MetaReference( this, pkCollection );
         references.add( ifk );
         return ifk;
@@ -111,7 +115,16 @@ public class MetaField {
 
     public void setTypeFromValue( Object value ){
         if ( value != null ) {
-            Class<?> valueCls = value.getClass();
+            setTypeFromClass( value.getClass() );
+        }
+    }
+
+    /**
+     * Merge the class with the type found until now. If the classes differ, the more general one is kept, or Object.
+     */
+    public void setTypeFromClass( Class<?> valueCls ){
+        if ( valueCls != null ) {
+            final Class<?> previousClass = typeClass;
             if ( typeClass == null ) {
                 typeClass = valueCls;
             } else if (typeClass != valueCls) {
@@ -119,9 +132,18 @@ public class MetaField {
                 if (valueCls.isAssignableFrom(typeClass)) typeClass = valueCls;
                 else if (!typeClass.isAssignableFrom(valueCls)) typeClass = Object.class;
             }
+            if ( typeClass != previousClass ) schemaChanged();
         }
     }
 
+    /**
+     * Count a new field or a new type in the collection, used by the adaptive scan to detect when the schema converged.
+     */
+    void schemaChanged(){
+        final MetaCollection metaCollection = getMetaCollection();
+        if ( metaCollection != null ) metaCollection.schemaChanges++;
+    }
+
     public String getTypeName(){
         if ( typeName != null ) {
             return typeName;
@@ -31,9 +31,22 @@ public class MetaObject extends MetaField {
         return null;
     }
 
+    /**
+     * The field with the given path, like 'address.city'.
+     */
+    public MetaField getFieldByPath( String path ){
+        MetaField field = this;
+        for ( String name : path.split("\\.") ){
+            field = field instanceof MetaObject ? ((MetaObject)field).getField( name ) : null;
+            if ( field == null ) return null;
+        }
+        return field;
+    }
+
     public MetaField createField(String name, boolean sortFields ){
         final MetaField field = new MetaField( this, name );
         fields.add( field );
+        schemaChanged();
         if ( sortFields ) {
             Collections.sort(fields, FIELDS_COMPARATOR);
         }
@@ -49,6 +62,7 @@ public class MetaObject extends MetaField {
         field.setJavaType( javaType );
         field.setMandatory( mandatory );
         fields.add( field );
+        schemaChanged();
         if ( sortFields ) {
             Collections.sort(fields, FIELDS_COMPARATOR);
         }
@@ -63,6 +77,7 @@ public class MetaObject extends MetaField {
         json.setTypeName("object");
         json.setJavaType( TYPE_OBJECT );
         fields.add( json );
+        schemaChanged();
         if ( sortFields ){
             Collections.sort( fields, FIELDS_COMPARATOR );
         }
@@ -90,6 +105,7 @@ public class MetaObject extends MetaField {
         json.setJavaType( TYPE_ARRAY );
         json.setMandatory( mandatoryIfNew);
         fields.add( json );
+        schemaChanged();
         if ( sortFields ){
             Collections.sort( fields, FIELDS_COMPARATOR );
         }
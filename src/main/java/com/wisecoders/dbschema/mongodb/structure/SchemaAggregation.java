@@ -0,0 +1,246 @@
+package com.wisecoders.dbschema.mongodb.structure;
+
+import org.bson.BsonDbPointer;
+import org.bson.BsonRegularExpression;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.Code;
+import org.bson.types.CodeWithScope;
+import org.bson.types.Decimal128;
+import org.bson.types.MaxKey;
+import org.bson.types.MinKey;
+import org.bson.types.ObjectId;
+import org.bson.types.Symbol;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deduce the collection structure on the server. The aggregation pipeline splits the documents in path and value pairs
+ * using $objectToArray, descending into objects and arrays of objects, and groups them by path and $type.
+ * Only the distinct path, type pairs with their counts are sent to the client, not the documents.
+ *
+ * The result documents are { _id: { k: path, t: type, a: array element type }, count, elements, objectId },
+ * with one { k: '', t: 'root' } entry counting the documents. merge() adds them to the MetaCollection.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class SchemaAggregation {
+
+    // THE PIPELINE HAS NO RECURSION, EACH LEVEL OF NESTED DOCUMENTS IS ONE GROUP OF STAGES
+    public static final int DEFAULT_DEPTH = 8;
+
+    private static final String ROOT = "root";
+    private static final String OBJECT = "object";
+    private static final String ARRAY = "array";
+
+    private static final Map<String,Class<?>> BSON_TYPE_CLASSES = new HashMap<>();
+    static {
+        BSON_TYPE_CLASSES.put("double", Double.class );
+        BSON_TYPE_CLASSES.put("string", String.class );
+        BSON_TYPE_CLASSES.put("binData", Binary.class );
+        BSON_TYPE_CLASSES.put("objectId", ObjectId.class );
+        BSON_TYPE_CLASSES.put("bool", Boolean.class );
+        BSON_TYPE_CLASSES.put("date", Date.class );
+        BSON_TYPE_CLASSES.put("regex", BsonRegularExpression.class );
+        BSON_TYPE_CLASSES.put("dbPointer", BsonDbPointer.class );
+        BSON_TYPE_CLASSES.put("javascript", Code.class );
+        BSON_TYPE_CLASSES.put("symbol", Symbol.class );
+        BSON_TYPE_CLASSES.put("javascriptWithScope", CodeWithScope.class );
+        BSON_TYPE_CLASSES.put("int", Integer.class );
+        BSON_TYPE_CLASSES.put("timestamp", BsonTimestamp.class );
+        BSON_TYPE_CLASSES.put("long", Long.class );
+        BSON_TYPE_CLASSES.put("decimal", Decimal128.class );
+        BSON_TYPE_CLASSES.put("minKey", MinKey.class );
+        BSON_TYPE_CLASSES.put("maxKey", MaxKey.class );
+    }
+    // THE ARRAY ELEMENT TYPES NAMED LIKE IN Util.getListElementsClass(), USED BY THE CLIENT SCAN
+    private static final List<String> ARRAY_ELEMENT_TYPES = Arrays.asList("int", "double", "long", "bool", "date", "string", "objectId");
+
+    /**
+     * The stages to append to the stages selecting the documents to scan.
+     * @param depth the levels of nested documents to descend into
+     */
+    public static List<Document> buildPipeline( int depth ){
+        final List<Document> pipeline = new ArrayList<>();
+        // ONE { k: path, v: value } ROW FOR EACH ROOT FIELD, AND ONE ROW TO COUNT THE DOCUMENTS
+        pipeline.add( new Document("$project", new Document("_id", 0 ).append("e",
+                new Document("$concatArrays", Arrays.asList(
+                        Collections.singletonList( new Document("k", "").append("t", ROOT )),
+                        childRows( "$$ROOT", null ))))));
+        pipeline.add( new Document("$unwind", "$e"));
+        pipeline.add( new Document("$replaceRoot", new Document("newRoot", "$e")));
+        for ( int level = 1; level <= depth; level++ ){
+            addLevel( pipeline, level < depth );
+        }
+        pipeline.add( new Document("$group", new Document("_id", new Document("k", "$k").append("t", "$t").append("a", "$a"))
+                .append("count", new Document("$sum", 1 ))
+                .append("elements", new Document("$sum", "$n"))
+                .append("objectId", new Document("$max", "$o"))));
+        return pipeline;
+    }
+
+    /**
+     * Rows with a value 'v' get their type and are replaced by a row without value, followed by the rows of their child fields.
+     * Rows without value are already done and are kept as they are.
+     */
+    private static void addLevel( List<Document> pipeline, boolean addChildren ){
+        final Document isArray = new Document("$isArray", "$v");
+        final Document elementTypes = new Document("$setUnion", Collections.singletonList(
+                new Document("$map", new Document("input", "$v").append("as", "e").append("in", new Document("$type", "$$e")))));
+        final Document elementType = new Document("$let", new Document("vars", new Document("types", elementTypes ))
+                .append("in", new Document("$switch", new Document("branches", Arrays.asList(
+                        new Document("case", new Document("$eq", Arrays.asList( new Document("$size", "$$types"), 1 )))
+                                .append("then", new Document("$arrayElemAt", Arrays.asList("$$types", 0 ))),
+                        new Document("case", new Document("$eq", Arrays.asList( new Document("$size", "$$types"), 0 )))
+                                .append("then", "empty")))
+                        .append("default", "mixed"))));
+        pipeline.add( new Document("$addFields", new Document("a", new Document("$cond", Arrays.asList( isArray, elementType, "$a" )))));
+
+        final Document type = new Document("$type", "$v");
+        final Document isArrayOfObjects = new Document("$and", Arrays.asList( isArray, new Document("$eq", Arrays.asList("$a", OBJECT ))));
+        final Document done = new Document("k", "$k")
+                .append("t", type )
+                .append("a", "$a")
+                .append("n", new Document("$cond", Arrays.asList( isArrayOfObjects, new Document("$size", "$v"), 0 )))
+                .append("o", new Document("$cond", Arrays.asList( new Document("$eq", Arrays.asList( type, "objectId")), "$v",
+                        new Document("$cond", Arrays.asList( new Document("$and", Arrays.asList( isArray, new Document("$eq", Arrays.asList("$a", "objectId")))),
+                                new Document("$arrayElemAt", Arrays.asList("$v", 0 )), null )))));
+        final Object children = addChildren ?
+                new Document("$cond", Arrays.asList( new Document("$eq", Arrays.asList( type, OBJECT )), childRows( "$v", "$k"),
+                        new Document("$cond", Arrays.asList( isArrayOfObjects,
+                                new Document("$reduce", new Document("input", "$v").append("initialValue", Collections.emptyList())
+                                        .append("in", new Document("$concatArrays", Arrays.asList("$$value", childRows("$$this", "$k"))))),
+                                Collections.emptyList() ))))
+                : Collections.emptyList();
+        pipeline.add( new Document("$project", new Document("_id", 0 ).append("e",
+                new Document("$cond", Arrays.asList( new Document("$eq", Arrays.asList( type, "missing")),
+                        Collections.singletonList("$$ROOT"),
+                        new Document("$concatArrays", Arrays.asList( Collections.singletonList( done ), children )))))));
+        pipeline.add( new Document("$unwind", "$e"));
+        pipeline.add( new Document("$replaceRoot", new Document("newRoot", "$e")));
+    }
+
+    /**
+     * The { k: path, v: value } rows for the fields of the given document expression.
+     */
+    private static Document childRows( String document, String parentPath ){
+        final Object path = parentPath != null ? new Document("$concat", Arrays.asList( parentPath, ".", "$$c.k")) : "$$c.k";
+        return new Document("$map", new Document("input", new Document("$objectToArray", document ))
+                .append("as", "c")
+                .append("in", new Document("k", path ).append("v", "$$c.v")));
+    }
+
+    /**
+     * Add the fields found by the pipeline to the collection.
+     * A field is mandatory if it exists in each parent object, or in each element of the parent array.
+     */
+    public static void merge( MetaCollection metaCollection, Iterable<Document> results, boolean sortFields ){
+        final Map<String,List<Document>> byPath = new LinkedHashMap<>();
+        long documents = 0;
+        for ( Document result : results ){
+            final Document id = (Document)result.get("_id");
+            final String path = id.getString("k");
+            if ( ROOT.equals( id.getString("t"))){
+                documents += getLong( result, "count");
+            } else if ( path != null && !path.isEmpty()){
+                byPath.computeIfAbsent( path, p -> new ArrayList<>()).add( result );
+            }
+        }
+        final List<String> paths = new ArrayList<>( byPath.keySet() );
+        // PARENTS BEFORE CHILDREN
+        paths.sort( (p1, p2) -> {
+            final int levelCompare = Integer.compare( countDots( p1 ), countDots( p2 ));
+            return levelCompare != 0 ? levelCompare : p1.compareTo( p2 );
+        });
+        for ( String path : paths ){
+            final int idx = path.lastIndexOf('.');
+            final String name = path.substring( idx + 1 );
+            final MetaObject parent;
+            final long parentCount;
+            if ( idx < 0 ){
+                parent = metaCollection;
+                parentCount = documents;
+            } else {
+                final MetaField parentField = metaCollection.getFieldByPath( path.substring( 0, idx ));
+                if ( !( parentField instanceof MetaObject )) continue;
+                parent = (MetaObject)parentField;
+                parentCount = getContainerCount( byPath.get( path.substring( 0, idx )));
+            }
+            long count = 0;
+            for ( Document result : byPath.get( path )){
+                count += getLong( result, "count");
+            }
+            final boolean mandatory = count >= parentCount;
+            for ( Document result : byPath.get( path )){
+                final MetaField field = mergeField( parent, name, result, mandatory, sortFields );
+                field.setMandatory( mandatory );
+                final Object objectId = result.get("objectId");
+                if ( objectId instanceof ObjectId && !"_id".equals( field.getNameWithPath())){
+                    field.setObjectId( (ObjectId)objectId );
+                }
+            }
+        }
+    }
+
+    private static MetaField mergeField( MetaObject parent, String name, Document result, boolean mandatory, boolean sortFields ){
+        final Document id = (Document)result.get("_id");
+        final String type = id.getString("t");
+        if ( OBJECT.equals( type )){
+            return parent.createObjectField( name, mandatory, sortFields );
+        } else if ( ARRAY.equals( type )){
+            final String elementType = id.getString("a");
+            if ( OBJECT.equals( elementType )){
+                return parent.createArrayField( name, "array[object]", mandatory, sortFields );
+            } else if ( ARRAY_ELEMENT_TYPES.contains( elementType )){
+                return parent.createField( name, "array[" + BSON_TYPE_CLASSES.get( elementType ).getSimpleName().toLowerCase() + "]", 2003, mandatory, sortFields );
+            }
+            return parent.createField( name, "array", 2003, mandatory, sortFields );
+        }
+        MetaField field = parent.getField( name );
+        if ( field == null ){
+            field = parent.createField( name, sortFields );
+        }
+        field.setTypeFromClass( BSON_TYPE_CLASSES.get( type ));
+        return field;
+    }
+
+    /**
+     * The number of objects at this path, or of objects in the arrays at this path.
+     */
+    private static long getContainerCount( List<Document> results ){
+        long count = 0;
+        if ( results != null ){
+            for ( Document result : results ){
+                final Document id = (Document)result.get("_id");
+                if ( OBJECT.equals( id.getString("t"))){
+                    count += getLong( result, "count");
+                } else if ( ARRAY.equals( id.getString("t")) && OBJECT.equals( id.getString("a"))){
+                    count += getLong( result, "elements");
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long getLong( Document result, String key ){
+        final Object value = result.get( key );
+        return value instanceof Number ? ((Number)value).longValue() : 0;
+    }
+
+    private static int countDots( String path ){
+        int count = 0;
+        for ( int i = 0; i < path.length(); i++ ){
+            if ( path.charAt( i ) == '.' ) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,289 @@
+package com.wisecoders.dbschema.mongodb.structure;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.bson.BsonDbPointer;
+import org.bson.BsonRegularExpression;
+import org.bson.BsonTimestamp;
+import org.bson.BsonUndefined;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.Code;
+import org.bson.types.CodeWithScope;
+import org.bson.types.Decimal128;
+import org.bson.types.MaxKey;
+import org.bson.types.MinKey;
+import org.bson.types.ObjectId;
+import org.bson.types.Symbol;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
+
+/**
+ * Keeps the discovered collections in JSON files, one file per collection, in a folder for each cluster and database.
+ * A new connection reuses the saved collection unless it is older than the maximal age, or the Signals read from the
+ * server before the scan show the collection changed: other indexes, or a document count or data size which changed by more than 10%.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class SchemaCache {
+
+    public static final long DEFAULT_MAX_AGE_MS = TimeUnit.DAYS.toMillis( 1 );
+    // THE DOCUMENT COUNT AND THE DATA SIZE MAY CHANGE THIS MUCH, SO THE CACHE IS USED ALSO IF SOME DOCUMENTS ARE ADDED
+    private static final double STALE_CHANGE_RATIO = 0.1;
+    private static final int VERSION = 1;
+    // THE FIELD CLASSES WHICH CAN BE READ FROM THE CACHE: THE VALUE CLASSES OF THE DOCUMENT CODEC. OTHER NAMES ARE A CACHE MISS
+    private static final Map<String,Class<?>> TYPE_CLASSES = new HashMap<>();
+    static {
+        for ( Class<?> cls : Arrays.asList( Object.class, Double.class, String.class, Binary.class, UUID.class, BsonUndefined.class, ObjectId.class,
+                Boolean.class, Date.class, BsonRegularExpression.class, BsonDbPointer.class, Code.class, Symbol.class, CodeWithScope.class,
+                Integer.class, BsonTimestamp.class, Long.class, Decimal128.class, MinKey.class, MaxKey.class, Document.class, ArrayList.class )){
+            TYPE_CLASSES.put( cls.getName(), cls );
+        }
+    }
+
+    private final Path directory;
+    private final long maxAgeMs;
+
+    /**
+     * @param directory the folder of the cluster. It contains one folder for each database.
+     */
+    public SchemaCache( Path directory, long maxAgeMs ){
+        this.directory = directory;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * The folder in the DbSchema home used for the given cluster, for example 'host1:27017,host2:27017'.
+     */
+    public static Path getDefaultDirectory( String clusterKey ){
+        return Paths.get( System.getProperty("user.home"), ".DbSchema", "cache", "mongodb", encode( clusterKey ));
+    }
+
+    /**
+     * Cheap information about the collection, read before the scan. A saved collection is used only if they are similar.
+     */
+    public static class Signals {
+        public final long count;
+        public final long size;
+        public final List<String> indexes;
+        public final String scan;
+
+        /**
+         * @param count the document count, -1 if unknown
+         * @param size the data size, -1 if unknown
+         * @param indexes the index names and keys
+         * @param scan the scan options, a collection scanned with other options is not reused
+         */
+        public Signals( long count, long size, List<String> indexes, String scan ){
+            this.count = count;
+            this.size = size;
+            this.indexes = new ArrayList<>( indexes );
+            Collections.sort( this.indexes );
+            this.scan = scan;
+        }
+
+        boolean isSimilar( Signals other ){
+            return Objects.equals( scan, other.scan ) && indexes.equals( other.indexes ) &&
+                    isSimilar( count, other.count ) && isSimilar( size, other.size );
+        }
+
+        private static boolean isSimilar( long value, long other ){
+            return value < 0 || other < 0 || Math.abs( value - other ) <= STALE_CHANGE_RATIO * Math.max( value, other );
+        }
+    }
+
+    /**
+     * The saved collection, or null if it is not saved, is stale or cannot be read.
+     * References to collections not loaded yet are added when they are added to the MetaDatabase.
+     */
+    public MetaCollection load( MetaDatabase metaDatabase, String collectionName, Signals signals ){
+        final Path file = getFile( metaDatabase.name, collectionName );
+        if ( !Files.exists( file )) return null;
+        try ( Reader reader = Files.newBufferedReader( file, StandardCharsets.UTF_8 )){
+            final JsonObject json = JsonParser.parseReader( reader ).getAsJsonObject();
+            if ( json.get("version").getAsInt() != VERSION ) return null;
+            if ( System.currentTimeMillis() - json.get("savedAt").getAsLong() > maxAgeMs ) return null;
+            if ( !readSignals( json.getAsJsonObject("signals")).isSimilar( signals )) return null;
+
+            final MetaCollection metaCollection = new MetaCollection( metaDatabase, collectionName, true );
+            metaCollection.fields.clear();
+            metaCollection.metaIndexes.clear();
+            metaCollection.setDescription( getString( json, "description"));
+            final String scanConverged = getString( json, "scanConverged");
+            metaCollection.scanConverged = scanConverged != null ? Boolean.valueOf( scanConverged ) : null;
+            readFields( metaCollection, json.getAsJsonArray("fields"));
+            for ( JsonElement element : json.getAsJsonArray("indexes")){
+                final JsonObject index = element.getAsJsonObject();
+                final MetaIndex metaIndex = metaCollection.createMetaIndex( index.get("name").getAsString(), index.get("pk").getAsBoolean(), index.get("unique").getAsBoolean());
+                for ( JsonElement path : index.getAsJsonArray("fields")){
+                    metaIndex.addColumn( metaCollection.getFieldByPath( path.getAsString()));
+                }
+            }
+            return metaCollection;
+        } catch ( Throwable ex ){
+            LOGGER.log( Level.INFO, "Cannot read the cached collection " + file, ex );
+            return null;
+        }
+    }
+
+    public void save( MetaCollection metaCollection, Signals signals ){
+        final Path file = getFile( metaCollection.metaDatabase.name, metaCollection.name );
+        final JsonObject json = new JsonObject();
+        json.addProperty("version", VERSION );
+        json.addProperty("collection", metaCollection.name );
+        json.addProperty("savedAt", System.currentTimeMillis());
+        json.add("signals", writeSignals( signals ));
+        json.addProperty("description", metaCollection.getDescription());
+        json.addProperty("scanConverged", metaCollection.scanConverged );
+        json.add("fields", writeFields( metaCollection ));
+        final JsonArray indexes = new JsonArray();
+        for ( MetaIndex metaIndex : metaCollection.metaIndexes ){
+            final JsonObject index = new JsonObject();
+            index.addProperty("name", metaIndex.name );
+            index.addProperty("pk", metaIndex.pk );
+            index.addProperty("unique", metaIndex.unique );
+            final JsonArray paths = new JsonArray();
+            for ( MetaField field : metaIndex.metaFields ){
+                paths.add( field.getNameWithPath());
+            }
+            index.add("fields", paths );
+            indexes.add( index );
+        }
+        json.add("indexes", indexes );
+        try {
+            Files.createDirectories( file.getParent());
+            // WRITE A TEMPORARY FILE AND MOVE IT, SO OTHER CONNECTIONS NEVER READ A HALF WRITTEN FILE
+            final Path tempFile = Files.createTempFile( file.getParent(), "collection", ".tmp");
+            try ( Writer writer = Files.newBufferedWriter( tempFile, StandardCharsets.UTF_8 )){
+                new Gson().toJson( json, writer );
+            }
+            try {
+                Files.move( tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+            } catch ( AtomicMoveNotSupportedException ex ){
+                Files.move( tempFile, file, StandardCopyOption.REPLACE_EXISTING );
+            }
+        } catch ( IOException ex ){
+            LOGGER.log( Level.INFO, "Cannot save the cached collection " + file, ex );
+        }
+    }
+
+    private Path getFile( String databaseName, String collectionName ){
+        return directory.resolve( encode( databaseName )).resolve( encode( collectionName ) + ".json");
+    }
+
+    private static JsonArray writeFields( MetaObject metaObject ){
+        final JsonArray fields = new JsonArray();
+        for ( MetaField field : metaObject.fields ){
+            final JsonObject json = new JsonObject();
+            json.addProperty("name", field.name );
+            json.addProperty("object", field instanceof MetaObject );
+            json.addProperty("typeName", field.typeName );
+            json.addProperty("typeClass", field.typeClass != null ? field.typeClass.getName() : null );
+            json.addProperty("javaType", field.javaType );
+            json.addProperty("mandatory", field.isMandatory());
+            json.addProperty("objectId", field.objectId != null ? field.objectId.toHexString() : null );
+            json.addProperty("options", field.options );
+            json.addProperty("description", field.getDescription());
+            final JsonArray references = new JsonArray();
+            for ( MetaReference reference : field.references ){
+                references.add( reference.pkCollection.name );
+            }
+            json.add("references", references );
+            if ( field instanceof MetaObject ){
+                json.add("fields", writeFields( (MetaObject)field ));
+            }
+            fields.add( json );
+        }
+        return fields;
+    }
+
+    private static void readFields( MetaObject metaObject, JsonArray fields ){
+        final MetaDatabase metaDatabase = metaObject.getMetaCollection().metaDatabase;
+        for ( JsonElement element : fields ){
+            final JsonObject json = element.getAsJsonObject();
+            final String name = json.get("name").getAsString();
+            final MetaField field = json.get("object").getAsBoolean() ? new MetaObject( metaObject, name ) : new MetaField( metaObject, name );
+            field.typeName = getString( json, "typeName");
+            final String typeClass = getString( json, "typeClass");
+            if ( typeClass != null && !TYPE_CLASSES.containsKey( typeClass )){
+                throw new IllegalArgumentException("Unknown type class " + typeClass );
+            }
+            field.typeClass = typeClass != null ? TYPE_CLASSES.get( typeClass ) : null;
+            field.javaType = json.get("javaType").getAsInt();
+            field.setMandatory( json.get("mandatory").getAsBoolean());
+            final String objectId = getString( json, "objectId");
+            field.setObjectId( objectId != null ? new ObjectId( objectId ) : null );
+            field.options = getString( json, "options");
+            field.setDescription( getString( json, "description"));
+            for ( JsonElement reference : json.getAsJsonArray("references")){
+                metaDatabase.addReference( field, reference.getAsString());
+            }
+            metaObject.fields.add( field );
+            if ( field instanceof MetaObject ){
+                readFields( (MetaObject)field, json.getAsJsonArray("fields"));
+            }
+        }
+    }
+
+    private static JsonObject writeSignals( Signals signals ){
+        final JsonObject json = new JsonObject();
+        json.addProperty("count", signals.count );
+        json.addProperty("size", signals.size );
+        final JsonArray indexes = new JsonArray();
+        for ( String index : signals.indexes ){
+            indexes.add( index );
+        }
+        json.add("indexes", indexes );
+        json.addProperty("scan", signals.scan );
+        return json;
+    }
+
+    private static Signals readSignals( JsonObject json ){
+        final List<String> indexes = new ArrayList<>();
+        for ( JsonElement index : json.getAsJsonArray("indexes")){
+            indexes.add( index.getAsString());
+        }
+        return new Signals( json.get("count").getAsLong(), json.get("size").getAsLong(), indexes, getString( json, "scan"));
+    }
+
+    private static String getString( JsonObject json, String key ){
+        final JsonElement element = json.get( key );
+        return element != null && !element.isJsonNull() ? element.getAsString() : null;
+    }
+
+    private static String encode( String name ){
+        try {
+            // '*' IS NOT ALLOWED IN WINDOWS FILE NAMES
+            return URLEncoder.encode( name, "UTF-8").replace("*", "%2A");
+        } catch ( UnsupportedEncodingException ex ){
+            throw new IllegalStateException( ex );
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.wisecoders.dbschema.mongodb.wrappers;
+
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.DistinctIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.EstimatedDocumentCountOptions;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.conversions.Bson;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The statement executed by the current thread. The wrappers apply the query timeout as maxTimeMS to finds, aggregations,
+ * counts and commands, and tag the finds and aggregations with a comment, used to find the server operations when the statement is cancelled.
+ * Outside statements, for example while discovering the schema, there is no current context and nothing is applied.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class OperationContext {
+
+    private static final ThreadLocal<OperationContext> CURRENT = new ThreadLocal<>();
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    public final long maxTimeMS;
+    public final String comment;
+
+    public OperationContext( long maxTimeMS ){
+        this.maxTimeMS = maxTimeMS;
+        this.comment = "jdbc-statement-" + SEQUENCE.incrementAndGet();
+    }
+
+    public static OperationContext current(){
+        return CURRENT.get();
+    }
+
+    public void enter(){
+        CURRENT.set( this );
+    }
+
+    public static void exit(){
+        CURRENT.remove();
+    }
+
+    static <T> FindIterable<T> apply( FindIterable<T> iterable ){
+        final OperationContext context = CURRENT.get();
+        if ( context != null ){
+            if ( context.maxTimeMS > 0 ) iterable.maxTime( context.maxTimeMS, TimeUnit.MILLISECONDS );
+            iterable.comment( context.comment );
+        }
+        return iterable;
+    }
+
+    static <T> AggregateIterable<T> apply( AggregateIterable<T> iterable ){
+        final OperationContext context = CURRENT.get();
+        if ( context != null ){
+            if ( context.maxTimeMS > 0 ) iterable.maxTime( context.maxTimeMS, TimeUnit.MILLISECONDS );
+            iterable.comment( context.comment );
+        }
+        return iterable;
+    }
+
+    static <T> DistinctIterable<T> apply( DistinctIterable<T> iterable ){
+        final OperationContext context = CURRENT.get();
+        if ( context != null ){
+            if ( context.maxTimeMS > 0 ) iterable.maxTime( context.maxTimeMS, TimeUnit.MILLISECONDS );
+            iterable.comment( context.comment );
+        }
+        return iterable;
+    }
+
+    static CountOptions apply( CountOptions options ){
+        final OperationContext context = CURRENT.get();
+        if ( context != null ){
+            if ( context.maxTimeMS > 0 && options.getMaxTime( TimeUnit.MILLISECONDS ) == 0 ) options.maxTime( context.maxTimeMS, TimeUnit.MILLISECONDS );
+            if ( options.getComment() == null ) options.comment( context.comment );
+        }
+        return options;
+    }
+
+    static EstimatedDocumentCountOptions apply( EstimatedDocumentCountOptions options ){
+        final OperationContext context = CURRENT.get();
+        if ( context != null && context.maxTimeMS > 0 && options.getMaxTime( TimeUnit.MILLISECONDS ) == 0 ){
+            options.maxTime( context.maxTimeMS, TimeUnit.MILLISECONDS );
+        }
+        return options;
+    }
+
+    /**
+     * Commands get only maxTimeMS, if not already set. Older servers refuse the comment field for some commands.
+     */
+    static Bson apply( Bson command ){
+        final OperationContext context = CURRENT.get();
+        if ( context != null && context.maxTimeMS > 0 && command instanceof BsonDocument && !((BsonDocument)command).containsKey("maxTimeMS")){
+            return ((BsonDocument)command).clone().append("maxTimeMS", new BsonInt64( context.maxTimeMS ));
+        }
+        return command;
+    }
+}
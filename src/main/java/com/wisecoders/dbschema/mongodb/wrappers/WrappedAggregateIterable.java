@@ -0,0 +1,191 @@
+package com.wisecoders.dbschema.mongodb.wrappers;
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.Function;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.Collation;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Wrapper around AggregateIterable which keeps the pipeline, so a $limit stage can be added for Statement.setMaxRows().
+ * The options set on the iterable are recorded and set again on the new iterable. The same way the pipeline can be executed reading RawBsonDocument.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class WrappedAggregateIterable<TResult> implements AggregateIterable<TResult> {
+
+    private final java.util.function.Function<List<Bson>, AggregateIterable<TResult>> factory;
+    private final BiFunction<List<Bson>, Class<RawBsonDocument>, AggregateIterable<RawBsonDocument>> rawFactory;
+    private final List<Bson> pipeline;
+    private List<Bson> currentPipeline;
+    private final List<Consumer<AggregateIterable<?>>> options = new ArrayList<>();
+    private AggregateIterable<TResult> aggregateIterable;
+
+    WrappedAggregateIterable( List<Bson> pipeline, java.util.function.Function<List<Bson>, AggregateIterable<TResult>> factory,
+                              BiFunction<List<Bson>, Class<RawBsonDocument>, AggregateIterable<RawBsonDocument>> rawFactory ){
+        this.pipeline = pipeline;
+        this.currentPipeline = pipeline;
+        this.factory = factory;
+        this.rawFactory = rawFactory;
+        this.aggregateIterable = OperationContext.apply( factory.apply( pipeline ));
+    }
+
+    /**
+     * Execute the same pipeline reading the documents as RawBsonDocument, which are decoded only when the fields are read.
+     * Returns null if the iterable was created with an explicit document class.
+     */
+    public MongoCursor<RawBsonDocument> rawIterator() {
+        if ( rawFactory == null ){
+            return null;
+        }
+        final AggregateIterable<RawBsonDocument> rawIterable = OperationContext.apply( rawFactory.apply( currentPipeline, RawBsonDocument.class ));
+        for ( Consumer<AggregateIterable<?>> option : options ){
+            option.accept( rawIterable );
+        }
+        return rawIterable.iterator();
+    }
+
+    private WrappedAggregateIterable<TResult> option( Consumer<AggregateIterable<?>> option ){
+        options.add( option );
+        option.accept( aggregateIterable );
+        return this;
+    }
+
+    /**
+     * Add a $limit stage at the end of the pipeline, if there is none with less documents.
+     * Pipelines writing with $out or $merge are not changed.
+     */
+    public WrappedAggregateIterable<TResult> limit( int rows ){
+        if ( rows <= 0 || pipeline.isEmpty() ) return this;
+        final BsonDocument lastStage = pipeline.get( pipeline.size() - 1 ).toBsonDocument();
+        if ( lastStage.containsKey("$out") || lastStage.containsKey("$merge")) return this;
+        if ( lastStage.isNumber("$limit") && lastStage.getNumber("$limit").longValue() <= rows ) return this;
+        final List<Bson> limited = new ArrayList<>( pipeline );
+        limited.add( new Document("$limit", rows ));
+        currentPipeline = limited;
+        aggregateIterable = OperationContext.apply( factory.apply( limited ));
+        for ( Consumer<AggregateIterable<?>> option : options ){
+            option.accept( aggregateIterable );
+        }
+        return this;
+    }
+
+    @Override
+    public void toCollection() {
+        aggregateIterable.toCollection();
+    }
+
+    @Override
+    public WrappedAggregateIterable<TResult> allowDiskUse(Boolean allowDiskUse) {
+        return option( iterable -> iterable.allowDiskUse( allowDiskUse ));
+    }
+
+    @Override
+    public WrappedAggregateIterable<TResult> batchSize(int batchSize) {
+        return option( iterable -> iterable.batchSize( batchSize ));
+    }
+
+    @Override
+    public WrappedAggregateIterable<TResult> maxTime(long maxTime, TimeUnit timeUnit) {
+        return option( iterable -> iterable.maxTime( maxTime, timeUnit ));
+    }
+
+    @Override
+    public WrappedAggregateIterable<TResult> maxAwaitTime(long maxAwaitTime, TimeUnit timeUnit) {
+        return option( iterable -> iterable.maxAwaitTime( maxAwaitTime, timeUnit ));
+    }
+
+    @Override
+    public WrappedAggregateIterable<TResult> bypassDocumentValidation(Boolean bypassDocumentValidation) {
+        return option( iterable -> iterable.bypassDocumentValidation( bypassDocumentValidation ));
+    }
+
+    @Override
+    public WrappedAggregateIterable<TResult> collation(Collation collation) {
+        return option( iterable -> iterable.collation( collation ));
+    }
+
+    @Override
+    public WrappedAggregateIterable<TResult> comment(String comment) {
+        return option( iterable -> iterable.comment( comment ));
+    }
+
+    @Override
+    public WrappedAggregateIterable<TResult> comment(BsonValue comment) {
+        return option( iterable -> iterable.comment( comment ));
+    }
+
+    @Override
+    public WrappedAggregateIterable<TResult> hint(Bson hint) {
+        return option( iterable -> iterable.hint( hint ));
+    }
+
+    @Override
+    public WrappedAggregateIterable<TResult> hintString(String hint) {
+        return option( iterable -> iterable.hintString( hint ));
+    }
+
+    @Override
+    public WrappedAggregateIterable<TResult> let(Bson variables) {
+        return option( iterable -> iterable.let( variables ));
+    }
+
+    @Override
+    public Document explain() {
+        return aggregateIterable.explain();
+    }
+
+    @Override
+    public Document explain(ExplainVerbosity verbosity) {
+        return aggregateIterable.explain( verbosity );
+    }
+
+    @Override
+    public <E> E explain(Class<E> explainResultClass) {
+        return aggregateIterable.explain( explainResultClass );
+    }
+
+    @Override
+    public <E> E explain(Class<E> explainResultClass, ExplainVerbosity verbosity) {
+        return aggregateIterable.explain( explainResultClass, verbosity );
+    }
+
+    @Override
+    public MongoCursor<TResult> iterator() {
+        return aggregateIterable.iterator();
+    }
+
+    @Override
+    public MongoCursor<TResult> cursor() {
+        return aggregateIterable.cursor();
+    }
+
+    @Override
+    public TResult first() {
+        return aggregateIterable.first();
+    }
+
+    @Override
+    public <U> MongoIterable<U> map(Function<TResult, U> mapper) {
+        return aggregateIterable.map( mapper );
+    }
+
+    @Override
+    public <A extends Collection<? super TResult>> A into(A target) {
+        return aggregateIterable.into( target );
+    }
+}
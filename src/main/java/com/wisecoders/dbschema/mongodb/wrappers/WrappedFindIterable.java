@@ -7,59 +7,101 @@ import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoIterable;
 import com.wisecoders.dbschema.mongodb.GraalConvertor;
+import com.wisecoders.dbschema.mongodb.structure.MetaCollection;
+import com.wisecoders.dbschema.mongodb.structure.MetaField;
+import com.wisecoders.dbschema.mongodb.structure.MetaObject;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
 import org.bson.conversions.Bson;
 
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 
 /**
+ * The options set on the iterable are recorded, so the same query can be created again reading RawBsonDocument.
+ *
  * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with  <a href="https://dbschema.com">DbSchema Database Designer</a>
  * Free to use by everyone, code modifications allowed only to the  <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
  */
 public class WrappedFindIterable<TResult> implements com.mongodb.client.MongoIterable<TResult> {
 
     private final FindIterable<TResult> findIterable;
+    private final java.util.function.Function<Class<RawBsonDocument>, FindIterable<RawBsonDocument>> rawFactory;
+    private final List<Consumer<FindIterable<?>>> options = new ArrayList<>();
+    private int limit;
+    private final WrappedMongoCollection<?> collection;
+    private Bson projection;
 
     private TResult toDocument( Map map ){
         return (TResult)( new Document( map ));
     }
 
     public WrappedFindIterable(FindIterable<TResult> findIterable ){
-        this.findIterable = findIterable;
+        this( findIterable, null, null );
     }
 
-    public WrappedFindIterable filter(String str) {
-        findIterable.filter( BasicDBObject.parse(str) );
+    WrappedFindIterable(FindIterable<TResult> findIterable, java.util.function.Function<Class<RawBsonDocument>, FindIterable<RawBsonDocument>> rawFactory, WrappedMongoCollection<?> collection ){
+        this.findIterable = OperationContext.apply( findIterable );
+        this.rawFactory = rawFactory;
+        this.collection = collection;
+    }
+
+    private WrappedFindIterable<TResult> option( Consumer<FindIterable<?>> option ){
+        options.add( option );
+        option.accept( findIterable );
         return this;
     }
 
+    /**
+     * Execute the same query reading the documents as RawBsonDocument, which are decoded only when the fields are read.
+     * Returns null if the iterable was created with an explicit document class.
+     */
+    public MongoCursor<RawBsonDocument> rawIterator() {
+        if ( rawFactory == null ){
+            return null;
+        }
+        final FindIterable<RawBsonDocument> rawIterable = OperationContext.apply( rawFactory.apply( RawBsonDocument.class ));
+        for ( Consumer<FindIterable<?>> option : options ){
+            option.accept( rawIterable );
+        }
+        return rawIterable.iterator();
+    }
+
+    public WrappedFindIterable<TResult> filter(String str) {
+        final Bson bson = BasicDBObject.parse(str);
+        return option( iterable -> iterable.filter( bson ));
+    }
+
     public WrappedFindIterable filter(Map map) {
-        findIterable.filter( GraalConvertor.toBson( map ) );
-        return this;
+        final Bson bson = GraalConvertor.toReadFilter( map );
+        return option( iterable -> iterable.filter( bson ));
     }
 
     public WrappedFindIterable projection(String str) {
-        findIterable.projection(BasicDBObject.parse(str));
-        return this;
+        return projection( (Bson)BasicDBObject.parse(str) );
     }
 
     public WrappedFindIterable projection(Map map) {
-        findIterable.projection( GraalConvertor.toBson( map ) );
-        return this;
+        return projection( GraalConvertor.toBson( map ));
     }
 
     public WrappedFindIterable sort(String str) {
-        findIterable.sort(BasicDBObject.parse(str));
-        return this;
+        final Bson bson = BasicDBObject.parse(str);
+        return option( iterable -> iterable.sort( bson ));
     }
 
     public WrappedFindIterable sort(Map map) {
-        findIterable.sort( GraalConvertor.toBson( map ) );
-        return this;
+        final Bson bson = GraalConvertor.toBson( map );
+        return option( iterable -> iterable.sort( bson ));
     }
 
     public WrappedFindIterable pretty(){
@@ -77,58 +119,143 @@ public class WrappedFindIterable<TResult> implements com.mongodb.client.MongoIte
     //---------------------------------------------------------------
 
     public WrappedFindIterable filter(Bson bson) {
-        findIterable.filter( bson );
-        return this;
+        return option( iterable -> iterable.filter( bson ));
     }
 
     public WrappedFindIterable limit(int i) {
-        findIterable.limit( i );
+        limit = i;
+        return option( iterable -> iterable.limit( i ));
+    }
+
+    /**
+     * Lower the limit to the given number of documents. Used by Statement.setMaxRows().
+     */
+    public WrappedFindIterable<TResult> maxRows(int rows) {
+        if ( rows > 0 && ( limit == 0 || Math.abs( limit ) > rows )){
+            limit( rows );
+        }
         return this;
     }
 
     public WrappedFindIterable skip(int i) {
-        findIterable.skip( i );
-        return this;
+        return option( iterable -> iterable.skip( i ));
     }
 
     public WrappedFindIterable maxTime(long l, TimeUnit timeUnit) {
-        findIterable.maxTime( l, timeUnit);
-        return this;
+        return option( iterable -> iterable.maxTime( l, timeUnit));
     }
 
     public WrappedFindIterable projection(Bson bson) {
-        findIterable.projection( bson );
-        return this;
+        projection = bson;
+        return option( iterable -> iterable.projection( bson ));
+    }
+
+    /**
+     * The result columns, if they are known without reading the documents: the keys of an inclusion projection,
+     * or the fields of the collection if it was already discovered. The types are taken from the discovered collection.
+     * With flattenDepth the nested fields are returned with their path, like in the expanded ResultSet.
+     * Returns null if the columns are not known.
+     */
+    public Map<String,Integer> getResultColumns( int flattenDepth ){
+        if ( collection == null ){
+            return null;
+        }
+        final MetaCollection metaCollection = collection.wrappedMongoDatabase.getMetaCollectionIfAlreadyLoaded( collection.getNamespace().getCollectionName() );
+        final Map<String,Integer> columns = new LinkedHashMap<>();
+        if ( projection != null ){
+            final BsonDocument projectionDocument = projection.toBsonDocument();
+            if ( !projectionDocument.isEmpty() ){
+                boolean includeId = true;
+                for ( Map.Entry<String,BsonValue> entry : projectionDocument.entrySet() ){
+                    final BsonValue value = entry.getValue();
+                    final boolean included = value.isBoolean() ? value.asBoolean().getValue() : value.isNumber() && value.asNumber().doubleValue() != 0;
+                    if ( "_id".equals( entry.getKey() )){
+                        includeId = included;
+                    } else if ( !included || entry.getKey().startsWith("$") ){
+                        // EXCLUSION OR COMPUTED PROJECTION, THE COLUMNS ARE NOT KNOWN
+                        return null;
+                    }
+                }
+                if ( includeId ){
+                    columns.put( "_id", getJavaType( metaCollection, "_id" ));
+                }
+                for ( String key : projectionDocument.keySet() ){
+                    if ( !"_id".equals( key )){
+                        final String column = getColumnName( key, flattenDepth );
+                        final MetaField field = metaCollection != null ? metaCollection.getFieldByPath( column ) : null;
+                        final int remainingDepth = flattenDepth - column.split("\\.").length + 1;
+                        if ( remainingDepth > 0 && field == null ){
+                            // IT MAY BE A DOCUMENT, TO BE FLATTENED
+                            return null;
+                        } else if ( remainingDepth > 0 && field instanceof MetaObject && field.getJavaType() == MetaObject.TYPE_OBJECT && !((MetaObject)field).fields.isEmpty() ){
+                            addColumns( columns, (MetaObject)field, remainingDepth - 1 );
+                        } else {
+                            columns.put( column, field != null ? getJavaType( field ) : Types.OTHER );
+                        }
+                    }
+                }
+                return columns;
+            }
+        }
+        if ( metaCollection == null || metaCollection.fields.size() < 2 ){
+            return null;
+        }
+        addColumns( columns, metaCollection, flattenDepth );
+        return columns;
+    }
+
+    private static String getColumnName( String key, int flattenDepth ){
+        // A PROJECTION ON 'a.b' RETURNS { a: { b: ... } }, WHICH IS FLATTENED ONLY UP TO flattenDepth
+        int idx = -1;
+        for ( int depth = 0; depth <= flattenDepth; depth++ ){
+            idx = key.indexOf( '.', idx + 1 );
+            if ( idx < 0 ) return key;
+        }
+        return key.substring( 0, idx );
+    }
+
+    private static void addColumns( Map<String,Integer> columns, MetaObject metaObject, int flattenDepth ){
+        for ( MetaField field : metaObject.fields ){
+            if ( field instanceof MetaObject && field.getJavaType() == MetaObject.TYPE_OBJECT && flattenDepth > 0 && !((MetaObject)field).fields.isEmpty() ){
+                addColumns( columns, (MetaObject)field, flattenDepth - 1 );
+            } else {
+                columns.put( field.getNameWithPath(), getJavaType( field ));
+            }
+        }
+    }
+
+    private static int getJavaType( MetaCollection metaCollection, String path ){
+        final MetaField field = metaCollection != null ? metaCollection.getFieldByPath( path ) : null;
+        return field != null ? getJavaType( field ) : Types.OTHER;
+    }
+
+    private static int getJavaType( MetaField field ){
+        final int javaType = field.getJavaType();
+        return javaType == MetaObject.TYPE_OBJECT || javaType == MetaObject.TYPE_ARRAY ? Types.OTHER : javaType;
     }
 
     public WrappedFindIterable sort(Bson bson) {
-        findIterable.sort( bson );
-        return this;
+        return option( iterable -> iterable.sort( bson ));
     }
 
     public WrappedFindIterable noCursorTimeout(boolean b) {
-        findIterable.noCursorTimeout( b );
-        return this;
+        return option( iterable -> iterable.noCursorTimeout( b ));
     }
 
     public WrappedFindIterable oplogReplay(boolean b) {
-        findIterable.oplogReplay( b );
-        return this;
+        return option( iterable -> iterable.oplogReplay( b ));
     }
 
     public WrappedFindIterable partial(boolean b) {
-        findIterable.partial( b );
-        return this;
+        return option( iterable -> iterable.partial( b ));
     }
 
     public WrappedFindIterable cursorType(CursorType cursorType) {
-        findIterable.cursorType( cursorType );
-        return this;
+        return option( iterable -> iterable.cursorType( cursorType ));
     }
 
     public WrappedFindIterable batchSize(int i) {
-        findIterable.batchSize( i );
-        return this;
+        return option( iterable -> iterable.batchSize( i ));
     }
 
     public MongoCursor iterator() {
@@ -4,8 +4,10 @@ import com.mongodb.ConnectionString;
 import com.mongodb.client.ListDatabasesIterable;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.MongoIterable;
-import com.wisecoders.dbschema.mongodb.ScanStrategy;
+import com.wisecoders.dbschema.mongodb.ScanOptions;
+import com.wisecoders.dbschema.mongodb.structure.SchemaCache;
 import org.bson.BsonDocument;
 import org.bson.BsonInt64;
 import org.bson.Document;
@@ -14,6 +16,10 @@ import org.bson.conversions.Bson;
 
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
@@ -27,10 +33,11 @@ public class WrappedMongoClient {
     private final MongoClient mongoClient;
     private final String databaseName;
     private final String uri;
-    private final ScanStrategy scanStrategy;
+    private final ScanOptions scanOptions;
+    private final SchemaCache schemaCache;
     public final boolean expandResultSet, sortFields;
 
-    public WrappedMongoClient(String uri, final Properties prop, final String databaseName, final ScanStrategy scanStrategy, boolean expandResultSet, boolean sortFields ){
+    public WrappedMongoClient(String uri, final Properties prop, final String databaseName, final ScanOptions scanOptions, boolean expandResultSet, boolean sortFields ){
         final ConnectionString connectionString = new ConnectionString(uri){
             @Override
             public Integer getMaxConnectionIdleTime() {
@@ -46,8 +53,15 @@ public class WrappedMongoClient {
         this.databaseName = databaseName;
         this.uri = uri;
         this.expandResultSet = expandResultSet;
-        this.scanStrategy = scanStrategy;
+        this.scanOptions = scanOptions;
         this.sortFields = sortFields;
+        if ( scanOptions.isCache() ){
+            final List<String> hosts = new ArrayList<>( connectionString.getHosts() );
+            Collections.sort( hosts );
+            this.schemaCache = new SchemaCache( SchemaCache.getDefaultDirectory( String.join(",", hosts )), scanOptions.getCacheMaxAgeMs() );
+        } else {
+            this.schemaCache = null;
+        }
         getDatabaseNames();
     }
 
@@ -65,9 +79,66 @@ public class WrappedMongoClient {
     }
 
     public void close(){
+        synchronized ( this ){
+            if ( scanExecutor != null ){
+                scanExecutor.shutdownNow();
+            }
+        }
+        for ( WrappedMongoDatabase database : cachedDatabases.values() ){
+            database.cancelDiscoveries();
+        }
         mongoClient.close();
     }
 
+    public ScanOptions getScanOptions(){
+        return scanOptions;
+    }
+
+    private static final AtomicInteger SCAN_THREAD_SEQUENCE = new AtomicInteger();
+    private ExecutorService scanExecutor;
+
+    /**
+     * Run a collection scan. With one scan thread and no background discovery the scan runs in the caller thread.
+     * Otherwise it runs in a pool of scanOptions.getThreads() daemon threads, created at the first use.
+     */
+    private void executeScan( Runnable scan ){
+        if ( scanOptions.getThreads() <= 1 && !scanOptions.isBackground() ){
+            scan.run();
+            return;
+        }
+        final ExecutorService executor;
+        synchronized ( this ){
+            if ( scanExecutor == null ){
+                scanExecutor = Executors.newFixedThreadPool( Math.max( 1, scanOptions.getThreads()), runnable -> {
+                    final Thread thread = new Thread( runnable, "mongodb-jdbc-scan-" + SCAN_THREAD_SEQUENCE.incrementAndGet() );
+                    thread.setDaemon( true );
+                    return thread;
+                });
+            }
+            executor = scanExecutor;
+        }
+        executor.execute( scan );
+    }
+
+    /**
+     * Kill the running server operations tagged with the given comment, including the getMore of their cursors.
+     * Idle cursors are not listed as operations: they are closed by their result set. Returns the number of killed operations.
+     */
+    public int killOperations( String comment ){
+        final MongoDatabase admin = mongoClient.getDatabase("admin");
+        final List<Document> pipeline = Arrays.asList(
+                new Document("$currentOp", new Document()),
+                new Document("$match", new Document("$or", Arrays.asList(
+                        new Document("command.comment", comment),
+                        new Document("cursor.originatingCommand.comment", comment)))));
+        int killed = 0;
+        for ( Document operation : admin.aggregate( pipeline )){
+            admin.runCommand( new Document("killOp", 1).append("op", operation.get("opid")));
+            killed++;
+        }
+        return killed;
+    }
+
     public MongoIterable<String> listDatabaseNames() {
         return mongoClient.listDatabaseNames();
     }
@@ -107,15 +178,31 @@ public class WrappedMongoClient {
         return names;
     }
 
-    private final Map<String, WrappedMongoDatabase> cachedDatabases = new HashMap<>();
+    private final Map<String, WrappedMongoDatabase> cachedDatabases = new ConcurrentHashMap<>();
 
-    public WrappedMongoDatabase getDatabase(String dbName) {
-        if ( cachedDatabases.containsKey(dbName )){
-            return cachedDatabases.get( dbName);
+    // A SCRIPT MAY CHECK THE SAME UNKNOWN NAME MULTIPLE TIMES. KEEP THE LISTED NAMES SHORTLY, TO LIST THE SERVER DATABASES ONLY ONCE.
+    private static final long DATABASE_NAMES_TTL_MS = 1000;
+    private volatile List<String> listedDatabaseNames;
+    private volatile long listedDatabaseNamesTime;
+
+    /**
+     * Check if a name refers to a database. The databases already in use are answered without listing the server databases.
+     */
+    public boolean hasDatabase(String dbName) {
+        if ( cachedDatabases.containsKey( dbName ) || createdDatabases.contains( dbName )){
+            return true;
+        }
+        List<String> names = listedDatabaseNames;
+        if ( names == null || System.currentTimeMillis() - listedDatabaseNamesTime > DATABASE_NAMES_TTL_MS ){
+            names = getDatabaseNames();
+            listedDatabaseNames = names;
+            listedDatabaseNamesTime = System.currentTimeMillis();
         }
-        WrappedMongoDatabase db = new WrappedMongoDatabase(mongoClient.getDatabase(dbName), scanStrategy, sortFields );
-        cachedDatabases.put( dbName, db );
-        return db;
+        return names.contains( dbName );
+    }
+
+    public WrappedMongoDatabase getDatabase(String dbName) {
+        return cachedDatabases.computeIfAbsent( dbName, name -> new WrappedMongoDatabase(mongoClient.getDatabase(name), scanOptions, sortFields, this::executeScan, schemaCache ));
     }
 
     public List<WrappedMongoDatabase> getDatabases() {
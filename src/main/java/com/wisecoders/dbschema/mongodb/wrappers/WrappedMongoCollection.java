@@ -10,12 +10,16 @@ import com.mongodb.client.model.*;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
 import com.wisecoders.dbschema.mongodb.GraalConvertor;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
 import org.bson.BsonString;
+import org.bson.BsonValue;
 import org.bson.Document;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.conversions.Bson;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -40,8 +44,19 @@ public class WrappedMongoCollection<TDocument> {
 
 
 
-    private TDocument toDocument( Map map ){
-        return (TDocument)( new Document( GraalConvertor.convertMap(map) ));
+    /**
+     * Documents from scripts are converted directly to BsonDocument and written using this collection.
+     */
+    private MongoCollection<BsonDocument> bsonCollection(){
+        return mongoCollection.withDocumentClass( BsonDocument.class );
+    }
+
+    private List<BsonDocument> toBsonDocuments( Iterable<?> iterable ){
+        final List<BsonDocument> documents = new ArrayList<>();
+        for ( Object obj : iterable ){
+            documents.add( GraalConvertor.toBsonDocument( obj ));
+        }
+        return documents;
     }
 
     @Override
@@ -114,99 +129,99 @@ public class WrappedMongoCollection<TDocument> {
     }
 
     public long count() {
-        return mongoCollection.countDocuments();
+        return mongoCollection.countDocuments( new BsonDocument(), OperationContext.apply( new CountOptions()));
     }
 
     public long count(Map filter) {
-        return mongoCollection.countDocuments( GraalConvertor.toBson(filter));
+        return mongoCollection.countDocuments( GraalConvertor.toReadFilter(filter), OperationContext.apply( new CountOptions()));
     }
 
     public long count(Map filter, CountOptions options) {
-        return mongoCollection.countDocuments( GraalConvertor.toBson( filter), options );
+        return mongoCollection.countDocuments( GraalConvertor.toReadFilter( filter), OperationContext.apply( options ));
     }
 
 
     public long count(ClientSession clientSession) {
-        return mongoCollection.countDocuments( clientSession );
+        return mongoCollection.countDocuments( clientSession, new BsonDocument(), OperationContext.apply( new CountOptions()));
     }
 
 
     public long count(ClientSession clientSession, Map filter) {
-        return mongoCollection.countDocuments(clientSession, GraalConvertor.toBson( filter ));
+        return mongoCollection.countDocuments(clientSession, GraalConvertor.toReadFilter( filter ), OperationContext.apply( new CountOptions()));
     }
 
 
     public long count(ClientSession clientSession, Map filter, CountOptions options) {
-        return mongoCollection.countDocuments( clientSession, GraalConvertor.toBson(filter), options );
+        return mongoCollection.countDocuments( clientSession, GraalConvertor.toReadFilter(filter), OperationContext.apply( options ));
     }
 
 
     public long countDocuments() {
-        return mongoCollection.countDocuments();
+        return mongoCollection.countDocuments( new BsonDocument(), OperationContext.apply( new CountOptions()));
     }
 
 
     public long countDocuments(Map filter) {
-        return mongoCollection.countDocuments( GraalConvertor.toBson( filter ));
+        return mongoCollection.countDocuments( GraalConvertor.toReadFilter( filter ), OperationContext.apply( new CountOptions()));
     }
 
 
     public long countDocuments(Map filter, CountOptions options) {
-        return mongoCollection.countDocuments( GraalConvertor.toBson( filter ), options);
+        return mongoCollection.countDocuments( GraalConvertor.toReadFilter( filter ), OperationContext.apply( options ));
     }
 
 
     public long countDocuments(ClientSession clientSession) {
-        return mongoCollection.countDocuments( clientSession );
+        return mongoCollection.countDocuments( clientSession, new BsonDocument(), OperationContext.apply( new CountOptions()));
     }
 
 
     public long countDocuments(ClientSession clientSession, Map filter) {
-        return mongoCollection.countDocuments( clientSession, GraalConvertor.toBson(filter) );
+        return mongoCollection.countDocuments( clientSession, GraalConvertor.toReadFilter(filter), OperationContext.apply( new CountOptions()));
     }
 
 
     public long countDocuments(ClientSession clientSession, Map filter, CountOptions options) {
-        return mongoCollection.countDocuments( clientSession, GraalConvertor.toBson(filter), options);
+        return mongoCollection.countDocuments( clientSession, GraalConvertor.toReadFilter(filter), OperationContext.apply( options ));
     }
 
 
     public long estimatedDocumentCount() {
-        return mongoCollection.estimatedDocumentCount();
+        return mongoCollection.estimatedDocumentCount( OperationContext.apply( new EstimatedDocumentCountOptions()));
     }
 
 
     public long estimatedDocumentCount(EstimatedDocumentCountOptions options) {
-        return mongoCollection.estimatedDocumentCount(options);
+        return mongoCollection.estimatedDocumentCount( OperationContext.apply( options ));
     }
 
 
     public DistinctIterable distinct(String fieldName, Class aClass) {
-        return mongoCollection.distinct( fieldName, aClass );
+        return OperationContext.apply( mongoCollection.distinct( fieldName, aClass ) );
     }
 
     public DistinctIterable distinct(String fieldName) {
-        return mongoCollection.distinct( fieldName, BsonString.class );
+        return OperationContext.apply( mongoCollection.distinct( fieldName, BsonString.class ) );
     }
 
 
     public DistinctIterable distinct(String fieldName, Map filter, Class aClass) {
-        return mongoCollection.distinct( fieldName, GraalConvertor.toBson( filter ), aClass);
+        return OperationContext.apply( mongoCollection.distinct( fieldName, GraalConvertor.toBson( filter ), aClass) );
     }
 
 
     public DistinctIterable distinct(ClientSession clientSession, String fieldName, Class aClass) {
-        return mongoCollection.distinct( clientSession, fieldName, aClass );
+        return OperationContext.apply( mongoCollection.distinct( clientSession, fieldName, aClass ) );
     }
 
 
     public DistinctIterable distinct(ClientSession clientSession, String fieldName, Map filter, Class aClass) {
-        return mongoCollection.distinct( clientSession, fieldName, GraalConvertor.toBson(filter), aClass);
+        return OperationContext.apply( mongoCollection.distinct( clientSession, fieldName, GraalConvertor.toBson(filter), aClass) );
     }
 
 
-    public WrappedFindIterable find() {
-        return new WrappedFindIterable(mongoCollection.find());
+    public WrappedFindIterable<TDocument> find() {
+        return new WrappedFindIterable<>(mongoCollection.find(), mongoCollection::find, this );
     }
 
 
@@ -215,22 +230,23 @@ public class WrappedMongoCollection<TDocument> {
     }
 
 
-    public WrappedFindIterable find(Map filter) {
-        return new WrappedFindIterable( mongoCollection.find(GraalConvertor.toBson(filter)));
+    public WrappedFindIterable<TDocument> find(Map filter) {
+        final Bson bson = GraalConvertor.toReadFilter(filter);
+        return new WrappedFindIterable<>( mongoCollection.find( bson ), documentClass -> mongoCollection.find( bson, documentClass ), this );
     }
 
     public WrappedFindIterable find(Map filter, Map projection) {
-        return new WrappedFindIterable( mongoCollection.find(GraalConvertor.toBson(filter)).projection( GraalConvertor.toBson(projection) ));
+        return find( filter ).projection( GraalConvertor.toBson(projection) );
     }
 
 
     public WrappedFindIterable find(Map filter, Class aClass) {
-        return new WrappedFindIterable( mongoCollection.find( GraalConvertor.toBson(filter), aClass));
+        return new WrappedFindIterable( mongoCollection.find( GraalConvertor.toReadFilter(filter), aClass));
     }
 
 
-    public WrappedFindIterable find(ClientSession clientSession) {
-        return new WrappedFindIterable( mongoCollection.find(clientSession));
+    public WrappedFindIterable<TDocument> find(ClientSession clientSession) {
+        return new WrappedFindIterable<>( mongoCollection.find(clientSession), documentClass -> mongoCollection.find( clientSession, documentClass ), this );
     }
 
 
@@ -239,13 +255,14 @@ public class WrappedMongoCollection<TDocument> {
     }
 
 
-    public WrappedFindIterable find(ClientSession clientSession, Map filter) {
-        return new WrappedFindIterable( mongoCollection.find( clientSession, GraalConvertor.toBson(filter) ));
+    public WrappedFindIterable<TDocument> find(ClientSession clientSession, Map filter) {
+        final Bson bson = GraalConvertor.toReadFilter(filter);
+        return new WrappedFindIterable<>( mongoCollection.find( clientSession, bson ), documentClass -> mongoCollection.find( clientSession, bson, documentClass ), this );
     }
 
 
     public WrappedFindIterable find(ClientSession clientSession, Map filter, Class aClass) {
-        return new WrappedFindIterable( mongoCollection.find( clientSession, GraalConvertor.toBson(filter), aClass ));
+        return new WrappedFindIterable( mongoCollection.find( clientSession, GraalConvertor.toReadFilter(filter), aClass ));
     }
 
     //
@@ -261,16 +278,16 @@ public class WrappedMongoCollection<TDocument> {
 
 
     public TDocument findOne(Map filter) {
-        return new WrappedFindIterable<TDocument>( mongoCollection.find(GraalConvertor.toBson(filter))).first();
+        return new WrappedFindIterable<TDocument>( mongoCollection.find(GraalConvertor.toReadFilter(filter))).first();
     }
 
     public TDocument findOne(Map filter, Map projection) {
-        return new WrappedFindIterable<TDocument>( mongoCollection.find(GraalConvertor.toBson(filter)).projection( GraalConvertor.toBson(projection) )).first();
+        return new WrappedFindIterable<TDocument>( mongoCollection.find(GraalConvertor.toReadFilter(filter)).projection( GraalConvertor.toBson(projection) )).first();
     }
 
 
     public TDocument findOne(Map filter, Class aClass) {
-        return new WrappedFindIterable<TDocument>( mongoCollection.find( GraalConvertor.toBson(filter), aClass)).first();
+        return new WrappedFindIterable<TDocument>( mongoCollection.find( GraalConvertor.toReadFilter(filter), aClass)).first();
     }
 
 
@@ -285,65 +302,64 @@ public class WrappedMongoCollection<TDocument> {
 
 
     public TDocument findOne(ClientSession clientSession, Map filter) {
-        return new WrappedFindIterable<TDocument>( mongoCollection.find( clientSession, GraalConvertor.toBson(filter) )).first();
+        return new WrappedFindIterable<TDocument>( mongoCollection.find( clientSession, GraalConvertor.toReadFilter(filter) )).first();
     }
 
 
     public TDocument findOne(ClientSession clientSession, Map filter, Class aClass) {
-        return new WrappedFindIterable<TDocument>( mongoCollection.find( clientSession, GraalConvertor.toBson(filter), aClass )).first();
+        return new WrappedFindIterable<TDocument>( mongoCollection.find( clientSession, GraalConvertor.toReadFilter(filter), aClass )).first();
     }
 
-    public AggregateIterable aggregate(List pipeline) {
-        return mongoCollection.aggregate(GraalConvertor.toList(pipeline));
+    public WrappedAggregateIterable<TDocument> aggregate(List<?> pipeline) {
+        return new WrappedAggregateIterable<>( GraalConvertor.toList(pipeline), mongoCollection::aggregate, mongoCollection::aggregate );
     }
 
-    public AggregateIterable aggregate(Object object) {
-        List list = new ArrayList();
+    public WrappedAggregateIterable<TDocument> aggregate(Object object) {
+        List<Bson> list = new ArrayList<>();
         list.add( GraalConvertor.toBson(object) );
-        return mongoCollection.aggregate(list);
+        return new WrappedAggregateIterable<>( list, mongoCollection::aggregate, mongoCollection::aggregate );
     }
 
-    public AggregateIterable aggregate(Object obj1, Object obj2) {
-        List list = new ArrayList();
+    public WrappedAggregateIterable<TDocument> aggregate(Object obj1, Object obj2) {
+        List<Bson> list = new ArrayList<>();
         list.add( GraalConvertor.toBson(obj1) );
         list.add( GraalConvertor.toBson(obj2));
-        return mongoCollection.aggregate(list);
+        return new WrappedAggregateIterable<>( list, mongoCollection::aggregate, mongoCollection::aggregate );
     }
 
-    public AggregateIterable aggregate(Object obj1, Object obj2, Object obj3) {
-        List list = new ArrayList();
+    public WrappedAggregateIterable<TDocument> aggregate(Object obj1, Object obj2, Object obj3) {
+        List<Bson> list = new ArrayList<>();
         list.add( GraalConvertor.toBson(obj1) );
         list.add( GraalConvertor.toBson(obj2));
         list.add( GraalConvertor.toBson(obj3));
-        return mongoCollection.aggregate(list);
+        return new WrappedAggregateIterable<>( list, mongoCollection::aggregate, mongoCollection::aggregate );
     }
 
-    public AggregateIterable aggregate(Object obj1, Object obj2, Object obj3, Object obj4) {
-        List list = new ArrayList();
+    public WrappedAggregateIterable<TDocument> aggregate(Object obj1, Object obj2, Object obj3, Object obj4) {
+        List<Bson> list = new ArrayList<>();
         list.add( GraalConvertor.toBson(obj1) );
         list.add( GraalConvertor.toBson(obj2));
         list.add( GraalConvertor.toBson(obj3));
         list.add( GraalConvertor.toBson(obj4));
-        return mongoCollection.aggregate(list);
+        return new WrappedAggregateIterable<>( list, mongoCollection::aggregate, mongoCollection::aggregate );
     }
 
 
 
-    public AggregateIterable aggregate(List pipeline, Class aClass) {
-        return mongoCollection.aggregate( GraalConvertor.toList(pipeline), aClass );
+    public <TResult> WrappedAggregateIterable<TResult> aggregate(List<?> pipeline, Class<TResult> aClass) {
+        return new WrappedAggregateIterable<>( GraalConvertor.toList(pipeline), stages -> mongoCollection.aggregate( stages, aClass ), null );
     }
 
 
-    public AggregateIterable aggregate(ClientSession clientSession, List pipeline) {
-        return mongoCollection.aggregate( clientSession, GraalConvertor.toList(pipeline) );
+    public WrappedAggregateIterable<TDocument> aggregate(ClientSession clientSession, List<?> pipeline) {
+        return new WrappedAggregateIterable<>( GraalConvertor.toList(pipeline), stages -> mongoCollection.aggregate( clientSession, stages ), ( stages, documentClass ) -> mongoCollection.aggregate( clientSession, stages, documentClass ));
     }
 
 
-    public AggregateIterable aggregate(ClientSession clientSession, List pipeline, Class aClass) {
-        return mongoCollection.aggregate( clientSession, GraalConvertor.toList(pipeline), aClass );
+    public <TResult> WrappedAggregateIterable<TResult> aggregate(ClientSession clientSession, List<?> pipeline, Class<TResult> aClass) {
+        return new WrappedAggregateIterable<>( GraalConvertor.toList(pipeline), stages -> mongoCollection.aggregate( clientSession, stages, aClass ), null );
     }
 
-
     public ChangeStreamIterable watch() {
         return mongoCollection.watch();
     }
@@ -427,51 +443,56 @@ public class WrappedMongoCollection<TDocument> {
         return mongoCollection.bulkWrite( clientSession, requests, options );
     }
 
+    /**
+     * Used by JDBC batches. The write models hold documents converted to BsonDocument.
+     */
+    public BulkWriteResult bsonBulkWrite(List<WriteModel<BsonDocument>> requests, BulkWriteOptions options) {
+        return bsonCollection().bulkWrite( requests, options );
+    }
+
 
     public void insertOne(Map input) {
-        mongoCollection.insertOne( toDocument(input ) );
+        bsonCollection().insertOne( GraalConvertor.toBsonDocument( input ));
     }
 
     public void insertOne(Map input, InsertOneOptions options) {
-        mongoCollection.insertOne( toDocument(input), options );
+        bsonCollection().insertOne( GraalConvertor.toBsonDocument( input ), options );
     }
 
 
     public void insertOne(ClientSession clientSession, Map input) {
-        mongoCollection.insertOne( clientSession, toDocument( input ));
+        bsonCollection().insertOne( clientSession, GraalConvertor.toBsonDocument( input ));
     }
 
 
     public void insertOne(ClientSession clientSession, Map input, InsertOneOptions options) {
-        mongoCollection.insertOne( clientSession, toDocument(input), options );
+        bsonCollection().insertOne( clientSession, GraalConvertor.toBsonDocument( input ), options );
     }
 
 
     public void insertMany(Object[] arr) {
-        for ( Object obj: arr ){
-            insertOne( (Map)obj );
-        }
+        insertMany( Arrays.asList( arr ));
     }
 
     public void insertMany(List list) {
-        for ( Object obj: list ){
-            insertOne( (Map)obj );
+        if ( !list.isEmpty() ) {
+            bsonCollection().insertMany( toBsonDocuments( list ));
         }
     }
 
     public void insertMany(Object obj) {
-        List list = GraalConvertor.toList( obj );
-        if ( list != null ) {
-            for (Map map1 : (List<Map>) list) {
-                insertOne(map1);
+        final BsonValue value = GraalConvertor.toBsonValue( obj );
+        if ( value instanceof BsonArray ) {
+            if ( !((BsonArray)value).isEmpty() ){
+                bsonCollection().insertMany( toBsonDocuments( (BsonArray)value ));
             }
-        } else if (obj instanceof Map) {
-            insertOne((Map) obj);
+        } else if ( value instanceof BsonDocument ) {
+            bsonCollection().insertOne( (BsonDocument)value );
         }
     }
 
     public void insert(Map input) {
-        mongoCollection.insertOne( toDocument(input));
+        bsonCollection().insertOne( GraalConvertor.toBsonDocument( input ));
     }
 
     /*
@@ -488,14 +509,17 @@ public class WrappedMongoCollection<TDocument> {
 
 
     public void insertMany(List<Map> list, InsertManyOptions options) {
+        bsonCollection().insertMany( toBsonDocuments( list ), options );
     }
 
 
     public void insertMany(ClientSession clientSession, List list) {
+        bsonCollection().insertMany( clientSession, toBsonDocuments( list ));
     }
 
 
     public void insertMany(ClientSession clientSession, List list, InsertManyOptions options) {
+        bsonCollection().insertMany( clientSession, toBsonDocuments( list ), options );
     }
 
 
@@ -543,12 +567,12 @@ public class WrappedMongoCollection<TDocument> {
 
 
     public UpdateResult replaceOne(Map filter, Map replacement) {
-        return mongoCollection.replaceOne( GraalConvertor.toBson(filter), toDocument(replacement) );
+        return bsonCollection().replaceOne( GraalConvertor.toBson(filter), GraalConvertor.toBsonDocument(replacement) );
     }
 
 
     public UpdateResult replaceOne(Bson filter, Map replacement, ReplaceOptions updateOptions) {
-        return mongoCollection.replaceOne( GraalConvertor.toBson(filter), toDocument(replacement), updateOptions );
+        return bsonCollection().replaceOne( GraalConvertor.toBson(filter), GraalConvertor.toBsonDocument(replacement), updateOptions );
     }
 
 
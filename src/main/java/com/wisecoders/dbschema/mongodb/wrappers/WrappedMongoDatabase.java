@@ -2,24 +2,34 @@ package com.wisecoders.dbschema.mongodb.wrappers;
 
 import com.google.gson.GsonBuilder;
 import com.mongodb.client.ListCollectionsIterable;
+import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.MongoIterable;
 import com.mongodb.client.model.CreateCollectionOptions;
 import com.mongodb.client.model.ValidationOptions;
 import com.wisecoders.dbschema.mongodb.GraalConvertor;
-import com.wisecoders.dbschema.mongodb.ScanStrategy;
+import com.wisecoders.dbschema.mongodb.ScanOptions;
 import com.wisecoders.dbschema.mongodb.Util;
 import com.wisecoders.dbschema.mongodb.structure.MetaCollection;
 import com.wisecoders.dbschema.mongodb.structure.MetaDatabase;
+import com.wisecoders.dbschema.mongodb.structure.SchemaCache;
 import org.bson.Document;
 import org.graalvm.polyglot.Value;
 import org.graalvm.polyglot.proxy.ProxyExecutable;
 import org.graalvm.polyglot.proxy.ProxyObject;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 
 import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
@@ -34,13 +44,21 @@ import static com.wisecoders.dbschema.mongodb.JdbcDriver.LOGGER;
 public class WrappedMongoDatabase implements ProxyObject {
 
     private final MongoDatabase mongoDatabase;
-    private final ScanStrategy scanStrategy;
+    private final ScanOptions scanOptions;
     public final MetaDatabase metaDatabase;
     private final boolean sortFields;
+    private final Executor scanExecutor;
+    // THE COLLECTIONS IN DISCOVERY OR DISCOVERED, SO EACH COLLECTION IS SCANNED ONCE ALSO IF REQUESTED FROM MORE THREADS
+    private final Map<String,Discovery> discoveries = new ConcurrentHashMap<>();
+    private final SchemaCache schemaCache;
+    // THE SIGNALS OF THE COLLECTIONS SCANNED BY THIS CONNECTION, TO SAVE THEM AGAIN WITH THE DISCOVERED REFERENCES
+    private final Map<String,SchemaCache.Signals> scannedSignals = new ConcurrentHashMap<>();
 
-    WrappedMongoDatabase( MongoDatabase mongoDatabase, ScanStrategy scanStrategy, boolean sortFields ){
+    WrappedMongoDatabase( MongoDatabase mongoDatabase, ScanOptions scanOptions, boolean sortFields, Executor scanExecutor, SchemaCache schemaCache ){
         this.mongoDatabase = mongoDatabase;
-        this.scanStrategy = scanStrategy;
+        this.scanOptions = scanOptions;
+        this.scanExecutor = scanExecutor;
+        this.schemaCache = schemaCache;
         this.metaDatabase = new MetaDatabase(mongoDatabase.getName());
         this.sortFields = sortFields;
         try {
@@ -75,17 +93,156 @@ public class WrappedMongoDatabase implements ProxyObject {
     public MetaCollection getMetaCollection( String collectionName){
         if ( collectionName == null || collectionName.length() == 0 ) return null;
 
-        final MetaCollection metaCollection = metaDatabase.getMetaCollection(collectionName);
-        if (metaCollection == null) {
+        final Discovery discovery = startDiscovery( collectionName, false );
+        // SCAN IN THIS THREAD, IF NOT ALREADY STARTED IN BACKGROUND
+        discovery.run();
+        return discovery.future.join();
+    }
+
+    /**
+     * Discover the given collections concurrently, using the scan threads of the connection, and wait until all are done.
+     * Collections which cannot be discovered are logged and are missing from the result.
+     */
+    public Map<String,MetaCollection> getMetaCollections( Collection<String> collectionNames ){
+        final Map<String,Discovery> discoveries = new LinkedHashMap<>();
+        for ( String collectionName : collectionNames ){
+            discoveries.put( collectionName, startDiscovery( collectionName, true ));
+        }
+        final Map<String,MetaCollection> metaCollections = new LinkedHashMap<>();
+        for ( Map.Entry<String,Discovery> entry : discoveries.entrySet() ){
+            // SCAN IN THIS THREAD THE COLLECTIONS NOT YET STARTED BY THE SCAN THREADS, OR REJECTED BECAUSE THE CONNECTION IS CLOSED
+            entry.getValue().run();
+            final MetaCollection metaCollection = entry.getValue().future.join();
+            if ( metaCollection != null ){
+                metaCollections.put( entry.getKey(), metaCollection );
+            }
+        }
+        return metaCollections;
+    }
+
+    /**
+     * Start discovering the given collections using the scan threads of the connection, without waiting.
+     * Later getMetaCollection() calls wait for the running scans.
+     */
+    public void discoverInBackground( Collection<String> collectionNames ){
+        for ( String collectionName : collectionNames ){
+            startDiscovery( collectionName, true );
+        }
+    }
+
+    private Discovery startDiscovery( String collectionName, boolean execute ){
+        final Discovery discovery = new Discovery( collectionName );
+        final Discovery existing = discoveries.putIfAbsent( collectionName, discovery );
+        if ( existing != null ){
+            return existing;
+        }
+        final MetaCollection metaCollection = metaDatabase.getMetaCollection( collectionName );
+        if ( metaCollection != null ){
+            // DEFINED BY THE VALIDATOR
+            discovery.started.set( true );
+            discovery.future.complete( metaCollection );
+        } else if ( execute ){
+            try {
+                scanExecutor.execute( discovery );
+            } catch ( RejectedExecutionException ex ){
+                // THE CONNECTION IS CLOSED. THE CALLER THREAD SCANS IN getMetaCollection() OR getMetaCollections()
+            }
+        }
+        return discovery;
+    }
+
+    /**
+     * The document count, data size and indexes of the collection, read before the scan to check the schema cache.
+     */
+    private SchemaCache.Signals readSignals( String collectionName ){
+        final MongoCollection<Document> collection = mongoDatabase.getCollection( collectionName );
+        long count = -1, size = -1;
+        try {
+            count = collection.estimatedDocumentCount();
+        } catch ( RuntimeException ex ){
+            LOGGER.log( Level.FINE, "Cannot read the document count of " + collectionName, ex );
+        }
+        try {
+            final Object dataSize = mongoDatabase.runCommand( new Document("collStats", collectionName )).get("size");
+            if ( dataSize instanceof Number ) size = ((Number)dataSize).longValue();
+        } catch ( RuntimeException ex ){
+            LOGGER.log( Level.FINE, "Cannot read the data size of " + collectionName, ex );
+        }
+        final List<String> indexes = new ArrayList<>();
+        try {
+            for ( Document index : collection.listIndexes() ){
+                indexes.add( index.get("name") + " " + index.get("key", Document.class ).toJson() );
+            }
+        } catch ( RuntimeException ex ){
+            LOGGER.log( Level.FINE, "Cannot read the indexes of " + collectionName, ex );
+        }
+        return new SchemaCache.Signals( count, size, indexes, scanOptions + ( sortFields ? " sort" : "" ));
+    }
+
+    /**
+     * Discover the references between the collections, once per connection.
+     * The collections scanned by this connection are saved again in the schema cache, with the references.
+     */
+    public void discoverReferences(){
+        if ( metaDatabase.discoverReferences( this ) && schemaCache != null ){
+            for ( Map.Entry<String,SchemaCache.Signals> entry : scannedSignals.entrySet() ){
+                final MetaCollection metaCollection = metaDatabase.getMetaCollection( entry.getKey() );
+                if ( metaCollection != null ){
+                    schemaCache.save( metaCollection, entry.getValue() );
+                }
+            }
+        }
+    }
+
+    /**
+     * Complete the discoveries not yet started with no result. Called when the connection is closed and the scan threads stop.
+     */
+    void cancelDiscoveries(){
+        for ( Discovery discovery : discoveries.values() ){
+            if ( discovery.started.compareAndSet( false, true )){
+                discoveries.remove( discovery.collectionName, discovery );
+                discovery.future.complete( null );
+            }
+        }
+    }
+
+    /**
+     * The scan of one collection. Runs once, in the first thread calling run(), which can be a scan thread or the caller thread.
+     * The collection is added to the MetaDatabase after it is scanned, so other threads do not see it half scanned.
+     */
+    private class Discovery implements Runnable {
+        final String collectionName;
+        final AtomicBoolean started = new AtomicBoolean();
+        final CompletableFuture<MetaCollection> future = new CompletableFuture<>();
+
+        Discovery( String collectionName ){
+            this.collectionName = collectionName;
+        }
+
+        @Override
+        public void run() {
+            if ( !started.compareAndSet( false, true )) return;
             try {
-                return metaDatabase.createMetaCollection( collectionName, true ).scanDocumentsAndIndexes( getCollection(collectionName), scanStrategy, sortFields );
+                final SchemaCache.Signals signals = schemaCache != null ? readSignals( collectionName ) : null;
+                MetaCollection metaCollection = signals != null ? schemaCache.load( metaDatabase, collectionName, signals ) : null;
+                if ( metaCollection != null ){
+                    LOGGER.log(Level.INFO, "Loaded " + mongoDatabase.getName() + "." + collectionName + " from the schema cache.");
+                } else {
+                    metaCollection = new MetaCollection( metaDatabase, collectionName, true ).scanDocumentsAndIndexes( getCollection(collectionName), scanOptions, sortFields );
+                    if ( signals != null ){
+                        schemaCache.save( metaCollection, signals );
+                        scannedSignals.put( collectionName, signals );
+                    }
+                }
+                metaDatabase.addMetaCollection( metaCollection );
+                future.complete( metaCollection );
             } catch ( Throwable ex ){
                 LOGGER.log(Level.SEVERE, "Error discovering collection " + mongoDatabase.getName() + "." + collectionName + ". ", ex );
+                // A LATER CALL WILL TRY AGAIN
+                discoveries.remove( collectionName, this );
+                future.complete( null );
             }
-        } else {
-            return metaCollection;
         }
-        return null;
     }
 
     @Override
@@ -186,7 +343,7 @@ public class WrappedMongoDatabase implements ProxyObject {
         @Override
         public Object execute(Value... args) {
             if( args.length == 1 ) {
-                return mongoDatabase.runCommand( GraalConvertor.toBson( args[0].as(Map.class)) );
+                return mongoDatabase.runCommand( OperationContext.apply( GraalConvertor.toBson( args[0] )));
             }
             return null;
         }
@@ -0,0 +1,102 @@
+package com.wisecoders.dbschema.mongodb;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import com.wisecoders.dbschema.mongodb.structure.MetaCollection;
+import com.wisecoders.dbschema.mongodb.structure.MetaDatabase;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to
+ * the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class AdaptiveScanTest {
+
+    private static final DocumentCodec CODEC = new DocumentCodec();
+
+    private static Iterator<RawBsonDocument> documents( int count, int newFieldAt ){
+        final List<RawBsonDocument> documents = new ArrayList<>();
+        for ( int i = 0; i < count; i++ ){
+            final Document document = new Document("_id", new ObjectId()).append("name", "name" + i );
+            if ( i >= newFieldAt ) document.append("age", i );
+            documents.add( RawBsonDocument.parse( document.toJson()));
+        }
+        return documents.iterator();
+    }
+
+    private static ScanOptions options( int stableDocuments, long byteBudget ){
+        final ScanOptions options = new ScanOptions( ScanStrategy.adaptive );
+        options.stableDocuments = stableDocuments;
+        options.byteBudget = byteBudget;
+        return options;
+    }
+
+    @Test
+    public void testConverged() {
+        final MetaCollection collection = new MetaDatabase("db").createMetaCollection("persons", true );
+        assertNull( collection.getScanConverged());
+        // THE FIRST DOCUMENT ADDS name, DOCUMENT 50 ADDS age, THEN 100 DOCUMENTS WITHOUT CHANGES
+        final long cnt = collection.scanAdaptive( documents( 1000, 50 ), CODEC, true, options( 100, 0 ), Long.MAX_VALUE, false );
+        assertEquals( 151, cnt );
+        assertTrue( collection.getScanConverged());
+        assertNotNull( collection.getField("age"));
+    }
+
+    @Test
+    public void testAllDocumentsRead() {
+        final MetaCollection collection = new MetaDatabase("db").createMetaCollection("persons", true );
+        assertEquals( 20, collection.scanAdaptive( documents( 20, 10 ), CODEC, true, options( 100, 0 ), Long.MAX_VALUE, false ));
+        assertTrue( collection.getScanConverged());
+
+        // A $sample MAY MISS DOCUMENTS
+        final MetaCollection sampled = new MetaDatabase("db").createMetaCollection("persons", true );
+        sampled.scanAdaptive( documents( 20, 10 ), CODEC, false, options( 100, 0 ), Long.MAX_VALUE, false );
+        assertFalse( sampled.getScanConverged());
+    }
+
+    @Test
+    public void testBudget() {
+        final MetaCollection collection = new MetaDatabase("db").createMetaCollection("persons", true );
+        final long cnt = collection.scanAdaptive( documents( 1000, 500 ), CODEC, true, options( 100, 1000 ), Long.MAX_VALUE, false );
+        assertTrue( cnt > 0 && cnt < 100 );
+        assertFalse( collection.getScanConverged());
+        assertNull( collection.getField("age"));
+
+        final MetaCollection timedOut = new MetaDatabase("db").createMetaCollection("persons", true );
+        assertEquals( 0, timedOut.scanAdaptive( documents( 1000, 500 ), CODEC, true, options( 100, 0 ), System.currentTimeMillis() - 1, false ));
+        assertFalse( timedOut.getScanConverged());
+    }
+
+    @Test
+    public void testServerTimeout() {
+        final Iterator<RawBsonDocument> documents = documents( 1000, 0 );
+        // THE SERVER STOPS THE CURSOR AFTER 30 DOCUMENTS
+        final Iterator<RawBsonDocument> timingOut = new Iterator<RawBsonDocument>() {
+            int read = 0;
+            @Override
+            public boolean hasNext() {
+                if ( read >= 30 ) throw new MongoExecutionTimeoutException( 50, "operation exceeded time limit");
+                return documents.hasNext();
+            }
+            @Override
+            public RawBsonDocument next() {
+                read++;
+                return documents.next();
+            }
+        };
+        final MetaCollection collection = new MetaDatabase("db").createMetaCollection("persons", true );
+        assertEquals( 30, collection.scanAdaptive( timingOut, CODEC, false, options( 100, 0 ), Long.MAX_VALUE, false ));
+        assertFalse( collection.getScanConverged());
+        assertNotNull( collection.getField("age"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.wisecoders.dbschema.mongodb;
+
+import com.wisecoders.dbschema.mongodb.resultSet.ArrayResultSet;
+import org.junit.Test;
+
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+
+import static org.junit.Assert.*;
+
+/**
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to
+ * the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class ArrayResultSetTest {
+
+    @Test
+    public void testRows() throws Exception {
+        final ArrayResultSet rs = new ArrayResultSet();
+        rs.setColumnNames(new String[]{ "COLUMN_NAME", "DATA_TYPE", "NULLABLE" });
+        rs.setColumnTypes(new int[]{ Types.VARCHAR, Types.INTEGER, Types.INTEGER });
+        for ( int i = 0; i < 100000; i++ ){
+            rs.addRow( new Object[]{ "field" + i, Types.VARCHAR, i % 2 == 0 ? null : 1 });
+        }
+        assertEquals( 100000, rs.getRowCount());
+        final ResultSetMetaData metaData = rs.getMetaData();
+        assertEquals( Types.VARCHAR, metaData.getColumnType(1));
+        assertEquals( Types.INTEGER, metaData.getColumnType(2));
+        assertEquals( Types.INTEGER, metaData.getColumnType(3));
+        int rows = 0;
+        while ( rs.next() ){
+            assertEquals( "field" + rows, rs.getString("COLUMN_NAME"));
+            assertEquals( Types.VARCHAR, rs.getInt("DATA_TYPE"));
+            assertEquals( String.valueOf( Types.VARCHAR ), rs.getString(2));
+            assertEquals( rows % 2 == 0 ? 0 : 1, rs.getInt(3));
+            assertEquals( rows % 2 == 0, rs.wasNull());
+            rows++;
+        }
+        assertEquals( 100000, rows );
+    }
+
+    @Test
+    public void testMixedColumn() throws Exception {
+        final ArrayResultSet rs = new ArrayResultSet();
+        rs.setColumnNames(new String[]{ "A", "B" });
+        rs.addRow( new Object[]{ 1 });
+        rs.addRow( new String[]{ "2", "x" });
+        final ArrayResultSet other = new ArrayResultSet();
+        other.addRow( new Object[]{ 3, "y" });
+        rs.addResultSet( other );
+        assertEquals( Types.VARCHAR, rs.getMetaData().getColumnType(1));
+        assertTrue( rs.next());
+        assertEquals( 1, rs.getInt(1));
+        assertNull( rs.getString(2));
+        assertTrue( rs.next());
+        assertEquals( 2, rs.getInt("A"));
+        assertEquals( "x", rs.getString("B"));
+        assertTrue( rs.next());
+        assertEquals( 3, rs.getObject(1));
+        assertFalse( rs.next());
+    }
+
+    @Test
+    public void testCopyNull() throws Exception {
+        final ArrayResultSet rs = new ArrayResultSet();
+        rs.addRow( new Object[]{ 1 });
+        final ArrayResultSet other = new ArrayResultSet();
+        other.addRow( new Object[]{ null });
+        other.addRow( new Object[]{ 2 });
+        rs.addResultSet( other );
+        assertEquals( 3, rs.getRowCount());
+        assertTrue( rs.next());
+        assertEquals( 1, rs.getInt(1));
+        assertTrue( rs.next());
+        assertNull( rs.getObject(1));
+        assertTrue( rs.wasNull());
+        assertTrue( rs.next());
+        assertEquals( 2, rs.getObject(1));
+        assertFalse( rs.wasNull());
+    }
+
+    @Test
+    public void testDeclaredTypes() throws Exception {
+        // THE TYPES DO NOT DEPEND ON THE ROWS
+        final ArrayResultSet empty = new ArrayResultSet();
+        empty.setColumnNames(new String[]{ "COLUMN_NAME", "DATA_TYPE" });
+        empty.setColumnTypes(new int[]{ Types.VARCHAR, Types.INTEGER });
+        assertEquals( Types.INTEGER, empty.getMetaData().getColumnType(2));
+
+        final ArrayResultSet undeclared = new ArrayResultSet();
+        undeclared.setColumnNames(new String[]{ "DATA_TYPE" });
+        undeclared.addRow( new Object[]{ Types.INTEGER });
+        assertEquals( Types.VARCHAR, undeclared.getMetaData().getColumnType(1));
+    }
+}
@@ -0,0 +1,76 @@
+package com.wisecoders.dbschema.mongodb;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the first query executed on a new connection and of a query on an open connection.
+ * All connections share the same polyglot Engine, so only the first connection should pay the JavaScript warm-up.
+ * Run with the main() method; requires a MongoDB server on localhost:27017.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with DbSchema Database Designer https://dbschema.com
+ * Free to use by everyone, code modifications allowed only to
+ * the public repository https://github.com/wise-coders/mongodb-jdbc-driver
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextPoolBenchmark {
+
+    private static final String url = "jdbc:mongodb://localhost:27017/local?scan=fast&connectTimeoutMS=1000";
+
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws ClassNotFoundException, SQLException {
+        Class.forName("com.wisecoders.dbschema.mongodb.JdbcDriver");
+        connection = DriverManager.getConnection( url, null, null);
+        try ( Statement stmt = connection.createStatement() ) {
+            stmt.execute("local.benchmark.drop();");
+            stmt.execute("local.benchmark.insertOne({name: 'Java', qty:2});");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void firstQueryOnNewConnection( Blackhole blackhole ) throws SQLException {
+        try ( Connection con = DriverManager.getConnection( url, null, null)) {
+            query( con, blackhole );
+        }
+    }
+
+    @Benchmark
+    public void queryOnOpenConnection( Blackhole blackhole ) throws SQLException {
+        query( connection, blackhole );
+    }
+
+    private void query( Connection con, Blackhole blackhole ) throws SQLException {
+        try ( Statement stmt = con.createStatement() ) {
+            final ResultSet rs = stmt.executeQuery("local.benchmark.find({qty:{$gt:1}})");
+            while ( rs.next() ) {
+                blackhole.consume( rs.getObject(1));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner( new OptionsBuilder().include( ContextPoolBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
@@ -0,0 +1,73 @@
+package com.wisecoders.dbschema.mongodb;
+
+import org.bson.*;
+import org.bson.types.ObjectId;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+/**
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to
+ * the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class GraalConvertorTest {
+
+    @Test
+    public void testScriptObject() {
+        try ( Context context = Context.newBuilder("js").allowAllAccess(true).build() ) {
+            final Value value = context.eval("js",
+                    "({ _id: '5f1d7a3b2a0e4c1d8c3b2a1f', name: 'Java', qty: 2, price: 2.5, big: 3000000000, " +
+                    "tags: ['a', 'b'], published: new Date(0), title: /java/i, nested: { _id: 'abc', ok: true, none: null } })");
+            // SCRIPT OBJECTS ARE GIVEN TO THE WRAPPERS AS MAP
+            final BsonDocument doc = GraalConvertor.toBsonDocument( value.as( Map.class ));
+            assertEquals( new BsonObjectId( new ObjectId("5f1d7a3b2a0e4c1d8c3b2a1f")), doc.get("_id"));
+            assertEquals( new BsonString("Java"), doc.get("name"));
+            assertEquals( new BsonInt32(2), doc.get("qty"));
+            assertEquals( new BsonDouble(2.5), doc.get("price"));
+            assertEquals( new BsonInt64(3000000000L), doc.get("big"));
+            assertEquals( 2, doc.getArray("tags").size());
+            assertEquals( new BsonDateTime(0), doc.get("published"));
+            assertEquals( new BsonRegularExpression("java", "i"), doc.get("title"));
+            final BsonDocument nested = doc.getDocument("nested");
+            assertEquals( new BsonString("abc"), nested.get("_id"));
+            assertEquals( BsonBoolean.TRUE, nested.get("ok"));
+            assertEquals( BsonNull.VALUE, nested.get("none"));
+        }
+    }
+
+    @Test
+    public void testScriptViews() {
+        try ( Context context = Context.newBuilder("js").allowAllAccess(true).build() ) {
+            final List<?> list = context.eval("js", "[ new Date(0), /a/, { n: 1 } ]").as( List.class );
+            final Map<?,?> map = context.eval("js", "({ list: [1, 2] })").as( Map.class );
+            // THE VIEWS ARE CONVERTED ALSO IN THREADS WITHOUT THE CONTEXT ENTERED
+            final BsonDocument doc = CompletableFuture.supplyAsync( () -> GraalConvertor.toBsonDocument( new Document("list", list ).append("map", map ))).join();
+            final BsonArray array = doc.getArray("list");
+            assertEquals( new BsonDateTime(0), array.get(0));
+            assertEquals( new BsonRegularExpression("a", ""), array.get(1));
+            assertEquals( new BsonInt32(1), array.get(2).asDocument().get("n"));
+            assertEquals( 2, doc.getDocument("map").getArray("list").size());
+        }
+    }
+
+    @Test
+    public void testJavaObjects() {
+        final Document doc = new Document("_id", new ObjectId()).append("sub", new Document("n", 5L)).append("decimal", new java.math.BigDecimal("1.5"));
+        final BsonDocument bson = GraalConvertor.toBsonDocument( doc );
+        assertEquals( new BsonObjectId( doc.getObjectId("_id")), bson.get("_id"));
+        assertEquals( new BsonInt64(5), bson.getDocument("sub").get("n"));
+        assertTrue( bson.get("decimal").isDecimal128());
+    }
+
+    @Test
+    public void testJson() {
+        assertEquals( new BsonInt32(1), GraalConvertor.toBsonDocument("{ping:1}").get("ping"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.wisecoders.dbschema.mongodb;
+
+import org.bson.Document;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to
+ * the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class QueryTemplateTest {
+
+    @Test
+    public void testPlaceholders() {
+        final QueryTemplate template = QueryTemplate.compile("db.orders.find({customerId: ?, ts: {$gt: ?}, tags: [?, 'why?'] })");
+        assertEquals( 3, template.parameterCount );
+        assertEquals( "db.orders.find({customerId: __jdbcParam1, ts: {$gt: __jdbcParam2}, tags: [__jdbcParam3, 'why?'] })", template.script );
+    }
+
+    @Test
+    public void testNoPlaceholders() {
+        final String query = "db.orders.find({ $where: 'this.a > 1 ? true : false' }).map( d => d.a ? d.a : 0 ) // what?";
+        final QueryTemplate template = QueryTemplate.compile( query );
+        assertEquals( 0, template.parameterCount );
+        assertEquals( query, template.script );
+    }
+
+    @Test
+    public void testBindShellQuery() {
+        final QueryTemplate template = QueryTemplate.compile("db.orders.find({customerId: ?, ts: {$gt: ?}}).limit(10)");
+        final Map<Integer,Object> parameters = new HashMap<>();
+        final Date date = new Date();
+        parameters.put( 1, "C1" );
+        parameters.put( 2, date );
+        final ShellQuery query = template.getShellQuery( parameters );
+        assertNotNull( query );
+        final Document filter = (Document)query.calls.get(0).arguments.get(0);
+        assertEquals( "C1", filter.get("customerId"));
+        assertSame( date, ((Document)filter.get("ts")).get("$gt"));
+
+        parameters.put( 1, "C2" );
+        assertEquals( "C2", ((Document)template.getShellQuery( parameters ).calls.get(0).arguments.get(0)).get("customerId"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.wisecoders.dbschema.mongodb;
+
+import com.wisecoders.dbschema.mongodb.resultSet.ResultSetIterator;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second read from an expanded ResultSetIterator, for documents with 10, 100 and 1000 keys.
+ * Each row is read by column index, as the tools reading expanded result sets do.
+ * Run with the main() method; the documents are in memory, no server is required.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with DbSchema Database Designer https://dbschema.com
+ * Free to use by everyone, code modifications allowed only to
+ * the public repository https://github.com/wise-coders/mongodb-jdbc-driver
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultSetIteratorBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"10", "100", "1000"})
+    public int columns;
+
+    private List<Document> documents;
+
+    @Setup
+    public void setUp() {
+        documents = new ArrayList<>( ROWS );
+        for ( int r = 0; r < ROWS; r++ ){
+            final Document document = new Document();
+            for ( int c = 0; c < columns; c++ ){
+                document.append( "field" + c, c % 2 == 0 ? (Object)( r + c ) : "value" + c );
+            }
+            documents.add( document );
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void readExpanded( Blackhole blackhole ) throws SQLException {
+        final ResultSet rs = new ResultSetIterator( documents.iterator(), true );
+        while ( rs.next() ){
+            for ( int c = 1; c <= columns; c++ ){
+                blackhole.consume( rs.getObject( c ));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner( new OptionsBuilder().include( ResultSetIteratorBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
@@ -0,0 +1,360 @@
+package com.wisecoders.dbschema.mongodb;
+
+import com.wisecoders.dbschema.mongodb.resultSet.ObjectAsResultSet;
+import com.wisecoders.dbschema.mongodb.resultSet.PrefetchIterator;
+import com.wisecoders.dbschema.mongodb.resultSet.ResultSetIterator;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.Decimal128;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to
+ * the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class ResultSetIteratorTest {
+
+    @Test
+    public void testExpand() throws Exception {
+        final List<Document> documents = Arrays.asList(
+                new Document("firstname", "Luise"),
+                new Document("firstname", "John").append("lastname", "Carry").append("age", 30));
+        final ResultSet rs = new ResultSetIterator( documents.iterator(), true );
+        final ResultSetMetaData metaData = rs.getMetaData();
+        assertEquals( 3, metaData.getColumnCount());
+        assertEquals( 2, rs.findColumn("lastname"));
+        assertTrue( rs.next());
+        assertEquals( "Luise", rs.getString(1));
+        assertNull( rs.getObject(2));
+        assertTrue( rs.next());
+        assertEquals( "Carry", rs.getObject(2));
+        assertEquals( 30, rs.getInt(3));
+        assertEquals( 30, rs.getInt("age"));
+        assertFalse( rs.next());
+    }
+
+    @Test
+    public void testRawBson() throws Exception {
+        final List<RawBsonDocument> documents = Arrays.asList(
+                RawBsonDocument.parse("{ firstname: 'Luise', address: { city: 'Berlin' } }"),
+                RawBsonDocument.parse("{ firstname: 'John', age: 30, tags: ['a', 'b'] }"));
+        ResultSet rs = new ResultSetIterator( documents.iterator(), true );
+        assertEquals( 4, rs.getMetaData().getColumnCount());
+        assertTrue( rs.next());
+        assertEquals( "Luise", rs.getString("firstname"));
+        assertEquals( new Document("city", "Berlin"), rs.getObject(2));
+        assertTrue( rs.next());
+        assertEquals( 30, rs.getInt("age"));
+        assertEquals( Arrays.asList("a", "b"), rs.getObject("tags"));
+        assertNull( rs.getObject("address"));
+        assertFalse( rs.next());
+
+        // WITHOUT EXPAND THE DOCUMENT IS DECODED BY getObject()
+        rs = new ResultSetIterator( documents.iterator(), false );
+        assertTrue( rs.next());
+        assertEquals( new Document("firstname", "Luise").append("address", new Document("city", "Berlin")), rs.getObject(1));
+    }
+
+    @Test
+    public void testFlatten() throws Exception {
+        final List<Document> documents = Arrays.asList(
+                new Document("name", "Luise").append("address", new Document("city", "Berlin").append("geo", new Document("lat", 52.5))),
+                new Document("name", "John").append("address", "unknown"));
+        final ResultSet rs = new ResultSetIterator( documents.iterator(), true, 1 );
+        final ResultSetMetaData metaData = rs.getMetaData();
+        assertEquals( 4, metaData.getColumnCount());
+        assertEquals( "address.city", metaData.getColumnName(2));
+        assertEquals( "address.geo", metaData.getColumnName(3));
+        assertEquals( "address", metaData.getColumnName(4));
+        assertTrue( rs.next());
+        assertEquals( "Berlin", rs.getString("address.city"));
+        assertEquals( new Document("lat", 52.5), rs.getObject(3));
+        assertNull( rs.getObject("address"));
+        assertTrue( rs.next());
+        assertNull( rs.getObject(2));
+        assertEquals( "unknown", rs.getString(4));
+        assertFalse( rs.next());
+
+        // THE RAW DOCUMENTS ARE FLATTENED THE SAME
+        final ResultSet raw = new ResultSetIterator( Arrays.asList( RawBsonDocument.parse("{ a: { b: { c: 1 } } }")).iterator(), true, 2 );
+        assertEquals( "a.b.c", raw.getMetaData().getColumnName(1));
+        assertTrue( raw.next());
+        assertEquals( 1, raw.getInt(1));
+    }
+
+    @Test
+    public void testConversions() throws Exception {
+        final java.util.Date date = new java.util.Date( 1577258598408L );
+        final Document document = new Document("i", 7).append("l", 8L).append("d", 2.5).append("dec", Decimal128.parse("10.25"))
+                .append("date", date).append("ts", new BsonTimestamp( 1577258598, 1 )).append("b", true).append("s", "42").append("n", null).append("big", 3000000000L );
+        for ( Object row : Arrays.asList( document, RawBsonDocument.parse( document.toJson() ))){
+            final ResultSet rs = new ResultSetIterator( Arrays.asList( row ).iterator(), true );
+            assertTrue( rs.next());
+            assertEquals( 7, rs.getInt("i"));
+            assertEquals( 7L, rs.getLong("i"));
+            assertEquals( 8, rs.getInt("l"));
+            assertEquals( 2.5, rs.getDouble("d"), 0 );
+            assertEquals( 2, rs.getInt("d"));
+            assertEquals( new BigDecimal("10.25"), rs.getBigDecimal("dec"));
+            assertEquals( 10.25, rs.getDouble("dec"), 0 );
+            assertEquals( date.getTime(), rs.getTimestamp("date").getTime());
+            assertEquals( 1577258598000L, rs.getTimestamp("ts").getTime());
+            assertTrue( rs.getBoolean("b"));
+            assertEquals( 42, rs.getInt("s"));
+            assertEquals( Long.valueOf( 42 ), rs.getObject("s", Long.class ));
+            assertEquals( Integer.valueOf( 42 ), rs.getObject("s", int.class ));
+            assertEquals( "7", rs.getString("i"));
+            assertEquals( date.toInstant(), rs.getObject("date", Instant.class ));
+            assertFalse( rs.wasNull());
+            assertEquals( 0, rs.getInt("n"));
+            assertTrue( rs.wasNull());
+            assertNull( rs.getString("n"));
+            assertNull( rs.getObject("n", Integer.class ));
+            try {
+                rs.getDate("b");
+                fail("Boolean cannot be converted to Date");
+            } catch ( SQLException ex ){
+                assertEquals( "22018", ex.getSQLState());
+            }
+            // NUMBERS ARE NOT TRUNCATED
+            assertEquals( 3000000000L, rs.getLong("big"));
+            for ( String column : Arrays.asList("big", "date")){
+                try {
+                    rs.getInt( column );
+                    fail( column + " is out of the int range");
+                } catch ( SQLException ex ){
+                    assertEquals( "22003", ex.getSQLState());
+                }
+            }
+            try {
+                rs.getObject("big", Integer.class );
+                fail("big is out of the int range");
+            } catch ( SQLException ex ){
+                assertEquals( "22003", ex.getSQLState());
+            }
+            try {
+                rs.getShort("i");
+                rs.getByte("big");
+                fail("big is out of the byte range");
+            } catch ( SQLException ex ){
+                assertEquals( "22003", ex.getSQLState());
+            }
+        }
+        final ResultSet rs = new ObjectAsResultSet( Decimal128.parse("3.5") );
+        assertTrue( rs.next());
+        assertEquals( 3, rs.getInt(1));
+        assertEquals( "3.5", rs.getString(1));
+    }
+
+    @Test
+    public void testKnownColumns() throws Exception {
+        final Map<String,Integer> columns = new LinkedHashMap<>();
+        columns.put("name", Types.VARCHAR );
+        columns.put("age", Types.INTEGER );
+        final CursorIterator cursor = new CursorIterator( Arrays.asList(
+                new Document("name", "Luise"),
+                new Document("age", 30).append("name", "John").append("city", "Berlin")).iterator());
+        final ResultSet rs = new ResultSetIterator( cursor, true, 0, columns );
+        // NO DOCUMENT IS READ AHEAD, THE METADATA COMES FROM THE GIVEN COLUMNS
+        assertTrue( cursor.hasNext());
+        final ResultSetMetaData metaData = rs.getMetaData();
+        assertEquals( 2, metaData.getColumnCount());
+        assertEquals( Types.INTEGER, metaData.getColumnType(2));
+        assertSame( metaData, rs.getMetaData());
+        assertTrue( rs.next());
+        assertEquals( "Luise", rs.getString(1));
+        assertTrue( rs.next());
+        assertEquals( 30, rs.getInt(2));
+        assertEquals( "Berlin", rs.getString(3));
+        assertEquals( 3, rs.getMetaData().getColumnCount());
+        assertFalse( rs.next());
+    }
+
+    @Test
+    public void testColumnsAfterReadAhead() throws Exception {
+        // THE FIRST 300 DOCUMENTS ARE READ AHEAD. COLUMNS FOUND LATER ARE ADDED WHILE READING.
+        final List<Document> documents = new ArrayList<>();
+        for ( int i = 0; i < 400; i++ ){
+            documents.add( i < 350 ? new Document("n", i) : new Document("n", i).append("late", "x" + i));
+        }
+        final ResultSet rs = new ResultSetIterator( documents.iterator(), true );
+        int rows = 0;
+        while ( rs.next() ){
+            assertEquals( rows, rs.getInt(1));
+            if ( rows >= 350 ) assertEquals( "x" + rows, rs.getString(2));
+            rows++;
+        }
+        assertEquals( 400, rows );
+        assertEquals( 2, rs.getMetaData().getColumnCount());
+    }
+
+    @Test
+    public void testCloseCursor() throws Exception {
+        final AtomicInteger openCursors = new AtomicInteger();
+        final CursorIterator cursor = new CursorIterator( Arrays.asList( new Document("a", 1), new Document("a", 2)).iterator());
+        final ResultSet rs = new ResultSetIterator( cursor, false ).countCursor( openCursors );
+        assertEquals( 1, openCursors.get());
+        assertTrue( rs.next());
+        rs.close();
+        assertTrue( cursor.closed );
+        assertEquals( 0, openCursors.get());
+        assertTrue( rs.isClosed());
+        // A CURSOR READ TO THE END IS NO MORE COUNTED
+        final ResultSet rs2 = new ResultSetIterator( new CursorIterator( Arrays.asList( new Document("a", 1)).iterator()), false ).countCursor( openCursors );
+        while ( rs2.next() );
+        assertEquals( 0, openCursors.get());
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        final List<Document> documents = new ArrayList<>();
+        for ( int i = 0; i < 1000; i++ ){
+            documents.add( new Document("n", i ));
+        }
+        final CursorIterator cursor = new CursorIterator( documents.iterator());
+        ResultSet rs = new ResultSetIterator( new PrefetchIterator( cursor, 10 ), true );
+        int rows = 0;
+        while ( rs.next() ){
+            assertEquals( rows++, rs.getInt(1));
+        }
+        assertEquals( 1000, rows );
+
+        // CLOSING EARLY STOPS THE BACKGROUND THREAD, WHICH CLOSES THE CURSOR
+        final CursorIterator cursor2 = new CursorIterator( documents.iterator());
+        rs = new ResultSetIterator( new PrefetchIterator( cursor2, 10 ), false );
+        assertTrue( rs.next());
+        rs.close();
+        for ( int i = 0; i < 100 && !cursor2.closed; i++ ){
+            Thread.sleep( 10 );
+        }
+        assertTrue( cursor2.closed );
+    }
+
+    @Test
+    public void testPrefetchError() throws Exception {
+        final Iterator<Document> failing = new Iterator<Document>() {
+            int i = 0;
+            public boolean hasNext() {
+                if ( i == 2 ) throw new IllegalStateException("Cursor failed");
+                return true;
+            }
+            public Document next() {
+                return new Document("n", i++ );
+            }
+        };
+        final PrefetchIterator iterator = new PrefetchIterator( failing, 10 );
+        assertTrue( iterator.hasNext());
+        iterator.next();
+        iterator.next();
+        try {
+            iterator.hasNext();
+            fail("The cursor error is expected");
+        } catch ( IllegalStateException ex ){
+            assertEquals("Cursor failed", ex.getMessage());
+        }
+        assertFalse( iterator.hasNext());
+    }
+
+    @Test
+    public void testScrollable() throws Exception {
+        final List<Document> documents = new ArrayList<>();
+        for ( int i = 1; i <= 100; i++ ){
+            documents.add( new Document("n", i ).append("name", "row" + i ));
+        }
+        // 10 ROWS ON HEAP, THE NEXT ARE WRITTEN TO THE TEMPORARY FILE
+        final ResultSet rs = new ResultSetIterator( documents.iterator(), true ).scrollable( 10 );
+        assertEquals( ResultSet.TYPE_SCROLL_INSENSITIVE, rs.getType());
+        assertTrue( rs.isBeforeFirst());
+        assertTrue( rs.next());
+        assertTrue( rs.isFirst());
+        assertEquals( 1, rs.getInt("n"));
+        assertTrue( rs.absolute( 50 ));
+        assertEquals( "row50", rs.getString(2));
+        assertTrue( rs.previous());
+        assertEquals( 49, rs.getInt(1));
+        assertEquals( 49, rs.getRow());
+        assertTrue( rs.relative( -45 ));
+        assertEquals( 4, rs.getInt(1));
+        assertTrue( rs.absolute( -1 ));
+        assertTrue( rs.isLast());
+        assertEquals( 100, rs.getInt(1));
+        assertFalse( rs.next());
+        assertTrue( rs.isAfterLast());
+        assertEquals( 0, rs.getRow());
+        assertTrue( rs.previous());
+        assertEquals( 100, rs.getInt(1));
+        assertTrue( rs.first());
+        assertEquals( "row1", rs.getString(2));
+        assertTrue( rs.last());
+        assertEquals( 100, rs.getRow());
+        assertFalse( rs.absolute( 101 ));
+        rs.beforeFirst();
+        int rows = 0;
+        while ( rs.next() ){
+            assertEquals( ++rows, rs.getInt(1));
+        }
+        assertEquals( 100, rows );
+        rs.close();
+
+        final ResultSet forwardOnly = new ResultSetIterator( documents.iterator(), true );
+        assertEquals( ResultSet.TYPE_FORWARD_ONLY, forwardOnly.getType());
+        assertTrue( forwardOnly.next());
+        try {
+            forwardOnly.absolute( 1 );
+            fail("A forward only ResultSet cannot scroll");
+        } catch ( SQLException ex ){
+            // EXPECTED
+        }
+    }
+
+    private static class CursorIterator implements Iterator<Document>, AutoCloseable {
+        private final Iterator<Document> iterator;
+        volatile boolean closed = false;
+
+        CursorIterator( Iterator<Document> iterator ){
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Document next() {
+            return iterator.next();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void testNullDocuments() throws Exception {
+        final ResultSet rs = new ResultSetIterator( Arrays.asList( new Document("a", 1), null ).iterator(), true );
+        assertTrue( rs.next());
+        assertTrue( rs.next());
+        assertNull( rs.getObject(1));
+        assertFalse( rs.next());
+    }
+}
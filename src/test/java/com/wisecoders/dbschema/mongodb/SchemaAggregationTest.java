@@ -0,0 +1,82 @@
+package com.wisecoders.dbschema.mongodb;
+
+import com.wisecoders.dbschema.mongodb.structure.MetaCollection;
+import com.wisecoders.dbschema.mongodb.structure.MetaDatabase;
+import com.wisecoders.dbschema.mongodb.structure.MetaField;
+import com.wisecoders.dbschema.mongodb.structure.MetaObject;
+import com.wisecoders.dbschema.mongodb.structure.SchemaAggregation;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to
+ * the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class SchemaAggregationTest {
+
+    /**
+     * One row of the SchemaAggregation pipeline output. Used also by SchemaCacheTest.
+     */
+    static Document result( String path, String type, String elementType, int count, int elements ){
+        final Document id = new Document("k", path ).append("t", type );
+        if ( elementType != null ) id.append("a", elementType );
+        return new Document("_id", id ).append("count", count ).append("elements", elements );
+    }
+
+    @Test
+    public void testMerge() {
+        final ObjectId customerId = new ObjectId();
+        final List<Document> results = Arrays.asList(
+                result("items.qty", "int", null, 5, 0 ),
+                result("", "root", null, 10, 0 ),
+                result("_id", "objectId", null, 10, 0 ),
+                result("name", "string", null, 10, 0 ),
+                result("age", "int", null, 6, 0 ),
+                result("age", "double", null, 2, 0 ),
+                result("customer", "objectId", null, 10, 0 ).append("objectId", customerId ),
+                result("address", "object", null, 10, 0 ),
+                result("address.city", "string", null, 10, 0 ),
+                result("address.zip", "string", null, 4, 0 ),
+                result("tags", "array", "string", 3, 0 ),
+                result("items", "array", "object", 5, 7 ),
+                result("items.sku", "string", null, 7, 0 ));
+        final MetaCollection collection = new MetaDatabase("db").createMetaCollection("orders", true );
+        SchemaAggregation.merge( collection, results, false );
+
+        assertTrue( collection.getField("name").isMandatory());
+        assertEquals( "String", collection.getField("name").getTypeName());
+        assertFalse( collection.getField("age").isMandatory());
+        assertEquals( "Object", collection.getField("age").getTypeName());
+        assertEquals( customerId, collection.getField("customer").getObjectId());
+        assertNull( collection.getField("_id").getObjectId());
+
+        final MetaField address = collection.getField("address");
+        assertTrue( address instanceof MetaObject );
+        assertTrue( collection.getFieldByPath("address.city").isMandatory());
+        assertFalse( collection.getFieldByPath("address.zip").isMandatory());
+
+        assertEquals( "array[string]", collection.getField("tags").getTypeName());
+        assertFalse( collection.getField("tags").isMandatory());
+        assertEquals( "array[object]", collection.getField("items").getTypeName());
+        // sku IS IN EACH OF THE 7 ARRAY ELEMENTS, qty ONLY IN 5
+        assertTrue( collection.getFieldByPath("items.sku").isMandatory());
+        assertFalse( collection.getFieldByPath("items.qty").isMandatory());
+        assertEquals( "Integer", collection.getFieldByPath("items.qty").getTypeName());
+    }
+
+    @Test
+    public void testPipeline() {
+        final List<Document> pipeline = SchemaAggregation.buildPipeline( 2 );
+        // THE FIRST LEVEL, TWO LEVELS OF 4 STAGES AND THE GROUP
+        assertEquals( 3 + 2 * 4 + 1, pipeline.size());
+        assertTrue( pipeline.get( pipeline.size() - 1 ).containsKey("$group"));
+        assertTrue( pipeline.get( 0 ).toJson().contains("$objectToArray"));
+    }
+}
@@ -0,0 +1,108 @@
+package com.wisecoders.dbschema.mongodb;
+
+import com.wisecoders.dbschema.mongodb.structure.MetaCollection;
+import com.wisecoders.dbschema.mongodb.structure.MetaDatabase;
+import com.wisecoders.dbschema.mongodb.structure.MetaField;
+import com.wisecoders.dbschema.mongodb.structure.MetaObject;
+import com.wisecoders.dbschema.mongodb.structure.SchemaAggregation;
+import com.wisecoders.dbschema.mongodb.structure.SchemaCache;
+import org.bson.types.ObjectId;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.wisecoders.dbschema.mongodb.SchemaAggregationTest.result;
+import static org.junit.Assert.*;
+
+/**
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to
+ * the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class SchemaCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final SchemaCache.Signals SIGNALS = new SchemaCache.Signals( 1000, 50000, Collections.singletonList("_id_ {\"_id\": 1}"), "fast");
+
+    private static MetaCollection createOrders( MetaDatabase metaDatabase ){
+        final MetaCollection orders = metaDatabase.createMetaCollection("orders", true );
+        SchemaAggregation.merge( orders, Arrays.asList(
+                result("", "root", null, 10, 0 ),
+                result("_id", "objectId", null, 10, 0 ),
+                result("customer", "objectId", null, 10, 0 ).append("objectId", new ObjectId()),
+                result("address", "object", null, 10, 0 ),
+                result("address.city", "string", null, 4, 0 ),
+                result("items", "array", "object", 10, 10 ),
+                result("items.sku", "string", null, 10, 0 )), false );
+        return orders;
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        final SchemaCache cache = new SchemaCache( folder.getRoot().toPath(), SchemaCache.DEFAULT_MAX_AGE_MS );
+        final MetaDatabase metaDatabase = new MetaDatabase("shop");
+        final MetaCollection customers = metaDatabase.createMetaCollection("customers", true );
+        final MetaCollection orders = createOrders( metaDatabase );
+        orders.getField("customer").createReferenceTo( customers );
+        cache.save( orders, SIGNALS );
+
+        final MetaDatabase loadedDatabase = new MetaDatabase("shop");
+        final MetaCollection loaded = cache.load( loadedDatabase, "orders", new SchemaCache.Signals( 1050, 51000, SIGNALS.indexes, "fast"));
+        assertNotNull( loaded );
+        assertEquals( orders.getFieldCount(), loaded.getFieldCount());
+        assertEquals( "ObjectId", loaded.getField("customer").getTypeName());
+        assertEquals( orders.getField("customer").getObjectId(), loaded.getField("customer").getObjectId());
+        assertTrue( loaded.getField("address") instanceof MetaObject );
+        assertFalse( loaded.getFieldByPath("address.city").isMandatory());
+        assertEquals( "array[object]", loaded.getField("items").getTypeName());
+        assertEquals( orders.getFieldByPath("items.sku").getJavaType(), loaded.getFieldByPath("items.sku").getJavaType());
+        assertEquals( 1, loaded.metaIndexes.size());
+        assertSame( loaded.getField("_id"), loaded.metaIndexes.get(0).metaFields.get(0));
+
+        // THE REFERENCE IS CREATED WHEN THE TARGET COLLECTION IS ADDED
+        final MetaField customer = loaded.getField("customer");
+        assertTrue( customer.references.isEmpty());
+        final MetaCollection loadedCustomers = loadedDatabase.createMetaCollection("customers", true );
+        assertEquals( 1, customer.references.size());
+        assertSame( loadedCustomers, customer.references.get(0).pkCollection );
+    }
+
+    @Test
+    public void testStale() {
+        final SchemaCache cache = new SchemaCache( folder.getRoot().toPath(), SchemaCache.DEFAULT_MAX_AGE_MS );
+        cache.save( createOrders( new MetaDatabase("shop")), SIGNALS );
+
+        assertNull( cache.load( new MetaDatabase("shop"), "orders", new SchemaCache.Signals( 1200, 50000, SIGNALS.indexes, "fast")));
+        assertNull( cache.load( new MetaDatabase("shop"), "orders", new SchemaCache.Signals( 1000, 50000, Arrays.asList("_id_ {\"_id\": 1}", "sku_1 {\"sku\": 1}"), "fast")));
+        assertNull( cache.load( new MetaDatabase("shop"), "orders", new SchemaCache.Signals( 1000, 50000, SIGNALS.indexes, "medium")));
+        assertNull( cache.load( new MetaDatabase("other"), "orders", SIGNALS ));
+        // UNKNOWN SIZE IS NOT COMPARED
+        assertNotNull( cache.load( new MetaDatabase("shop"), "orders", new SchemaCache.Signals( 1000, -1, SIGNALS.indexes, "fast")));
+
+        final SchemaCache expired = new SchemaCache( folder.getRoot().toPath(), -1 );
+        assertNull( expired.load( new MetaDatabase("shop"), "orders", SIGNALS ));
+    }
+
+    @Test
+    public void testUnknownTypeClass() throws IOException {
+        final SchemaCache cache = new SchemaCache( folder.getRoot().toPath(), SchemaCache.DEFAULT_MAX_AGE_MS );
+        cache.save( createOrders( new MetaDatabase("shop")), SIGNALS );
+        assertNotNull( cache.load( new MetaDatabase("shop"), "orders", SIGNALS ));
+
+        // THE CLASS NAMES IN THE FILE ARE NOT LOADED, ONLY LOOKED UP
+        final Path file = folder.getRoot().toPath().resolve("shop").resolve("orders.json");
+        final String json = new String( Files.readAllBytes( file ), StandardCharsets.UTF_8 );
+        assertTrue( json.contains("org.bson.types.ObjectId"));
+        Files.write( file, json.replace("org.bson.types.ObjectId", "java.lang.Runtime").getBytes( StandardCharsets.UTF_8 ));
+        assertNull( cache.load( new MetaDatabase("shop"), "orders", SIGNALS ));
+    }
+}
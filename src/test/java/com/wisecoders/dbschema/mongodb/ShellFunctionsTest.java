@@ -0,0 +1,58 @@
+package com.wisecoders.dbschema.mongodb;
+
+import org.bson.types.Decimal128;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to
+ * the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class ShellFunctionsTest {
+
+    @Test
+    public void testIsoDate() {
+        assertEquals( 0L, ShellFunctions.parseIsoDate("1970-01-01T00:00:00Z").getTime());
+        assertEquals( 0L, ShellFunctions.parseIsoDate("1970-01-01").getTime());
+        assertEquals( 1500L, ShellFunctions.parseIsoDate("1970-01-01 00:00:01.5").getTime());
+        assertEquals( -3600000L, ShellFunctions.parseIsoDate("1970-01-01T00:00:00+01:00").getTime());
+        assertEquals( 60000L, ShellFunctions.parseIsoDate("1970-01-01T00:01").getTime());
+    }
+
+    @Test
+    public void testDate() {
+        final Date expected = Date.from( LocalDate.of( 2020, 1, 31 ).atStartOfDay( ZoneId.systemDefault()).toInstant());
+        assertEquals( expected, ShellFunctions.parseDate("2020-01-31"));
+        assertEquals( expected, ShellFunctions.parseDate("31-01-2020"));
+        assertEquals( expected, ShellFunctions.parseDate("31.01.2020"));
+        assertEquals( expected, ShellFunctions.parseDate("31/01/2020"));
+        assertEquals( expected, ShellFunctions.parseDate("2020.01.31"));
+        assertEquals( expected, ShellFunctions.parseDate("1/31/2020"));
+        assertEquals( 0L, ShellFunctions.parseDate("1970-01-01T00:00:00Z").getTime());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDate() {
+        ShellFunctions.parseDate("2020-13-45");
+    }
+
+    @Test
+    public void testScriptFunctions() {
+        try ( Context context = Context.newBuilder("js").allowAllAccess(true).build() ) {
+            ShellFunctions.bind( context.getBindings("js"));
+            assertEquals( new Date(0), context.eval("js", "ISODate('1970-01-01T00:00:00Z')").asHostObject());
+            assertEquals( new Date(0), context.eval("js", "new ISODate('1970-01-01T00:00:00Z')").asHostObject());
+            assertTrue( context.eval("js", "new Date()").asHostObject() instanceof Date );
+            final Value decimal = context.eval("js", "NumberDecimal('1234567890.123456789012345')");
+            assertEquals( Decimal128.parse("1234567890.123456789012345"), decimal.asHostObject());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.wisecoders.dbschema.mongodb;
+
+import com.mongodb.client.model.*;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to
+ * the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class ShellQueryTest {
+
+    @Test
+    public void testFindWithCursorMethods() {
+        final ShellQuery query = ShellQuery.parse("db.books.find({qty:{$gt:1}}, {'name':1}).sort({ name: -1 }).skip(5).limit(10);");
+        assertNotNull( query );
+        assertNull( query.databaseName );
+        assertEquals( "books", query.collectionName );
+        assertEquals( 4, query.calls.size() );
+        final Document filter = (Document)query.calls.get(0).arguments.get(0);
+        assertEquals( 1, ((Document)filter.get("qty")).get("$gt"));
+        assertEquals( -1, ((Document)query.calls.get(1).arguments.get(0)).get("name"));
+        assertEquals( 10, query.calls.get(3).arguments.get(0));
+    }
+
+    @Test
+    public void testDatabaseAndGetCollection() {
+        final ShellQuery query = ShellQuery.parse("local.getCollection('my.books').findOne({_id: ObjectId('5f1d7a3b2a0e4c1d8c3b2a1f')})");
+        assertNotNull( query );
+        assertEquals( "local", query.databaseName );
+        assertEquals( "my.books", query.collectionName );
+        final Document filter = (Document)query.calls.get(0).arguments.get(0);
+        assertEquals( new ObjectId("5f1d7a3b2a0e4c1d8c3b2a1f"), filter.get("_id"));
+    }
+
+    @Test
+    public void testAggregate() {
+        final ShellQuery query = ShellQuery.parse("db.books.aggregate([{$match:{qty:{$gt:1.0}}},{$group:{_id:'$name', total:{$sum:NumberLong(1)}}}])");
+        assertNotNull( query );
+        final List pipeline = (List)query.calls.get(0).arguments.get(0);
+        assertEquals( 2, pipeline.size() );
+        // INTEGRAL NUMBERS ARE GIVEN AS INTEGER, LIKE THE SCRIPT ENGINE DOES
+        assertEquals( 1, ((Document)((Document)((Document)pipeline.get(0)).get("$match")).get("qty")).get("$gt"));
+        assertEquals( 1L, ((Document)((Document)((Document)pipeline.get(1)).get("$group")).get("total")).get("$sum"));
+    }
+
+    @Test
+    public void testCount() {
+        assertNotNull( ShellQuery.parse("db.books.count()"));
+        assertNotNull( ShellQuery.parse("db.books.countDocuments({qty:5})"));
+        assertNotNull( ShellQuery.parse("db.books.find({qty:5}).count()"));
+        assertNull( ShellQuery.parse("db.books.find().count().toString()"));
+    }
+
+    @Test
+    public void testWriteModel() {
+        final ShellQuery insert = ShellQuery.parse("db.books.insertOne({name:'Java', qty: 5})");
+        assertNotNull( insert );
+        final InsertOneModel<BsonDocument> insertModel = (InsertOneModel<BsonDocument>)insert.toWriteModel();
+        assertEquals( new BsonInt32(5), insertModel.getDocument().get("qty"));
+        assertTrue( ShellQuery.parse("local.books.updateMany({qty:5}, {$set:{qty:6}})").toWriteModel() instanceof UpdateManyModel );
+        assertTrue( ShellQuery.parse("db.books.replaceOne({name:'Java'}, {name:'C++'})").toWriteModel() instanceof ReplaceOneModel );
+        assertTrue( ShellQuery.parse("db.books.deleteOne({name:'Java'})").toWriteModel() instanceof DeleteOneModel );
+        assertTrue( ShellQuery.parse("db.books.remove({})").toWriteModel() instanceof DeleteManyModel );
+        assertNull( ShellQuery.parse("db.books.find({qty:5})").toWriteModel());
+    }
+
+    @Test
+    public void testNotRecognized() {
+        assertNull( ShellQuery.parse("db.books.find({name: /java/i})"));
+        assertNull( ShellQuery.parse("db.books.find({date: new Date()})"));
+        assertNull( ShellQuery.parse("db.books.find({date: ISODate('2020-01-01')})"));
+        assertNull( ShellQuery.parse("db.books.find({qty: x})"));
+        assertNull( ShellQuery.parse("db.books.find({qty: 1 + 1})"));
+        assertNull( ShellQuery.parse("db.books.find({_id: {$oid: '5f1d7a3b2a0e4c1d8c3b2a1f'}})"));
+        assertNull( ShellQuery.parse("db.books.find().forEach(printjson)"));
+        assertNull( ShellQuery.parse("db.books.find().limit(0x10)"));
+        assertNull( ShellQuery.parse("db.books.find(); db.books.drop()"));
+        assertNull( ShellQuery.parse("db.books.insertOne({name:'Java'}, {name:'C++'})"));
+        assertNull( ShellQuery.parse("db.books.updateOne({name:'Java'})"));
+        assertNull( ShellQuery.parse("db.runCommand({ping:1})"));
+        assertNull( ShellQuery.parse("use('local')"));
+        assertNull( ShellQuery.parse("db.books.find({name: 'Java'"));
+    }
+}
@@ -5,9 +5,14 @@ import org.junit.Test;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.sql.Statement;
 
+import static org.junit.Assert.assertEquals;
+
 /**
  * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with <a href="https://dbschema.com">DbSchema Database Designer</a>
  * Free to use by everyone, code modifications allowed only to
@@ -107,6 +112,61 @@ public class SimpleTest extends AbstractTestCase{
         stmt.close();
     }
 
+    @Test
+    public void testPreparedStatementParameters() throws Exception {
+        PreparedStatement stmt = con.prepareStatement("local.books.find({ name: ?, qty: { $gt: ? } })");
+        stmt.setString( 1, "Python");
+        stmt.setInt( 2, 1 );
+        printResultSet( stmt.executeQuery() );
+        stmt.setString( 1, "Java");
+        printResultSet( stmt.executeQuery() );
+        stmt.close();
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        PreparedStatement stmt = con.prepareStatement("local.books.insertOne({ name: ?, qty: ? })");
+        for ( int i = 0; i < 10; i++ ){
+            stmt.setString( 1, "Batch " + i );
+            stmt.setInt( 2, i );
+            stmt.addBatch();
+        }
+        int[] counts = stmt.executeBatch();
+        assertEquals( 10, counts.length );
+        stmt.close();
+        Statement deleteStmt = con.createStatement();
+        deleteStmt.addBatch("local.books.deleteMany({ name: /^Batch/ })");
+        deleteStmt.executeBatch();
+        deleteStmt.close();
+    }
+
+    @Test(expected = SQLTimeoutException.class)
+    public void testQueryTimeout() throws Exception {
+        Statement stmt = con.createStatement();
+        stmt.setQueryTimeout( 1 );
+        try {
+            stmt.executeQuery("local.books.find({ $where: 'sleep(3000) || true' })");
+        } finally {
+            stmt.close();
+        }
+    }
+
+    @Test
+    public void testMaxRows() throws Exception {
+        Statement stmt = con.createStatement();
+        stmt.setMaxRows( 1 );
+        stmt.setFetchSize( 10 );
+        assertEquals( 1, countRows( stmt.executeQuery("local.books.find()")));
+        assertEquals( 1, countRows( stmt.executeQuery("local.books.aggregate([{ $match: {} }])")));
+        stmt.close();
+    }
+
+    private int countRows( ResultSet rs ) throws SQLException {
+        int rows = 0;
+        while ( rs.next() ) rows++;
+        return rows;
+    }
+
     @Test
     public void testFindAndOr() throws Exception {
         Statement stmt=con.createStatement();
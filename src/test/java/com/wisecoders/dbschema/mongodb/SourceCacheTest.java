@@ -0,0 +1,46 @@
+package com.wisecoders.dbschema.mongodb;
+
+import org.graalvm.polyglot.Source;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to
+ * the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class SourceCacheTest {
+
+    @Test
+    public void testHitAndMiss() {
+        final SourceCache cache = new SourceCache( 2 );
+        final Source source = cache.getSource("db.books.find()");
+        assertSame( source, cache.getSource("db.books.find()"));
+        assertEquals( 1, cache.getHitCount() );
+        assertEquals( 1, cache.getMissCount() );
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        final SourceCache cache = new SourceCache( 2 );
+        final Source first = cache.getSource("db.a.find()");
+        cache.getSource("db.b.find()");
+        cache.getSource("db.a.find()");
+        cache.getSource("db.c.find()");
+        assertEquals( 2, cache.size() );
+        assertSame( first, cache.getSource("db.a.find()"));
+        cache.getSource("db.b.find()");
+        assertEquals( 4, cache.getMissCount() );
+    }
+
+    @Test
+    public void testDisabled() {
+        final SourceCache cache = new SourceCache( 0 );
+        cache.getSource("db.books.find()");
+        cache.getSource("db.books.find()");
+        assertEquals( 0, cache.size() );
+        assertEquals( 0, cache.getHitCount() );
+        assertEquals( 2, cache.getMissCount() );
+    }
+}
@@ -0,0 +1,210 @@
+package com.wisecoders.dbschema.mongodb.wrappers;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory MongoDatabase for tests without server. Implements only the methods used by the schema discovery:
+ * the find() and listIndexes() iterables return the given documents, the other methods return null or zero.
+ * The find() iterables apply only the $gt and $gte filters on ObjectId _id, the sort by _id and the limit.
+ * The aggregate() iterables throw MongoExecutionTimeoutException, like a server exceeding the maxTime.
+ * Counts the find() calls, records the last filter of each collection and the _id of the documents read.
+ *
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to
+ * the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+class FakeMongoDatabase implements InvocationHandler {
+
+    private final String name;
+    private final Map<String,List<Document>> collections = new ConcurrentHashMap<>();
+    final Map<String,AtomicInteger> finds = new ConcurrentHashMap<>();
+    final Map<String,Object> filters = new ConcurrentHashMap<>();
+    final Map<String,List<Object>> readIds = new ConcurrentHashMap<>();
+    // SLOW DOWN THE SCANS, SO CONCURRENT DISCOVERIES OVERLAP
+    volatile long findDelayMs;
+
+    FakeMongoDatabase( String name ){
+        this.name = name;
+    }
+
+    FakeMongoDatabase addCollection( String collectionName, List<Document> documents ){
+        collections.put( collectionName, documents );
+        return this;
+    }
+
+    MongoDatabase proxy(){
+        return proxy( MongoDatabase.class, this );
+    }
+
+    int getFindCount( String collectionName ){
+        final AtomicInteger count = finds.get( collectionName );
+        return count != null ? count.get() : 0;
+    }
+
+    @Override
+    public Object invoke( Object proxy, Method method, Object[] args ){
+        switch ( method.getName() ){
+            case "getName": return name;
+            case "toString": return name;
+            case "getCollection": return proxy( MongoCollection.class, new CollectionHandler( (String)args[0] ));
+            case "listCollections": return proxy( method.getReturnType(), new IterableHandler( Collections.emptyList(), new ArrayList<>() ));
+            default: return defaultValue( method );
+        }
+    }
+
+    private class CollectionHandler implements InvocationHandler {
+        private final String collectionName;
+
+        CollectionHandler( String collectionName ){
+            this.collectionName = collectionName;
+        }
+
+        @Override
+        public Object invoke( Object proxy, Method method, Object[] args ) throws InterruptedException {
+            final List<Document> documents = collections.getOrDefault( collectionName, Collections.emptyList() );
+            switch ( method.getName() ){
+                case "getNamespace": return new MongoNamespace( name, collectionName );
+                case "toString": return name + "." + collectionName;
+                case "getCodecRegistry": return MongoClientSettings.getDefaultCodecRegistry();
+                case "withDocumentClass": return proxy;
+                case "estimatedDocumentCount":
+                case "countDocuments": return (long)documents.size();
+                case "find":
+                    finds.computeIfAbsent( collectionName, n -> new AtomicInteger()).incrementAndGet();
+                    if ( args != null && args.length > 0 && !( args[0] instanceof Class )){
+                        filters.put( collectionName, args[0] );
+                    }
+                    if ( findDelayMs > 0 ) Thread.sleep( findDelayMs );
+                    return proxy( method.getReturnType(), new IterableHandler( documents, readIds.computeIfAbsent( collectionName, n -> Collections.synchronizedList( new ArrayList<>()))));
+                case "aggregate": return proxy( method.getReturnType(), new IterableHandler( documents, new ArrayList<>(), true ));
+                case "listIndexes": return proxy( method.getReturnType(), new IterableHandler( Collections.emptyList(), new ArrayList<>() ));
+                default:
+                    if ( method.getName().startsWith("delete") || method.getName().startsWith("update") || method.getName().startsWith("replace")){
+                        throw new AssertionError("Unexpected write " + method );
+                    }
+                    return defaultValue( method );
+            }
+        }
+    }
+
+    /**
+     * FindIterable, ListIndexesIterable, ... The option setters return the same iterable.
+     */
+    private static class IterableHandler implements InvocationHandler {
+        private final List<Document> documents;
+        private final List<Object> readIds;
+        private BsonDocument filter = new BsonDocument(), sort = new BsonDocument();
+        private int limit;
+        private final boolean timeout;
+
+        IterableHandler( List<Document> documents, List<Object> readIds ){
+            this( documents, readIds, false );
+        }
+
+        IterableHandler( List<Document> documents, List<Object> readIds, boolean timeout ){
+            this.documents = documents;
+            this.readIds = readIds;
+            this.timeout = timeout;
+        }
+
+        @Override
+        public Object invoke( Object proxy, Method method, Object[] args ){
+            switch ( method.getName() ){
+                case "filter": filter = toBsonDocument( args[0] ); return proxy;
+                case "sort": sort = toBsonDocument( args[0] ); return proxy;
+                case "limit": limit = (Integer)args[0]; return proxy;
+                case "iterator":
+                case "cursor":
+                    if ( timeout ) throw new MongoExecutionTimeoutException( 50, "operation exceeded time limit");
+                    return proxy( MongoCursor.class, new CursorHandler( select().iterator(), readIds ));
+                case "first": return documents.isEmpty() ? null : documents.get( 0 );
+                default:
+                    if ( method.getReturnType().isInstance( proxy )) return proxy;
+                    return defaultValue( method );
+            }
+        }
+
+        private List<Document> select(){
+            final List<Document> selected = new ArrayList<>();
+            final BsonDocument idFilter = filter.isDocument("_id") ? filter.getDocument("_id") : new BsonDocument();
+            for ( Document document : documents ){
+                final Object id = document.get("_id");
+                if ( idFilter.containsKey("$gt") && compare( id, idFilter.getObjectId("$gt").getValue()) <= 0 ) continue;
+                if ( idFilter.containsKey("$gte") && compare( id, idFilter.getObjectId("$gte").getValue()) < 0 ) continue;
+                selected.add( document );
+            }
+            if ( sort.containsKey("_id")){
+                final int direction = sort.getNumber("_id").intValue();
+                selected.sort( ( a, b ) -> direction * compare( a.get("_id"), b.get("_id")));
+            }
+            return limit > 0 ? selected.subList( 0, Math.min( limit, selected.size())) : selected;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static int compare( Object id, Object other ){
+            return ((Comparable<Object>)id).compareTo( other );
+        }
+
+        private static BsonDocument toBsonDocument( Object bson ){
+            return bson != null ? ((Bson)bson).toBsonDocument( BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry() ) : new BsonDocument();
+        }
+    }
+
+    private static class CursorHandler implements InvocationHandler {
+        private final Iterator<Document> iterator;
+        private final List<Object> readIds;
+
+        CursorHandler( Iterator<Document> iterator, List<Object> readIds ){
+            this.iterator = iterator;
+            this.readIds = readIds;
+        }
+
+        @Override
+        public Object invoke( Object proxy, Method method, Object[] args ){
+            switch ( method.getName() ){
+                case "hasNext": return iterator.hasNext();
+                case "next": return read( iterator.next() );
+                case "tryNext": return iterator.hasNext() ? read( iterator.next() ) : null;
+                default: return defaultValue( method );
+            }
+        }
+
+        private Document read( Document document ){
+            readIds.add( document.get("_id"));
+            return document;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy( Class<T> type, InvocationHandler handler ){
+        return (T)Proxy.newProxyInstance( FakeMongoDatabase.class.getClassLoader(), new Class<?>[]{ type }, handler );
+    }
+
+    private static Object defaultValue( Method method ){
+        final Class<?> type = method.getReturnType();
+        if ( type == boolean.class ) return false;
+        if ( type == int.class ) return 0;
+        if ( type == long.class ) return 0L;
+        if ( type == double.class ) return 0d;
+        return null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.wisecoders.dbschema.mongodb.wrappers;
+
+import com.wisecoders.dbschema.mongodb.ScanOptions;
+import com.wisecoders.dbschema.mongodb.ScanStrategy;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.graalvm.polyglot.Context;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to
+ * the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class WrappedMongoCollectionTest {
+
+    @Test
+    public void testRegexFilter() {
+        final FakeMongoDatabase fake = new FakeMongoDatabase("db").addCollection("words", Collections.singletonList( new Document("_id", 1 )));
+        final WrappedMongoCollection<Document> words = new WrappedMongoDatabase( fake.proxy(), new ScanOptions( ScanStrategy.fast ), false, Runnable::run, null ).getCollection("words");
+        try ( Context context = Context.newBuilder("js").allowAllAccess(true).build() ) {
+            // SCRIPT OBJECTS ARE GIVEN TO THE WRAPPERS AS MAP
+            final Map<?,?> regex = context.eval("js", "/x/").as( Map.class );
+
+            // READS KEEP THE EMPTY FILTER, MATCHING ALL DOCUMENTS
+            words.find( regex );
+            assertEquals( new BsonDocument(), fake.filters.get("words"));
+
+            // WRITES WOULD CHANGE ALL DOCUMENTS, SO THEY ARE REJECTED
+            assertThrows( IllegalArgumentException.class, () -> words.remove( regex ));
+            assertThrows( IllegalArgumentException.class, () -> words.deleteMany( regex ));
+            assertThrows( IllegalArgumentException.class, () -> words.updateMany( regex, new Document("$set", new Document("a", 1 ))));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.wisecoders.dbschema.mongodb.wrappers;
+
+import com.wisecoders.dbschema.mongodb.ScanOptions;
+import com.wisecoders.dbschema.mongodb.ScanStrategy;
+import com.wisecoders.dbschema.mongodb.structure.MetaCollection;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Copyright Wise Coders GmbH. The MongoDB JDBC driver is build to be used with <a href="https://dbschema.com">DbSchema Database Designer</a>
+ * Free to use by everyone, code modifications allowed only to
+ * the <a href="https://github.com/wise-coders/mongodb-jdbc-driver">public repository</a>
+ */
+public class WrappedMongoDatabaseTest {
+
+    private static final List<String> NAMES = Arrays.asList("persons", "orders", "products");
+
+    private static FakeMongoDatabase fakeDatabase(){
+        final FakeMongoDatabase fake = new FakeMongoDatabase("db");
+        for ( String name : NAMES ){
+            fake.addCollection( name, Collections.singletonList( new Document("_id", 1 ).append( name, "value" )));
+        }
+        return fake;
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentDiscovery() throws Exception {
+        final FakeMongoDatabase fake = fakeDatabase();
+        fake.findDelayMs = 200;
+        final ExecutorService scanExecutor = Executors.newFixedThreadPool( 2 );
+        final ExecutorService callers = Executors.newFixedThreadPool( 4 );
+        try {
+            final WrappedMongoDatabase database = new WrappedMongoDatabase( fake.proxy(), new ScanOptions( ScanStrategy.fast ), false, scanExecutor, null );
+            final List<Future<Map<String,MetaCollection>>> results = new ArrayList<>();
+            for ( int i = 0; i < 4; i++ ){
+                // THE SAME COLLECTIONS, REQUESTED TWICE IN EACH CALL AND FROM MORE THREADS
+                results.add( callers.submit( () -> database.getMetaCollections( Arrays.asList("persons", "orders", "products", "persons"))));
+            }
+            final MetaCollection persons = database.getMetaCollection("persons");
+            assertNotNull( persons.getField("persons"));
+            for ( Future<Map<String,MetaCollection>> result : results ){
+                final Map<String,MetaCollection> metaCollections = result.get();
+                assertEquals( NAMES.size(), metaCollections.size());
+                assertSame( persons, metaCollections.get("persons"));
+                assertSame( database.getMetaCollection("orders"), metaCollections.get("orders"));
+            }
+            // EACH COLLECTION IS SCANNED ONCE
+            for ( String name : NAMES ){
+                assertEquals( name, 1, fake.getFindCount( name ));
+            }
+        } finally {
+            scanExecutor.shutdownNow();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testClosedExecutor() {
+        final FakeMongoDatabase fake = fakeDatabase();
+        final ExecutorService scanExecutor = Executors.newSingleThreadExecutor();
+        scanExecutor.shutdown();
+        final WrappedMongoDatabase database = new WrappedMongoDatabase( fake.proxy(), new ScanOptions( ScanStrategy.fast ), false, scanExecutor, null );
+        // THE REJECTED SCANS RUN IN THE CALLER THREAD
+        final Map<String,MetaCollection> metaCollections = database.getMetaCollections( NAMES );
+        assertEquals( NAMES.size(), metaCollections.size());
+        for ( String name : NAMES ){
+            assertEquals( name, 1, fake.getFindCount( name ));
+        }
+    }
+
+    @Test
+    public void testIdProbes() {
+        // TWO CLUSTERS OF _id, SO MOST RANDOM PROBES START IN THE GAP AND READ THE FIRST DOCUMENTS OF THE SECOND CLUSTER
+        final List<Document> documents = new ArrayList<>();
+        for ( int i = 0; i < 200; i++ ){
+            final long seconds = 1_600_000_000L + ( i < 100 ? 0 : 1_000_000 );
+            documents.add( new Document("_id", new ObjectId( new Date( seconds * 1000 ), i )).append("n", i ));
+        }
+        final FakeMongoDatabase fake = new FakeMongoDatabase("db").addCollection("events", documents );
+        final WrappedMongoDatabase database = new WrappedMongoDatabase( fake.proxy(), new ScanOptions( ScanStrategy.sample, 20, 0, false ), false, Runnable::run, null );
+        assertNotNull( database.getMetaCollection("events").getField("n"));
+
+        // THE FIRST AND THE LAST _id ARE READ TO CHOOSE THE PROBES
+        final List<Object> readIds = fake.readIds.get("events");
+        final List<Object> probeIds = readIds.subList( 2, readIds.size());
+        assertTrue( probeIds.size() >= 10 && probeIds.size() <= 20 );
+        assertEquals( probeIds.size(), new HashSet<>( probeIds ).size());
+    }
+
+    @Test
+    public void testServerScanTimeout() {
+        final FakeMongoDatabase fake = fakeDatabase();
+        final WrappedMongoDatabase database = new WrappedMongoDatabase( fake.proxy(), new ScanOptions( ScanStrategy.fast, 0, 1000, true ), false, Runnable::run, null );
+        // THE PIPELINE TIMES OUT, THE FIRST DOCUMENTS ARE READ INSTEAD
+        final MetaCollection persons = database.getMetaCollection("persons");
+        assertNotNull( persons );
+        assertNotNull( persons.getField("persons"));
+        assertFalse( persons.getScanConverged());
+        assertEquals( 1, persons.metaIndexes.size());
+    }
+
+    @Test
+    public void testSampleTimeout() {
+        final List<Document> documents = new ArrayList<>();
+        for ( int i = 0; i < 100; i++ ){
+            documents.add( new Document("_id", i ).append("n", i ));
+        }
+        final FakeMongoDatabase fake = new FakeMongoDatabase("db").addCollection("events", documents );
+        final ScanOptions options = new ScanOptions( ScanStrategy.adaptive, 1, 1000, false );
+        final WrappedMongoDatabase database = new WrappedMongoDatabase( fake.proxy(), options, false, Runnable::run, null );
+        // THE $sample TIMES OUT ON THE FIRST BATCH. THE COLLECTION IS STILL DISCOVERED, WITHOUT FIELDS
+        final MetaCollection events = database.getMetaCollection("events");
+        assertNotNull( events );
+        assertFalse( events.getScanConverged());
+        assertNull( events.getField("n"));
+    }
+}